@@ -0,0 +1,23 @@
+package uk.ac.glasgow.jagora;
+
+/**
+ * Describes the orders resting at a single price in an order book.
+ */
+public interface DepthLevel {
+
+	/**
+	 * @return the price of the level.
+	 */
+	public double getPrice();
+
+	/**
+	 * @return the total quantity remaining on the orders at the level.
+	 */
+	public int getQuantity();
+
+	/**
+	 * @return the number of orders at the level.
+	 */
+	public int getOrderCount();
+
+}
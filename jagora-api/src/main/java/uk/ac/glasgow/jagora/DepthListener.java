@@ -0,0 +1,21 @@
+package uk.ac.glasgow.jagora;
+
+/**
+ * Receives the changes to the price levels of an order book as they happen,
+ * so that a copy of the book's depth can be kept up to date without reading
+ * the whole book.
+ */
+public interface DepthListener {
+
+	/**
+	 * Notifies the listener of a new total quantity or order count at a
+	 * price level. A level whose orders have all been removed is reported
+	 * with a quantity and order count of zero.
+	 *
+	 * @param price of the level.
+	 * @param quantity remaining on the orders at the level.
+	 * @param orderCount the number of orders at the level.
+	 */
+	public void levelChanged(double price, int quantity, int orderCount);
+
+}
@@ -0,0 +1,17 @@
+package uk.ac.glasgow.jagora;
+
+/**
+ * Extends the definition of order behaviour for orders whose price is held as
+ * a whole number of ticks of a fixed point stock. Two fixed point orders for
+ * the same stock can be compared and matched without floating point
+ * arithmetic.
+ */
+public interface FixedPointOrder extends Order {
+
+	/**
+	 * @return the quoted price for this order as a multiple of the tick size
+	 *         of the order's stock.
+	 */
+	public long getPriceInTicks();
+
+}
@@ -0,0 +1,15 @@
+package uk.ac.glasgow.jagora;
+
+/**
+ * Extends the definition of a stock with a tick size, the smallest price
+ * increment at which the stock may be quoted. Orders for a fixed point stock
+ * can carry their price as a whole number of ticks.
+ */
+public interface FixedPointStock extends Stock {
+
+	/**
+	 * @return the smallest permitted unit price increment for this stock.
+	 */
+	public double getTickSize();
+
+}
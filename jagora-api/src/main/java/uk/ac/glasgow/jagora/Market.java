@@ -20,6 +20,14 @@ public interface Market {
 	 *         occurred during this round of clearing.
 	 */
 	public List<TickEvent<Trade>> doClearing ();
+
+	/**
+	 * Registers a listener to be notified synchronously of each trade executed
+	 * by this market, in order of execution, as the trade occurs.
+	 * 
+	 * @param tradeListener
+	 */
+	public void addTradeListener(TradeListener tradeListener);
 	
 	/**
 	 * Enters the specified buy order onto the order book for this market. The
@@ -66,4 +74,44 @@ public interface Market {
 	 *         null if the market has no offers.
 	 */
 	public Double getBestOffer();
+
+	/**
+	 * Reads the quote most recently published by this market without waiting
+	 * for, or holding up, any thread placing orders on the market.
+	 * @return the latest quote for this market.
+	 */
+	public Quote getQuote();
+
+	/**
+	 * @return the buy orders currently on this market, in the order they
+	 *         would be matched.
+	 */
+	public List<TickEvent<BuyOrder>> getBuyOrders();
+
+	/**
+	 * @return the sell orders currently on this market, in the order they
+	 *         would be matched.
+	 */
+	public List<TickEvent<SellOrder>> getSellOrders();
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the highest priced levels of the buy order book, best first.
+	 */
+	public List<DepthLevel> getBuyDepth(int levels);
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the lowest priced levels of the sell order book, best first.
+	 */
+	public List<DepthLevel> getSellDepth(int levels);
+
+	/**
+	 * Registers listeners to be notified of each change to a price level of
+	 * this market's buy and sell order books, as the change occurs.
+	 *
+	 * @param buyDepthListener notified of changes to the buy order book.
+	 * @param sellDepthListener notified of changes to the sell order book.
+	 */
+	public void addDepthListeners(DepthListener buyDepthListener, DepthListener sellDepthListener);
 }
@@ -15,6 +15,14 @@ public interface Order {
 	 * @return the remaining quantity of stock required to fill this trade.
 	 */
 	public Integer getRemainingQuantity();
+
+	/**
+	 * @return the remaining quantity of stock required to fill this trade, as
+	 *         for {@link #getRemainingQuantity()} but without boxing it.
+	 */
+	public default int getRemainingQuantityAsInt() {
+		return getRemainingQuantity();
+	}
 	
 	/**
 	 * @return the quoted price for this order.
@@ -39,5 +47,41 @@ public interface Order {
 	 *             the trader who made the trade cannot satisfy the demand.
 	 */
 	public void rollBackTrade(TickEvent<Trade> tradeEvent) throws TradeException;
+
+	/**
+	 * Applies a trade as for {@link #satisfyTrade(TickEvent)}, but reports
+	 * failure as a result rather than by throwing an exception.
+	 * 
+	 * @param tradeEvent
+	 * @return SETTLED if the trade was applied; otherwise the reason it was
+	 *         not, in which case neither this order nor its trader is changed.
+	 */
+	public default SettlementResult trySatisfyTrade(TickEvent<Trade> tradeEvent) {
+		try {
+			satisfyTrade(tradeEvent);
+			return SettlementResult.SETTLED;
+		}
+		catch (TradeException e) {
+			return SettlementResult.FAILED;
+		}
+	}
+
+	/**
+	 * Reverts a trade as for {@link #rollBackTrade(TickEvent)}, but reports
+	 * failure as a result rather than by throwing an exception.
+	 * 
+	 * @param tradeEvent
+	 * @return SETTLED if the trade was reverted; otherwise the reason it was
+	 *         not, in which case neither this order nor its trader is changed.
+	 */
+	public default SettlementResult tryRollBackTrade(TickEvent<Trade> tradeEvent) {
+		try {
+			rollBackTrade(tradeEvent);
+			return SettlementResult.SETTLED;
+		}
+		catch (TradeException e) {
+			return SettlementResult.FAILED;
+		}
+	}
 	
 }
@@ -12,7 +12,14 @@ public interface OrderBook<O extends Order & Comparable<O>>  {
 
 	public void recordOrder(O order);
 		
-	public void cancelOrder(O order);
+	/**
+	 * Removes the specified order (if present) from this order book.
+	 * 
+	 * @param order
+	 * @return the order instance that was removed from this order book, or
+	 *         null if no matching order was recorded.
+	 */
+	public O cancelOrder(O order);
 	
 	/**
 	 * @return the best available order recorded in this order book. Orders are
@@ -26,4 +33,19 @@ public interface OrderBook<O extends Order & Comparable<O>>  {
 	 *         price and time.
 	 */
 	public List<TickEvent<O>> getOrdersAsList();
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the best price levels in this order book, best first, each with
+	 *         the total quantity and number of orders at its price.
+	 */
+	public List<DepthLevel> getDepth(int levels);
+
+	/**
+	 * Registers a listener to be notified synchronously of each change to a
+	 * price level in this order book.
+	 *
+	 * @param depthListener
+	 */
+	public void addDepthListener(DepthListener depthListener);
 }
@@ -0,0 +1,46 @@
+package uk.ac.glasgow.jagora;
+
+/**
+ * Describes the best bid and best offer on a market at a moment in time. A
+ * quote never changes once it has been published, so it can be read from
+ * any thread while the market continues to trade.
+ */
+public interface Quote {
+
+	/**
+	 * @return true if the market had a bid when the quote was published.
+	 */
+	public boolean hasBid();
+
+	/**
+	 * @return the price of the best bid, or NaN if there was no bid.
+	 */
+	public double getBid();
+
+	/**
+	 * @return the quantity bid at the best bid price, or 0 if there was no bid.
+	 */
+	public int getBidQuantity();
+
+	/**
+	 * @return true if the market had an offer when the quote was published.
+	 */
+	public boolean hasOffer();
+
+	/**
+	 * @return the price of the best offer, or NaN if there was no offer.
+	 */
+	public double getOffer();
+
+	/**
+	 * @return the quantity offered at the best offer price, or 0 if there was no offer.
+	 */
+	public int getOfferQuantity();
+
+	/**
+	 * @return the tick of the latest order or trade on the market when the
+	 *         quote was published, or -1 if there had been none.
+	 */
+	public long getTick();
+
+}
@@ -0,0 +1,31 @@
+package uk.ac.glasgow.jagora;
+
+/**
+ * Reports the outcome of applying a trade to an order or a trader, for
+ * settlement paths that do not throw trade exceptions.
+ */
+public enum SettlementResult {
+
+	/**
+	 * The trade was applied.
+	 */
+	SETTLED,
+
+	/**
+	 * The buying trader does not have enough cash to pay for the trade.
+	 */
+	INSUFFICIENT_CASH,
+
+	/**
+	 * The selling trader does not hold enough of the stock to deliver the
+	 * trade.
+	 */
+	INSUFFICIENT_STOCK,
+
+	/**
+	 * The trade could not be applied for a reason other than a lack of cash
+	 * or stock, for example one reported only by a trade exception.
+	 */
+	FAILED;
+
+}
@@ -17,6 +17,14 @@ public interface StockExchange {
 	 */
 	public void doClearing ();
 
+	/**
+	 * Registers a listener to be notified synchronously of each trade executed
+	 * on any market hosted by this exchange, as the trade occurs.
+	 * 
+	 * @param tradeListener
+	 */
+	public void addTradeListener(TradeListener tradeListener);
+
 	/**
 	 * Places a buy order on the stock exchange. If this is the first order for
 	 * a stock then placing the order creates the market for that stock on the
@@ -64,4 +72,12 @@ public interface StockExchange {
 	 *         specified stock.
 	 */
 	public Double getBestBid(Stock stock);
+
+	/**
+	 * @param stock
+	 * @return the latest quote published by the market for the specified
+	 *         stock, or null if the exchange does not trade the specified
+	 *         stock.
+	 */
+	public Quote getQuote(Stock stock);
 }
@@ -21,6 +21,22 @@ public interface Trade {
 	 * @return the unit price for stock at which the trade proposed trade will occur.
 	 */
 	public Double getPrice();
+
+	/**
+	 * @return the quantity of stocks that should be traded, as for
+	 *         {@link #getQuantity()} but without boxing it.
+	 */
+	public default int getQuantityAsInt() {
+		return getQuantity();
+	}
+
+	/**
+	 * @return the unit price at which the proposed trade will occur, as for
+	 *         {@link #getPrice()} but without boxing it.
+	 */
+	public default double getPriceAsDouble() {
+		return getPrice();
+	}
 	
 	/**
 	 * 
@@ -31,4 +47,63 @@ public interface Trade {
 	 *             satisfied by the associated buying or selling traders.
 	 */
 	public TickEvent<Trade> execute() throws TradeException;
+
+	/**
+	 * @return the buy order filled by this trade, or null if the trade does
+	 *         not expose its orders.
+	 */
+	public default BuyOrder getBuyOrder() {
+		return null;
+	}
+
+	/**
+	 * @return the sell order filled by this trade, or null if the trade does
+	 *         not expose its orders.
+	 */
+	public default SellOrder getSellOrder() {
+		return null;
+	}
+
+	/**
+	 * Applies the proposed trade to the trade's buy and sell orders as at the
+	 * specified tick event, without throwing an exception on failure, as for
+	 * {@link #settle(BuyOrder, SellOrder, TickEvent)}.
+	 * 
+	 * @param tradeEvent
+	 *            the tick event recording the time of the trade.
+	 * @return SETTLED if both orders were satisfied; FAILED if the trade does
+	 *         not expose its orders; otherwise the result reported by the
+	 *         order that could not be satisfied.
+	 */
+	public default SettlementResult settle(TickEvent<Trade> tradeEvent) {
+		BuyOrder buyOrder = getBuyOrder();
+		SellOrder sellOrder = getSellOrder();
+		if (buyOrder == null || sellOrder == null) return SettlementResult.FAILED;
+		return settle(buyOrder, sellOrder, tradeEvent);
+	}
+
+	/**
+	 * Satisfies the buy order and then the sell order as at the specified
+	 * tick event. If the sell order cannot be satisfied, the buy order is
+	 * rolled back, so a failed settlement leaves both orders and traders
+	 * unchanged.
+	 * 
+	 * @param buyOrder
+	 *            to be satisfied first.
+	 * @param sellOrder
+	 *            to be satisfied once the buy order has been.
+	 * @param tradeEvent
+	 *            the tick event recording the time of the trade.
+	 * @return SETTLED if both orders were satisfied; the buy order's result,
+	 *         such as INSUFFICIENT_CASH, if it could not be satisfied; or the
+	 *         sell order's result, such as INSUFFICIENT_STOCK, if it could not
+	 *         be.
+	 */
+	public static SettlementResult settle(BuyOrder buyOrder, SellOrder sellOrder, TickEvent<Trade> tradeEvent) {
+		SettlementResult result = buyOrder.trySatisfyTrade(tradeEvent);
+		if (result != SettlementResult.SETTLED) return result;
+		result = sellOrder.trySatisfyTrade(tradeEvent);
+		if (result != SettlementResult.SETTLED) buyOrder.tryRollBackTrade(tradeEvent);
+		return result;
+	}
 }
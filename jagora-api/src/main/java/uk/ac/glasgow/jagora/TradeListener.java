@@ -0,0 +1,16 @@
+package uk.ac.glasgow.jagora;
+
+/**
+ * Receives trades as they are executed by a market or stock exchange.
+ * Listeners are notified synchronously on the thread that executed the trade,
+ * so implementations should return quickly.
+ */
+public interface TradeListener {
+
+	/**
+	 * @param tradeEvent the tick event for a trade that has just been
+	 *            executed.
+	 */
+	public void tradeExecuted(TickEvent<Trade> tradeEvent);
+
+}
@@ -18,6 +18,14 @@ public interface Trader {
 	 *         than 0 cash.
 	 */
 	public Double getCash();
+
+	/**
+	 * @return this Trader's current cash balance, as for {@link #getCash()}
+	 *         but without boxing it.
+	 */
+	public default double getCashAsDouble() {
+		return getCash();
+	}
 	
 	/**
 	 * Decrements the trader's inventory of the specified stock by the specified
@@ -50,6 +58,50 @@ public interface Trader {
 	 *             of the purchase.
 	 */
 	public void buyStock(Stock stock, Integer quantity, Double price) throws TradeException;
+
+	/**
+	 * Applies a sale as for {@link #sellStock(Stock, Integer, Double)}, but
+	 * reports failure as a result rather than by throwing an exception.
+	 * 
+	 * @param stock
+	 * @param quantity
+	 *            the number of stock units to be sold.
+	 * @param price
+	 *            the unit price for the stock sale.
+	 * @return SETTLED if the sale was applied; otherwise the reason it was
+	 *         not, in which case the Trader is unchanged.
+	 */
+	public default SettlementResult trySellStock(Stock stock, int quantity, double price) {
+		try {
+			sellStock(stock, quantity, price);
+			return SettlementResult.SETTLED;
+		}
+		catch (TradeException e) {
+			return SettlementResult.INSUFFICIENT_STOCK;
+		}
+	}
+
+	/**
+	 * Applies a purchase as for {@link #buyStock(Stock, Integer, Double)}, but
+	 * reports failure as a result rather than by throwing an exception.
+	 * 
+	 * @param stock
+	 * @param quantity
+	 *            the number of stock units to be bought.
+	 * @param price
+	 *            the unit price of the stock purchase.
+	 * @return SETTLED if the purchase was applied; otherwise the reason it was
+	 *         not, in which case the Trader is unchanged.
+	 */
+	public default SettlementResult tryBuyStock(Stock stock, int quantity, double price) {
+		try {
+			buyStock(stock, quantity, price);
+			return SettlementResult.SETTLED;
+		}
+		catch (TradeException e) {
+			return SettlementResult.INSUFFICIENT_CASH;
+		}
+	}
 	
 	/**
 	 * @param stock
@@ -57,6 +109,16 @@ public interface Trader {
 	 *         inventory. Quantity cannot be less than zero.
 	 */
 	public Integer getInventoryHolding(Stock stock);
+
+	/**
+	 * @param stock
+	 * @return the current quantity of the specified stock in the Trader's
+	 *         inventory, as for {@link #getInventoryHolding(Stock)} but
+	 *         without boxing it.
+	 */
+	public default int getInventoryHoldingAsInt(Stock stock) {
+		return getInventoryHolding(stock);
+	}
 	
 	/**
 	 * Presents the Trader with an opportunity to place or cancel orders on a
@@ -11,4 +11,15 @@ public interface World {
 	 * @return an event with an associated tick for the specified event.
 	 */
 	public <T> TickEvent<T> createTickEvent(T event);
+
+	/**
+	 * Allocates a tick without wrapping an event in it. Implementations should
+	 * override this where a tick can be allocated without creating a tick
+	 * event.
+	 * 
+	 * @return a new unique tick for this world.
+	 */
+	public default long nextTick() {
+		return createTickEvent(null).getTick();
+	}
 }
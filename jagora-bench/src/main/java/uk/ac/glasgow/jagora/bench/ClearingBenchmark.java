@@ -0,0 +1,145 @@
+package uk.ac.glasgow.jagora.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.ContinuousOrderDrivenMarket;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+
+/**
+ * Measures placing a batch of orders on a continuous order driven market and
+ * clearing it. In the crossing flow every bid meets an offer, so each clearing
+ * settles a batch of trades and empties the books; in the non-crossing flow
+ * the bids are all below the offers, so clearing finds nothing to match and
+ * the orders are cancelled afterwards. Scores are per order placed.
+ * <p>
+ * Each invocation places and clears several batches, so that it runs for
+ * long enough (around a millisecond) for the per-invocation setup creating
+ * fresh crossing orders not to distort the timing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClearingBenchmark {
+
+	private static final int BATCH = 256;
+	private static final int ROUNDS = 32;
+
+	@Param({"crossing", "nonCrossing"})
+	public String flow;
+
+	private boolean crossing;
+	private ContinuousOrderDrivenMarket market;
+	private BuyOrder[][] buyOrders;
+	private SellOrder[][] sellOrders;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Stock lemons = new DefaultStock("lemons");
+		market = new ContinuousOrderDrivenMarket(lemons, new DefaultWorld());
+		Trader buyer = new DefaultTrader("buyer", 1e12, lemons, 0);
+		Trader seller = new DefaultTrader("seller", 0.0, lemons, Integer.MAX_VALUE / 2);
+		crossing = flow.equals("crossing");
+		double gap = crossing ? -1.0 : 1.0;
+		Random random = new Random(1);
+
+		buyOrders = new BuyOrder[ROUNDS][BATCH];
+		sellOrders = new SellOrder[ROUNDS][BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			double price = 10.0 + random.nextInt(100) / 100.0;
+			buyOrders[0][i] = new LimitBuyOrder(buyer, lemons, 1, price);
+			sellOrders[0][i] = new LimitSellOrder(seller, lemons, 1, price + gap);
+		}
+		// Non-crossing orders are cancelled unchanged after each round, so
+		// every round places the same batch.
+		for (int round = 1; round < ROUNDS; round++) {
+			buyOrders[round] = buyOrders[0];
+			sellOrders[round] = sellOrders[0];
+		}
+	}
+
+	/**
+	 * Crossing orders are filled by each clearing, so fresh orders at the same
+	 * prices are created for every round before the next invocation.
+	 */
+	@Setup(Level.Invocation)
+	public void refill() {
+		if (!crossing) return;
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int i = 0; i < BATCH; i++) {
+				BuyOrder buyOrder = buyOrders[round][i];
+				SellOrder sellOrder = sellOrders[round][i];
+				buyOrders[round][i] = new LimitBuyOrder(buyOrder.getTrader(), buyOrder.getStock(), 1, buyOrder.getPrice());
+				sellOrders[round][i] = new LimitSellOrder(sellOrder.getTrader(), sellOrder.getStock(), 1, sellOrder.getPrice());
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROUNDS * BATCH * 2)
+	public void doClearing(Blackhole blackhole) {
+		for (int round = 0; round < ROUNDS; round++) {
+			place(round);
+			blackhole.consume(market.doClearing());
+			if (!crossing) cancelAll(round);
+		}
+	}
+
+	/**
+	 * As for {@link #doClearing(Blackhole)}, but reports trades to a sink, so
+	 * the allocation saved by not creating trade events can be seen. Clearing
+	 * into a sink allocates nothing per trade, so with the GC profiler of
+	 * {@link BenchmarkRunner} the bytes reported per operation are those of
+	 * placing the orders and of at most one quote per round.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ROUNDS * BATCH * 2)
+	public void doClearingIntoSink(Blackhole blackhole) {
+		for (int round = 0; round < ROUNDS; round++) {
+			place(round);
+			market.doClearing((tick, stock, buyOrder, sellOrder, quantity, price) -> blackhole.consume(price));
+			if (!crossing) cancelAll(round);
+		}
+	}
+
+	private void place(int round) {
+		for (int i = 0; i < BATCH; i++) {
+			market.placeBuyOrder(buyOrders[round][i]);
+			market.placeSellOrder(sellOrders[round][i]);
+		}
+	}
+
+	private void cancelAll(int round) {
+		for (int i = 0; i < BATCH; i++) {
+			market.cancelBuyOrder(buyOrders[round][i]);
+			market.cancelSellOrder(sellOrders[round][i]);
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+package uk.ac.glasgow.jagora.bench;
+
+/**
+ * Counts recorded latencies in log-linear buckets, in the manner of an HDR
+ * histogram. Values below 128 are counted exactly; above that, each power of
+ * two is split into 64 buckets, so every recorded value is held to within
+ * about 1.6% whatever its size, in a fixed array of counts. Recording is a
+ * few shifts and an increment, so the histogram can be updated on the path
+ * being measured.
+ * <p>
+ * Percentiles are reported as the highest value counted in the bucket they
+ * fall in, so they never understate a latency. A histogram is not safe for
+ * use by several threads at once.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+	private static final int BUCKETS = (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + LINEAR_LIMIT;
+
+	private final long[] counts = new long[BUCKETS];
+	private long totalCount;
+	private long min = Long.MAX_VALUE;
+	private long max;
+	private double sum;
+
+	/**
+	 * @param value to be counted; negative values are counted as zero.
+	 */
+	public void recordValue(long value) {
+		if (value < 0) value = 0;
+		counts[indexOf(value)]++;
+		totalCount++;
+		sum += value;
+		if (value < min) min = value;
+		if (value > max) max = value;
+	}
+
+	/**
+	 * Adds the counts of another histogram to this one.
+	 * @param histogram whose counts are added.
+	 */
+	public void add(LatencyHistogram histogram) {
+		for (int i = 0; i < BUCKETS; i++) counts[i] += histogram.counts[i];
+		totalCount += histogram.totalCount;
+		sum += histogram.sum;
+		min = Math.min(min, histogram.min);
+		max = Math.max(max, histogram.max);
+	}
+
+	/**
+	 * @return the number of values recorded.
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * @return the smallest value recorded, or zero if none have been.
+	 */
+	public long getMinValue() {
+		return totalCount == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return the largest value recorded, or zero if none have been.
+	 */
+	public long getMaxValue() {
+		return max;
+	}
+
+	/**
+	 * @return the mean of the values recorded, or zero if none have been.
+	 */
+	public double getMean() {
+		return totalCount == 0 ? 0.0 : sum / totalCount;
+	}
+
+	/**
+	 * @param percentile between 0 and 100.
+	 * @return a value at least as large as the specified percentage of the
+	 *         values recorded, or zero if none have been.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) return Math.min(highestValueIn(i), max);
+		}
+		return max;
+	}
+
+	static int indexOf(long value) {
+		if (value < LINEAR_LIMIT) return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	static long highestValueIn(int index) {
+		if (index < LINEAR_LIMIT) return index;
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long subBucket = (index & (SUB_BUCKET_COUNT - 1)) | SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,332 @@
+package uk.ac.glasgow.jagora.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.Quote;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.AccountLedger;
+import uk.ac.glasgow.jagora.impl.ConcurrentStockExchange;
+import uk.ac.glasgow.jagora.impl.ConcurrentWorld;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+
+/**
+ * Drives a stock exchange with a synthetic flow of orders at a fixed rate and
+ * records how long the stock exchange takes to deal with them. Each message
+ * is sent on behalf of one of many agents, in a stock chosen by a Zipf
+ * distribution so that a few stocks are busy and most are quiet, and is one
+ * of:
+ * <ul>
+ * <li>a passive order, priced a few ticks away from the reference price of
+ * its stock so that it rests on the book;</li>
+ * <li>an aggressive order, priced at or through the opposite side of the
+ * quote so that it trades at the next clearing, or at once if the market
+ * matches on arrival;</li>
+ * <li>a cancellation of a passive order placed earlier in the same stock.</li>
+ * </ul>
+ * The stock exchange is cleared after a fixed number of messages.
+ * <p>
+ * Messages are sent to a schedule fixed by the rate rather than as fast as
+ * the stock exchange accepts them, and latencies are measured from when each
+ * message was due. A stall in the stock exchange therefore shows up in the
+ * latency of every message that should have been sent during it, not just
+ * the one that was held up, which is how the generator avoids coordinated
+ * omission. Order to ack latency runs until the call placing or cancelling
+ * the order returns; order to trade latency runs until an aggressive order's
+ * first trade is reported to the generator's trade listener.
+ */
+public class LoadGenerator {
+
+	private static final double REFERENCE_PRICE = 100.0;
+	private static final double TICK_SIZE = 0.01;
+	private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final StockExchange stockExchange;
+	private final List<Stock> stocks;
+	private final List<Trader> agents;
+	private final List<List<Order>> restingOrders;
+	private final Random random;
+
+	private ZipfDistribution popularity;
+	private int orderRate = 100_000;
+	private double cancelRatio = 0.4;
+	private double aggressiveRatio = 0.1;
+	private int clearingInterval = 1_000;
+	private int maxQuantity = 10;
+	private int priceLevels = 20;
+
+	private final Map<Order, Long> awaitingTrade = new IdentityHashMap<>();
+	private LatencyHistogram tradeLatency = new LatencyHistogram();
+
+	/**
+	 * Creates the stocks and agents and registers a trade listener with the
+	 * stock exchange. Each agent holds enough cash and stock to settle any
+	 * trade it makes during a long run.
+	 * @param stockExchange to be driven.
+	 * @param stockCount the number of stocks traded.
+	 * @param agentCount the number of agents on whose behalf orders are placed.
+	 * @param seed of the random choices, so that runs can be repeated.
+	 */
+	public LoadGenerator(StockExchange stockExchange, int stockCount, int agentCount, long seed) {
+		this.stockExchange = stockExchange;
+		this.random = new Random(seed);
+
+		stocks = new ArrayList<>(stockCount);
+		restingOrders = new ArrayList<>(stockCount);
+		Map<Stock, Integer> inventory = new HashMap<>();
+		for (int i = 0; i < stockCount; i++) {
+			Stock stock = new DefaultStock("stock" + i);
+			stocks.add(stock);
+			restingOrders.add(new ArrayList<>());
+			inventory.put(stock, 100_000_000);
+		}
+		AccountLedger ledger = new AccountLedger();
+		agents = new ArrayList<>(agentCount);
+		for (int i = 0; i < agentCount; i++) {
+			agents.add(new DefaultTrader(ledger, "agent" + i, 1e9, inventory));
+		}
+		popularity = new ZipfDistribution(stockCount, 1.0);
+		stockExchange.addTradeListener(new TradeLatencyListener());
+	}
+
+	/**
+	 * @param orderRate the number of messages to send each second.
+	 */
+	public void setOrderRate(int orderRate) {
+		this.orderRate = orderRate;
+	}
+
+	/**
+	 * Sets the proportions of the messages sent that are cancellations and
+	 * aggressive orders; the rest are passive orders.
+	 * @param cancelRatio the proportion of messages that are cancellations.
+	 * @param aggressiveRatio the proportion of messages that are aggressive orders.
+	 */
+	public void setMix(double cancelRatio, double aggressiveRatio) {
+		if (cancelRatio < 0 || aggressiveRatio < 0 || cancelRatio + aggressiveRatio > 1.0)
+			throw new IllegalArgumentException("The proportions of cancellations and aggressive orders must add up to at most one.");
+		this.cancelRatio = cancelRatio;
+		this.aggressiveRatio = aggressiveRatio;
+	}
+
+	/**
+	 * @param exponent of the Zipf distribution choosing the stock of each
+	 *            message; zero spreads messages evenly over the stocks.
+	 */
+	public void setZipfExponent(double exponent) {
+		popularity = new ZipfDistribution(stocks.size(), exponent);
+	}
+
+	/**
+	 * @param clearingInterval the number of messages sent between clearings.
+	 */
+	public void setClearingInterval(int clearingInterval) {
+		this.clearingInterval = clearingInterval;
+	}
+
+	/**
+	 * @param maxQuantity the largest quantity of an order.
+	 * @param priceLevels the number of ticks either side of the reference
+	 *            price over which passive orders are spread.
+	 */
+	public void setOrderShape(int maxQuantity, int priceLevels) {
+		this.maxQuantity = maxQuantity;
+		this.priceLevels = priceLevels;
+	}
+
+	/**
+	 * @return the stocks traded, from most to least popular.
+	 */
+	public List<Stock> getStocks() {
+		return stocks;
+	}
+
+	/**
+	 * Sends messages to the stock exchange on schedule for the specified
+	 * time. Orders left resting by one run remain on the stock exchange for
+	 * the next, so a short run can be used to warm up before a measured one.
+	 * @param duration of the run in nanoseconds.
+	 * @return the counts and latencies of the run.
+	 */
+	public LoadReport run(long duration) {
+		LatencyHistogram ackLatency = new LatencyHistogram();
+		synchronized (awaitingTrade) {
+			awaitingTrade.clear();
+			tradeLatency = new LatencyHistogram();
+		}
+		long placed = 0, aggressive = 0, cancelled = 0;
+
+		long start = System.nanoTime();
+		for (long sent = 0; ; sent++) {
+			long due = start + sent * 1_000_000_000L / orderRate;
+			if (due - start >= duration) break;
+			waitUntil(due);
+
+			int stock = popularity.sample(random);
+			double choice = random.nextDouble();
+			if (choice < cancelRatio && !restingOrders.get(stock).isEmpty()) {
+				cancelOrder(stock);
+				cancelled++;
+			} else if (choice < cancelRatio + aggressiveRatio) {
+				placeAggressiveOrder(stock, due);
+				placed++;
+				aggressive++;
+			} else {
+				placePassiveOrder(stock);
+				placed++;
+			}
+			ackLatency.recordValue(System.nanoTime() - due);
+
+			if (sent % clearingInterval == clearingInterval - 1) stockExchange.doClearing();
+		}
+		stockExchange.doClearing();
+		long elapsed = System.nanoTime() - start;
+
+		synchronized (awaitingTrade) {
+			return new LoadReport(
+				placed, aggressive, cancelled, awaitingTrade.size(), elapsed, ackLatency, tradeLatency);
+		}
+	}
+
+	/**
+	 * Parks until shortly before the time due, then spins, so that messages
+	 * are sent close to their schedule without a core being held while the
+	 * rate is low. Returns at once if the time due has passed.
+	 */
+	private static void waitUntil(long due) {
+		long remaining;
+		while ((remaining = due - System.nanoTime()) > 0) {
+			if (remaining > SPIN_NANOS) LockSupport.parkNanos(remaining - SPIN_NANOS);
+		}
+	}
+
+	private void placePassiveOrder(int stockIndex) {
+		Stock stock = stocks.get(stockIndex);
+		Trader agent = agents.get(random.nextInt(agents.size()));
+		int quantity = 1 + random.nextInt(maxQuantity);
+		double offset = TICK_SIZE * (1 + random.nextInt(priceLevels));
+		Order order;
+		if (random.nextBoolean()) {
+			BuyOrder buyOrder = new LimitBuyOrder(agent, stock, quantity, REFERENCE_PRICE - offset);
+			stockExchange.placeBuyOrder(buyOrder);
+			order = buyOrder;
+		} else {
+			SellOrder sellOrder = new LimitSellOrder(agent, stock, quantity, REFERENCE_PRICE + offset);
+			stockExchange.placeSellOrder(sellOrder);
+			order = sellOrder;
+		}
+		restingOrders.get(stockIndex).add(order);
+	}
+
+	/**
+	 * Places an order priced at the opposite side of the quote, or through
+	 * all the passive orders if that side is empty.
+	 */
+	private void placeAggressiveOrder(int stockIndex, long due) {
+		Stock stock = stocks.get(stockIndex);
+		Trader agent = agents.get(random.nextInt(agents.size()));
+		int quantity = 1 + random.nextInt(maxQuantity);
+		Quote quote = stockExchange.getQuote(stock);
+		double through = TICK_SIZE * (priceLevels + 1);
+		if (random.nextBoolean()) {
+			double price = quote != null && quote.hasOffer() ? quote.getOffer() : REFERENCE_PRICE + through;
+			BuyOrder buyOrder = new LimitBuyOrder(agent, stock, quantity, price);
+			awaitTrade(buyOrder, due);
+			stockExchange.placeBuyOrder(buyOrder);
+		} else {
+			double price = quote != null && quote.hasBid() ? quote.getBid() : REFERENCE_PRICE - through;
+			SellOrder sellOrder = new LimitSellOrder(agent, stock, quantity, price);
+			awaitTrade(sellOrder, due);
+			stockExchange.placeSellOrder(sellOrder);
+		}
+	}
+
+	/**
+	 * Cancels a passive order chosen at random from those placed in the
+	 * stock. The order may already have traded, in which case the stock
+	 * exchange has nothing to cancel, as happens in a real market.
+	 */
+	private void cancelOrder(int stockIndex) {
+		List<Order> orders = restingOrders.get(stockIndex);
+		int index = random.nextInt(orders.size());
+		Order order = orders.get(index);
+		orders.set(index, orders.get(orders.size() - 1));
+		orders.remove(orders.size() - 1);
+		if (order instanceof BuyOrder) stockExchange.cancelBuyOrder((BuyOrder) order);
+		else stockExchange.cancelSellOrder((SellOrder) order);
+	}
+
+	private void awaitTrade(Order order, long due) {
+		synchronized (awaitingTrade) {
+			awaitingTrade.put(order, due);
+		}
+	}
+
+	/**
+	 * Records the order to trade latency of an aggressive order when its
+	 * first trade is reported, which may be on another thread.
+	 */
+	private class TradeLatencyListener implements TradeListener {
+
+		@Override
+		public void tradeExecuted(TickEvent<Trade> tradeEvent) {
+			Trade trade = tradeEvent.getEvent();
+			if (trade.getBuyOrder() == null) return;
+			long now = System.nanoTime();
+			synchronized (awaitingTrade) {
+				traded(trade.getBuyOrder(), now);
+				traded(trade.getSellOrder(), now);
+			}
+		}
+
+		private void traded(Order order, long now) {
+			Long due = awaitingTrade.remove(order);
+			if (due != null) tradeLatency.recordValue(now - due);
+		}
+	}
+
+	/**
+	 * Runs a soak test and prints its report. The arguments, all optional,
+	 * are the message rate, the measured duration in seconds, the number of
+	 * stocks, the number of agents and the stock exchange to drive, which is
+	 * either {@code default} or {@code concurrent}. A warm-up run of a fifth
+	 * of the duration is made first and not reported.
+	 * @param args as above.
+	 */
+	public static void main(String[] args) {
+		int rate = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+		int stockCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		int agentCount = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+		boolean concurrent = args.length > 4 && args[4].equals("concurrent");
+
+		StockExchange stockExchange = concurrent
+			? new ConcurrentStockExchange(new ConcurrentWorld())
+			: new DefaultStockExchange(new DefaultWorld());
+		LoadGenerator generator = new LoadGenerator(stockExchange, stockCount, agentCount, 1L);
+		generator.setOrderRate(rate);
+
+		generator.run(TimeUnit.SECONDS.toNanos(Math.max(1, seconds / 5)));
+		System.out.print(generator.run(TimeUnit.SECONDS.toNanos(seconds)));
+	}
+
+}
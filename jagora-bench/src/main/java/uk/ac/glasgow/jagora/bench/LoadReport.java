@@ -0,0 +1,108 @@
+package uk.ac.glasgow.jagora.bench;
+
+import java.util.Locale;
+
+/**
+ * Summarises one run of a {@link LoadGenerator}: how many messages of each
+ * kind were sent, the rate achieved, and the latency histograms recorded.
+ * Latencies are in nanoseconds and are measured from when each message was
+ * due to be sent, not from when it was actually sent.
+ */
+public class LoadReport {
+
+	private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99, 100.0};
+	private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9", "p99.99", "max"};
+
+	private final long placed;
+	private final long aggressive;
+	private final long cancelled;
+	private final long unfilled;
+	private final long elapsedNanos;
+	private final LatencyHistogram ackLatency;
+	private final LatencyHistogram tradeLatency;
+
+	LoadReport(
+			long placed, long aggressive, long cancelled, long unfilled, long elapsedNanos,
+			LatencyHistogram ackLatency, LatencyHistogram tradeLatency) {
+		this.placed = placed;
+		this.aggressive = aggressive;
+		this.cancelled = cancelled;
+		this.unfilled = unfilled;
+		this.elapsedNanos = elapsedNanos;
+		this.ackLatency = ackLatency;
+		this.tradeLatency = tradeLatency;
+	}
+
+	/**
+	 * @return the number of passive and aggressive orders placed.
+	 */
+	public long getPlaced() {
+		return placed;
+	}
+
+	/**
+	 * @return the number of orders placed that were priced to trade at once.
+	 */
+	public long getAggressive() {
+		return aggressive;
+	}
+
+	/**
+	 * @return the number of cancellations sent.
+	 */
+	public long getCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return the number of aggressive orders that had not traded by the end of the run.
+	 */
+	public long getUnfilled() {
+		return unfilled;
+	}
+
+	/**
+	 * @return the messages sent per second over the run.
+	 */
+	public double getRate() {
+		return (placed + cancelled) * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * @return the time from each order or cancellation being due to the
+	 *         stock exchange returning from it.
+	 */
+	public LatencyHistogram getAckLatency() {
+		return ackLatency;
+	}
+
+	/**
+	 * @return the time from each aggressive order being due to its first trade.
+	 */
+	public LatencyHistogram getTradeLatency() {
+		return tradeLatency;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT,
+			"%d orders (%d aggressive, %d unfilled), %d cancels in %.1f s: %.0f msgs/s%n",
+			placed, aggressive, unfilled, cancelled, elapsedNanos / 1e9, getRate()));
+		report.append(String.format(Locale.ROOT, "%-16s", "latency (us)"));
+		for (String name : PERCENTILE_NAMES) report.append(String.format(Locale.ROOT, "%10s", name));
+		report.append(String.format("%n"));
+		appendRow(report, "order to ack", ackLatency);
+		appendRow(report, "order to trade", tradeLatency);
+		return report.toString();
+	}
+
+	private static void appendRow(StringBuilder report, String name, LatencyHistogram histogram) {
+		report.append(String.format(Locale.ROOT, "%-16s", name));
+		for (double percentile : PERCENTILES) {
+			report.append(String.format(Locale.ROOT, "%10.1f", histogram.getValueAtPercentile(percentile) / 1e3));
+		}
+		report.append(String.format("%n"));
+	}
+
+}
@@ -0,0 +1,108 @@
+package uk.ac.glasgow.jagora.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.OrderBook;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.World;
+import uk.ac.glasgow.jagora.impl.DefaultOrderBook;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.PriceLevelOrderBook;
+
+/**
+ * Measures recording, cancelling and reading the best order of a buy order
+ * book holding a given number of resting orders. Each benchmark leaves the
+ * book as deep as it found it, so the depth holds for the whole run. Both the
+ * default order book and the price level order book used by the markets are
+ * measured, so a replacement can be compared against the book it replaces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+	private static final int PRICE_LEVELS = 1000;
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int depth;
+
+	@Param({"default", "priceLevel"})
+	public String book;
+
+	private OrderBook<BuyOrder> orderBook;
+	private BuyOrder[] resting;
+	private BuyOrder[] arriving;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		World world = new DefaultWorld();
+		orderBook = book.equals("default") ? new DefaultOrderBook<>(world) : new PriceLevelOrderBook<>(world);
+
+		Stock lemons = new DefaultStock("lemons");
+		Trader trader = new DefaultTrader("trader", 1000000.0, lemons, 0);
+		Random random = new Random(1);
+
+		resting = new BuyOrder[depth];
+		for (int i = 0; i < depth; i++) {
+			resting[i] = createOrder(trader, lemons, random);
+			orderBook.recordOrder(resting[i]);
+		}
+		arriving = new BuyOrder[1024];
+		for (int i = 0; i < arriving.length; i++) arriving[i] = createOrder(trader, lemons, random);
+	}
+
+	private static BuyOrder createOrder(Trader trader, Stock stock, Random random) {
+		return new LimitBuyOrder(trader, stock, 1 + random.nextInt(100), 1.0 + random.nextInt(PRICE_LEVELS) / 100.0);
+	}
+
+	/**
+	 * Records an arriving order and cancels it again.
+	 */
+	@Benchmark
+	public BuyOrder recordOrder() {
+		BuyOrder order = arriving[next++ & (arriving.length - 1)];
+		orderBook.recordOrder(order);
+		return orderBook.cancelOrder(order);
+	}
+
+	/**
+	 * Cancels a resting order from anywhere in the book and records it again
+	 * at the back of its price.
+	 */
+	@Benchmark
+	public BuyOrder cancelOrder() {
+		BuyOrder order = resting[next++ % depth];
+		BuyOrder cancelled = orderBook.cancelOrder(order);
+		orderBook.recordOrder(order);
+		return cancelled;
+	}
+
+	@Benchmark
+	public BuyOrder getBestOrder() {
+		return orderBook.getBestOrder();
+	}
+
+}
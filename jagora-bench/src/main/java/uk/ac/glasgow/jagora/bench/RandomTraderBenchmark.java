@@ -0,0 +1,67 @@
+package uk.ac.glasgow.jagora.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.RandomTrader;
+
+/**
+ * Measures a random trader speaking on a stock exchange with a bid and an
+ * offer to quote against. The exchange is cleared every few thousand orders,
+ * and the clearing is part of the measured cost, spread over the orders that
+ * led up to it. Clearing only fills the orders that cross, so the orders
+ * priced away from the quote stay on the books and accumulate over an
+ * iteration; the exchange is rebuilt for each iteration, so the books grow
+ * only as far as one iteration's orders take them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomTraderBenchmark {
+
+	private static final int CLEARING_INTERVAL = 4096;
+
+	private DefaultStockExchange stockExchange;
+	private RandomTrader randomTrader;
+	private int speeches;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		stockExchange = new DefaultStockExchange(new DefaultWorld());
+		Stock lemons = new DefaultStock("lemons");
+		Trader marketMaker = new DefaultTrader("marketMaker", 1e12, lemons, Integer.MAX_VALUE / 2);
+		stockExchange.placeBuyOrder(new LimitBuyOrder(marketMaker, lemons, 1, 9.0));
+		stockExchange.placeSellOrder(new LimitSellOrder(marketMaker, lemons, 1, 11.0));
+		randomTrader = new RandomTrader("random", 1e12, lemons, Integer.MAX_VALUE / 2, 100, 2.0, new Random(1));
+	}
+
+	@Benchmark
+	public void speak() {
+		randomTrader.speak(stockExchange);
+		if (++speeches % CLEARING_INTERVAL == 0) stockExchange.doClearing();
+	}
+
+}
@@ -0,0 +1,96 @@
+package uk.ac.glasgow.jagora.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+
+/**
+ * Measures reading the trade history of a stock from a stock exchange that
+ * has made a given number of trades in it, both the whole history and the
+ * most recent trades, as a trader looking for the last price would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TradeHistoryBenchmark {
+
+	private static final int RECENT = 100;
+
+	@Param({"1000", "100000", "1000000"})
+	public int trades;
+
+	private DefaultStockExchange stockExchange;
+	private Stock lemons;
+	private long fromTick;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		stockExchange = new DefaultStockExchange(new DefaultWorld());
+		lemons = new DefaultStock("lemons");
+		Trader buyer = new DefaultTrader("buyer", 1e12, lemons, 0);
+		Trader seller = new DefaultTrader("seller", 0.0, lemons, trades);
+		for (int i = 0; i < trades; i++) {
+			stockExchange.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 10.0 + i % 100 / 100.0));
+			stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 11.0));
+			if (i % 1000 == 999) stockExchange.doClearing();
+		}
+		stockExchange.doClearing();
+
+		List<TickEvent<Trade>> history = stockExchange.getTradeHistory(lemons);
+		fromTick = history.get(history.size() - RECENT).getTick();
+	}
+
+	/**
+	 * Reads the whole history and visits every trade in it.
+	 */
+	@Benchmark
+	public double getTradeHistory() {
+		double total = 0.0;
+		for (TickEvent<Trade> tradeEvent : stockExchange.getTradeHistory(lemons)) {
+			total += tradeEvent.getEvent().getPrice();
+		}
+		return total;
+	}
+
+	@Benchmark
+	public TickEvent<Trade> getLastTrade() {
+		List<TickEvent<Trade>> history = stockExchange.getTradeHistory(lemons);
+		return history.get(history.size() - 1);
+	}
+
+	@Benchmark
+	public double getRecentTrades() {
+		double total = 0.0;
+		for (TickEvent<Trade> tradeEvent : stockExchange.getTradeHistory(lemons, fromTick, Long.MAX_VALUE)) {
+			total += tradeEvent.getEvent().getPrice();
+		}
+		return total;
+	}
+
+}
@@ -0,0 +1,51 @@
+package uk.ac.glasgow.jagora.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Chooses ranks from 0 to n - 1 with probability proportional to
+ * 1 / (rank + 1)^exponent, so that a few ranks are chosen far more often than
+ * the rest, as a few stocks attract most of a real market's orders. The
+ * cumulative probabilities are worked out once, so each choice is a binary
+ * search.
+ */
+public class ZipfDistribution {
+
+	private final double[] cumulative;
+
+	/**
+	 * @param n the number of ranks.
+	 * @param exponent how steeply the probability falls with rank; zero
+	 *            chooses every rank equally often.
+	 */
+	public ZipfDistribution(int n, double exponent) {
+		if (n < 1) throw new IllegalArgumentException("A Zipf distribution needs at least one rank.");
+		cumulative = new double[n];
+		double total = 0.0;
+		for (int rank = 0; rank < n; rank++) {
+			total += 1.0 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = total;
+		}
+		for (int rank = 0; rank < n; rank++) cumulative[rank] /= total;
+	}
+
+	/**
+	 * @param random source of the choice.
+	 * @return a rank from 0 to n - 1.
+	 */
+	public int sample(Random random) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		if (index < 0) index = -index - 1;
+		return Math.min(index, cumulative.length - 1);
+	}
+
+	/**
+	 * @param rank from 0 to n - 1.
+	 * @return the probability of the rank being chosen.
+	 */
+	public double probability(int rank) {
+		return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+	}
+
+}
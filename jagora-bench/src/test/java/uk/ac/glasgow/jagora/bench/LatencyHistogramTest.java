@@ -0,0 +1,78 @@
+package uk.ac.glasgow.jagora.bench;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	private LatencyHistogram histogram;
+
+	@Before
+	public void setUp() {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		for (long value = 0; value < 100; value++) histogram.recordValue(value);
+		assertEquals(100, histogram.getTotalCount());
+		assertEquals(49, histogram.getValueAtPercentile(50.0));
+		assertEquals(98, histogram.getValueAtPercentile(99.0));
+		assertEquals(99, histogram.getValueAtPercentile(100.0));
+		assertEquals(0, histogram.getMinValue());
+		assertEquals(49.5, histogram.getMean(), 0.0);
+	}
+
+	@Test
+	public void testLargeValuesAreWithinPrecision() {
+		for (long value = 1; value <= 1_000_000; value++) histogram.recordValue(value * 1000);
+		assertWithin(500_000_000L, histogram.getValueAtPercentile(50.0));
+		assertWithin(999_000_000L, histogram.getValueAtPercentile(99.9));
+		assertEquals(1_000_000_000L, histogram.getMaxValue());
+		assertEquals(1_000_000_000L, histogram.getValueAtPercentile(100.0));
+	}
+
+	@Test
+	public void testBucketsCoverEveryValue() {
+		int previous = -1;
+		for (int shift = 0; shift < 63; shift++) {
+			long value = 1L << shift;
+			int index = LatencyHistogram.indexOf(value);
+			assertTrue(index > previous);
+			assertTrue(LatencyHistogram.highestValueIn(index) >= value);
+			assertTrue(LatencyHistogram.highestValueIn(LatencyHistogram.indexOf(value - 1)) < value);
+			previous = index;
+		}
+		histogram.recordValue(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50.0));
+	}
+
+	@Test
+	public void testAdd() {
+		LatencyHistogram other = new LatencyHistogram();
+		histogram.recordValue(10);
+		other.recordValue(1_000);
+		other.recordValue(-5);
+		histogram.add(other);
+		assertEquals(3, histogram.getTotalCount());
+		assertEquals(0, histogram.getMinValue());
+		assertEquals(1_000, histogram.getMaxValue());
+		assertEquals(10, histogram.getValueAtPercentile(50.0));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0, histogram.getValueAtPercentile(99.0));
+		assertEquals(0, histogram.getMinValue());
+		assertEquals(0.0, histogram.getMean(), 0.0);
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(actual >= expected);
+		assertTrue(actual <= expected + expected / 64);
+	}
+
+}
@@ -0,0 +1,37 @@
+package uk.ac.glasgow.jagora.bench;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+
+public class LoadGeneratorTest {
+
+	@Test
+	public void testRun() {
+		DefaultStockExchange stockExchange = new DefaultStockExchange(new DefaultWorld());
+		LoadGenerator generator = new LoadGenerator(stockExchange, 10, 20, 1L);
+		generator.setOrderRate(20_000);
+		generator.setMix(0.3, 0.2);
+		generator.setClearingInterval(100);
+
+		LoadReport report = generator.run(TimeUnit.MILLISECONDS.toNanos(200));
+
+		assertEquals(4_000, report.getPlaced() + report.getCancelled());
+		assertEquals(4_000, report.getAckLatency().getTotalCount());
+		assertTrue(report.getAggressive() > 0);
+		assertEquals(report.getAggressive() - report.getUnfilled(), report.getTradeLatency().getTotalCount());
+		assertTrue(stockExchange.getTradeHistory(generator.getStocks().get(0)).size() > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMix() {
+		new LoadGenerator(new DefaultStockExchange(new DefaultWorld()), 1, 1, 1L).setMix(0.6, 0.6);
+	}
+
+}
@@ -0,0 +1,42 @@
+package uk.ac.glasgow.jagora.bench;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ZipfDistributionTest {
+
+	@Test
+	public void testProbability() {
+		ZipfDistribution distribution = new ZipfDistribution(3, 1.0);
+		assertEquals(6.0 / 11.0, distribution.probability(0), 1e-12);
+		assertEquals(3.0 / 11.0, distribution.probability(1), 1e-12);
+		assertEquals(2.0 / 11.0, distribution.probability(2), 1e-12);
+	}
+
+	@Test
+	public void testUniform() {
+		ZipfDistribution distribution = new ZipfDistribution(4, 0.0);
+		for (int rank = 0; rank < 4; rank++) assertEquals(0.25, distribution.probability(rank), 1e-12);
+	}
+
+	@Test
+	public void testSample() {
+		ZipfDistribution distribution = new ZipfDistribution(100, 1.2);
+		Random random = new Random(1);
+		int[] counts = new int[100];
+		for (int i = 0; i < 100_000; i++) counts[distribution.sample(random)]++;
+		assertEquals(distribution.probability(0), counts[0] / 100_000.0, 0.01);
+		assertTrue(counts[0] > counts[1]);
+		assertTrue(counts[1] > counts[10]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoRanks() {
+		new ZipfDistribution(0, 1.0);
+	}
+
+}
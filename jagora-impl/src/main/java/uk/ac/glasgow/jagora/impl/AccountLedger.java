@@ -0,0 +1,185 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import uk.ac.glasgow.jagora.SettlementResult;
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * Holds the cash and stock positions of many trader accounts in primitive
+ * arrays. Accounts and stocks are identified by dense integer ids, so the
+ * cash of an account is a single element of a long array (in minor units, see
+ * {@link FixedPoint#CASH_UNITS}), and each account's positions are a long
+ * array indexed by stock id. Settling a trade against the ledger is a few
+ * array reads and writes.
+ * <p>
+ * Each account must be changed by one thread at a time. Traders holding
+ * their accounts in the ledger settle while holding their trader lock (see
+ * {@link TraderLocks}), and code that buys, sells or sets an account's cash
+ * or positions directly must hold the same lock, since the ledger does not
+ * lock accounts itself. Accounts may be opened and stocks registered from
+ * any thread.
+ * <p>
+ * Stock ids come from a {@link StockRegistry}, which may be shared with a
+ * stock exchange so that accounts and markets agree on the id of each stock.
+ */
+public class AccountLedger {
+
+	/**
+	 * Marks a stock that an account has never held, as opposed to a position
+	 * of zero.
+	 */
+	private static final long NO_POSITION = -1L;
+
+	private final StockRegistry stockRegistry;
+
+	private volatile long[] cash = new long[4];
+	private volatile long[][] positions = new long[4][];
+	private int accounts;
+
+	/**
+	 * Constructs a new ledger with its own stock registry.
+	 */
+	public AccountLedger() {
+		this(new StockRegistry());
+	}
+
+	/**
+	 * Constructs a new ledger.
+	 * @param stockRegistry which gives the stocks held by accounts their ids.
+	 */
+	public AccountLedger(StockRegistry stockRegistry) {
+		this.stockRegistry = stockRegistry;
+	}
+
+	/**
+	 * Opens a new account. The ledger's arrays are grown while holding every
+	 * trader lock, so that no settlement writes to the arrays being replaced.
+	 * @param cash initially held by the account.
+	 * @return the id of the new account.
+	 */
+	public synchronized int openAccount(double cash) {
+		int account = accounts;
+		if (account == this.cash.length) {
+			TraderLocks.withAllLocks(() -> {
+				this.cash = Arrays.copyOf(this.cash, account * 2);
+				this.positions = Arrays.copyOf(this.positions, account * 2);
+			});
+		}
+		this.positions[account] = new long[0];
+		this.cash[account] = FixedPoint.toCashUnits(cash);
+		accounts = account + 1;
+		return account;
+	}
+
+	/**
+	 * @param stock to be identified.
+	 * @return the id of the stock, registering it if it is new to the ledger.
+	 */
+	public int getStockId(Stock stock) {
+		return stockRegistry.register(stock);
+	}
+
+	/**
+	 * @param account id.
+	 * @return the cash held by the account, in minor units.
+	 */
+	public long getCash(int account) {
+		return cash[account];
+	}
+
+	/**
+	 * @param account id.
+	 * @param stockId id of the stock.
+	 * @return the quantity of the stock held by the account.
+	 */
+	public int getPosition(int account, int stockId) {
+		long[] accountPositions = positions[account];
+		if (stockId >= accountPositions.length) return 0;
+		long position = accountPositions[stockId];
+		return position == NO_POSITION ? 0 : (int) position;
+	}
+
+	/**
+	 * Sets the cash held by an account, for example when restoring it.
+	 * @param account id.
+	 * @param cash held by the account, in minor units.
+	 */
+	public void setCash(int account, long cash) {
+		this.cash[account] = cash;
+	}
+
+	/**
+	 * Sets the quantity of a stock held by an account, for example its
+	 * initial holding.
+	 * @param account id.
+	 * @param stockId id of the stock.
+	 * @param quantity of the stock held.
+	 */
+	public void setPosition(int account, int stockId, int quantity) {
+		positionsCovering(account, stockId)[stockId] = quantity;
+	}
+
+	/**
+	 * Pays the specified cost from the account for the specified quantity of stock.
+	 * @return SETTLED, INSUFFICIENT_CASH, or FAILED if the quantity is not
+	 *         positive; the account is left unchanged unless SETTLED.
+	 */
+	public SettlementResult buy(int account, int stockId, int quantity, long cost) {
+		if (quantity <= 0) return SettlementResult.FAILED;
+		long[] cash = this.cash;
+		if (cash[account] - cost < 0) return SettlementResult.INSUFFICIENT_CASH;
+		cash[account] -= cost;
+		long[] accountPositions = positionsCovering(account, stockId);
+		long position = accountPositions[stockId];
+		accountPositions[stockId] = (position == NO_POSITION ? 0 : position) + quantity;
+		return SettlementResult.SETTLED;
+	}
+
+	/**
+	 * Delivers the specified quantity of stock from the account for the specified proceeds.
+	 * @return SETTLED, INSUFFICIENT_STOCK, or FAILED if the quantity is not
+	 *         positive; the account is left unchanged unless SETTLED.
+	 */
+	public SettlementResult sell(int account, int stockId, int quantity, long proceeds) {
+		if (quantity <= 0) return SettlementResult.FAILED;
+		long[] accountPositions = positionsCovering(account, stockId);
+		long position = accountPositions[stockId];
+		if (position == NO_POSITION || position - quantity < 0) return SettlementResult.INSUFFICIENT_STOCK;
+		accountPositions[stockId] = position - quantity;
+		cash[account] += proceeds;
+		return SettlementResult.SETTLED;
+	}
+
+	/**
+	 * @param account id.
+	 * @return the stocks the account has held at any time, including those it
+	 *         now holds none of.
+	 */
+	public Set<Stock> getStocks(int account) {
+		long[] accountPositions = positions[account];
+		Set<Stock> accountStocks = new HashSet<>();
+		for (int stockId = 0; stockId < accountPositions.length; stockId++) {
+			if (accountPositions[stockId] != NO_POSITION) accountStocks.add(stockRegistry.getStock(stockId));
+		}
+		return accountStocks;
+	}
+
+	/**
+	 * @return the account's positions, grown if necessary to include the stock.
+	 */
+	private long[] positionsCovering(int account, int stockId) {
+		long[][] positions = this.positions;
+		long[] accountPositions = positions[account];
+		if (stockId >= accountPositions.length) {
+			int length = accountPositions.length;
+			accountPositions = Arrays.copyOf(accountPositions, stockId + 1);
+			Arrays.fill(accountPositions, length, stockId + 1, NO_POSITION);
+			positions[account] = accountPositions;
+		}
+		return accountPositions;
+	}
+
+}
@@ -0,0 +1,366 @@
+package uk.ac.glasgow.jagora.impl;
+
+import static uk.ac.glasgow.jagora.impl.OrderFunding.canDeliver;
+import static uk.ac.glasgow.jagora.impl.OrderFunding.canPay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.glasgow.jagora.*;
+
+/**
+ * Provides the behaviour of a call auction market. Orders are collected on the
+ * order books between clearings. Clearing uncrosses the books in a single
+ * auction in which every trade takes place at one uniform price, chosen from
+ * the cumulative demand and supply at each price level so that the quantity
+ * of stock traded is as large as possible.
+ */
+public class CallAuctionMarket implements Market {
+
+	private PriceLevelOrderBook<SellOrder> sellBook;
+	private PriceLevelOrderBook<BuyOrder> buyBook;
+	private Stock stock;
+	private World world;
+	private final List<TradeListener> tradeListeners = new ArrayList<>();
+	private final List<OrderRemovalListener> orderRemovalListeners = new ArrayList<>();
+	private long settlementFailures;
+	private long lastTradeTick = -1;
+	private volatile DefaultQuote quote = DefaultQuote.EMPTY;
+	private double[] bidPrices = new double[0];
+	private long[] demand = new long[0];
+	private double[] offerPrices = new double[0];
+	private long[] supply = new long[0];
+
+	/**
+	 * Constructs a new call auction market for the specified stock,
+	 * synchronised to the tick events of the specified world.
+	 *
+	 * @param stock to be traded in the market.
+	 * @param world which controls the market's timing events.
+	 */
+	public CallAuctionMarket(Stock stock, World world) {
+		this.stock = stock;
+		this.world = world;
+		sellBook = new PriceLevelOrderBook<>(world);
+		buyBook = new PriceLevelOrderBook<>(world);
+	}
+
+	/**
+	 * @return the stock being traded in this market.
+     */
+	@Override
+	public Stock getStock() {
+		return stock;
+	}
+
+	/**
+	 * Uncrosses the order books at the clearing price. Orders which cannot be
+	 * fulfilled by the associated trader are cancelled first. Bids at or above
+	 * the clearing price are then matched against offers at or below it, in
+	 * price and time priority, with every trade taking place at the clearing
+	 * price. Filled orders are cancelled and unfilled orders remain on the
+	 * books for the next auction.
+	 * @return list of trade tick events which occurred during the auction.
+     */
+	@Override
+	public List<TickEvent<Trade>> doClearing() {
+		List<TickEvent<Trade>> executedTrades = new ArrayList<>();
+
+		cancelUnfundedOrders();
+		Double price = findClearingPrice();
+		if (price == null) {
+			publishQuote();
+			return executedTrades;
+		}
+
+		while (true) {
+			BuyOrder buyOrder = buyBook.getBestOrder();
+			SellOrder sellOrder = sellBook.getBestOrder();
+
+			if (buyOrder == null) break;
+			if (sellOrder == null) break;
+			if (buyOrder.getPrice() < price || sellOrder.getPrice() > price) break;
+
+			int quantity = Math.min(buyOrder.getRemainingQuantity(), sellOrder.getRemainingQuantity());
+
+			Trade trade = new DefaultTrade(world, buyOrder, sellOrder, stock, quantity, price);
+			TickEvent<Trade> tradeEvent = world.createTickEvent(trade);
+			SettlementResult result = trade.settle(tradeEvent);
+			if (result != SettlementResult.SETTLED) {
+				settlementFailures++;
+				if (result != SettlementResult.INSUFFICIENT_CASH) removeSellOrder(sellOrder);
+				if (result != SettlementResult.INSUFFICIENT_STOCK) removeBuyOrder(buyOrder);
+				continue;
+			}
+			executedTrades.add(tradeEvent);
+			lastTradeTick = tradeEvent.getTick();
+			buyBook.filled(buyOrder);
+			sellBook.filled(sellOrder);
+			for (TradeListener tradeListener : tradeListeners) {
+				tradeListener.tradeExecuted(tradeEvent);
+			}
+
+			if (buyOrder.getRemainingQuantity() == 0) {
+				removeBuyOrder(buyOrder);
+			}
+			if (sellOrder.getRemainingQuantity() == 0) {
+				removeSellOrder(sellOrder);
+			}
+		}
+
+		publishQuote();
+		return executedTrades;
+	}
+
+	/**
+	 * Finds the price that maximises the quantity traded, by walking the
+	 * cumulative demand (bid quantity at or above a price) and supply (offer
+	 * quantity at or below a price) curves over all price levels. The curves
+	 * are read from the totals kept by each level of the books, so finding
+	 * the price takes time in proportion to the number of levels rather than
+	 * the number of orders. Ties are broken by the smallest difference
+	 * between demand and supply, and then towards the side with excess: the
+	 * highest such price if demand exceeds supply and the lowest otherwise.
+	 * @return the clearing price, or null if the books do not cross.
+	 */
+	private Double findClearingPrice() {
+		int levelCount = Math.max(buyBook.getLevelCount(), sellBook.getLevelCount());
+		if (levelCount > demand.length) {
+			bidPrices = new double[levelCount];
+			demand = new long[levelCount];
+			offerPrices = new double[levelCount];
+			supply = new long[levelCount];
+		}
+		double[] bidPrices = this.bidPrices;
+		long[] demand = this.demand;
+		double[] offerPrices = this.offerPrices;
+		long[] supply = this.supply;
+
+		// Price levels from best to worst, with the quantity at or better than each level.
+		int bidLevels = buyBook.cumulativeLevels(bidPrices, demand);
+		int offerLevels = sellBook.cumulativeLevels(offerPrices, supply);
+		if (bidLevels == 0 || offerLevels == 0) return null;
+
+		Double clearingPrice = null;
+		long bestVolume = 0;
+		long bestImbalance = Long.MAX_VALUE;
+
+		// Candidate prices are visited from low to high by merging the
+		// ascending offer levels with the bid levels in reverse.
+		int nextOffer = 0;
+		int nextBid = bidLevels - 1;
+		int offer = -1;
+		int bid = bidLevels - 1;
+		while (nextOffer < offerLevels || nextBid >= 0) {
+			double price;
+			if (nextBid < 0 || (nextOffer < offerLevels && offerPrices[nextOffer] <= bidPrices[nextBid])) {
+				price = offerPrices[nextOffer++];
+			}
+			else {
+				price = bidPrices[nextBid--];
+			}
+
+			while (offer + 1 < offerLevels && offerPrices[offer + 1] <= price) offer++;
+			while (bid >= 0 && bidPrices[bid] < price) bid--;
+
+			long demandAtPrice = bid >= 0 ? demand[bid] : 0;
+			long supplyAtPrice = offer >= 0 ? supply[offer] : 0;
+			long volume = Math.min(demandAtPrice, supplyAtPrice);
+			long imbalance = Math.abs(demandAtPrice - supplyAtPrice);
+
+			if (volume > bestVolume
+					|| (volume == bestVolume && volume > 0 && (imbalance < bestImbalance
+						|| (imbalance == bestImbalance && demandAtPrice > supplyAtPrice)))) {
+				clearingPrice = price;
+				bestVolume = volume;
+				bestImbalance = imbalance;
+			}
+		}
+
+		return clearingPrice;
+	}
+
+	/**
+	 * Cancels bids/offers which cannot be fulfilled by the associated trader
+	 * (not enough cash/stock quantity), so they do not count towards the
+	 * clearing price.
+	 */
+	private void cancelUnfundedOrders() {
+		for (BuyOrder buyOrder : buyBook.removeIf(buyOrder -> !canPay(buyOrder))) {
+			orderRemoved(buyOrder);
+		}
+		for (SellOrder sellOrder : sellBook.removeIf(sellOrder -> !canDeliver(sellOrder))) {
+			orderRemoved(sellOrder);
+		}
+	}
+
+	/**
+	 * @return the number of auction trades which could not be settled by the
+	 *         buying or selling trader.
+	 */
+	public long getSettlementFailures() {
+		return settlementFailures;
+	}
+
+	/**
+	 * Registers a listener for trades executed by this market's auctions.
+	 * @param tradeListener to be notified of each trade.
+	 */
+	@Override
+	public void addTradeListener(TradeListener tradeListener) {
+		tradeListeners.add(tradeListener);
+	}
+
+	/**
+	 * Registers a listener for orders which leave this market.
+	 * @param orderRemovalListener to be notified of each order removed.
+	 */
+	public void addOrderRemovalListener(OrderRemovalListener orderRemovalListener) {
+		orderRemovalListeners.add(orderRemovalListener);
+	}
+
+	/**
+	 * Adds a new buy order to this market's buy order book for the next auction.
+	 * @param buyOrder to be placed.
+     */
+	@Override
+	public void placeBuyOrder(BuyOrder buyOrder) {
+		buyBook.recordOrder(buyOrder);
+		publishQuote();
+	}
+
+	/**
+	 * Adds a new sell order to this market's sell order book for the next auction.
+	 * @param sellOrder to be placed.
+     */
+	@Override
+	public void placeSellOrder(SellOrder sellOrder) {
+		sellBook.recordOrder(sellOrder);
+		publishQuote();
+	}
+
+	/**
+	 * Removes a buy order from this market's buy order book.
+	 * @param buyOrder to be cancelled.
+     */
+	@Override
+	public void cancelBuyOrder(BuyOrder buyOrder) {
+		removeBuyOrder(buyOrder);
+		publishQuote();
+	}
+
+	/**
+	 * Removes a sell order from this market's sell order book.
+	 * @param sellOrder to be cancelled.
+     */
+	@Override
+	public void cancelSellOrder(SellOrder sellOrder) {
+		removeSellOrder(sellOrder);
+		publishQuote();
+	}
+
+	private void removeBuyOrder(BuyOrder buyOrder) {
+		BuyOrder cancelled = buyBook.cancelOrder(buyOrder);
+		if (cancelled != null) orderRemoved(cancelled);
+	}
+
+	private void removeSellOrder(SellOrder sellOrder) {
+		SellOrder cancelled = sellBook.cancelOrder(sellOrder);
+		if (cancelled != null) orderRemoved(cancelled);
+	}
+
+	private void orderRemoved(Order order) {
+		for (OrderRemovalListener orderRemovalListener : orderRemovalListeners) {
+			orderRemovalListener.orderRemoved(order);
+		}
+	}
+
+	/**
+	 * @return the buy order with the highest price.
+     */
+	@Override
+	public Double getBestBid() {
+		Order order = buyBook.getBestOrder();
+		if (order == null) return null;
+		return order.getPrice();
+	}
+
+	/**
+	 * @return the sell order with the lowest price.
+     */
+	@Override
+	public Double getBestOffer() {
+		Order order = sellBook.getBestOrder();
+		if (order == null) return null;
+		return order.getPrice();
+	}
+
+	/**
+	 * @return the quote published after the latest change to this market's
+	 *         order books, read without synchronization.
+	 */
+	@Override
+	public Quote getQuote() {
+		return quote;
+	}
+
+	/**
+	 * Publishes a new quote if the best bid or offer, their quantities or the
+	 * latest tick have changed.
+	 */
+	private void publishQuote() {
+		BuyOrder bid = buyBook.getBestOrder();
+		SellOrder offer = sellBook.getBestOrder();
+		long tick = Math.max(lastTradeTick, Math.max(buyBook.getLastTick(), sellBook.getLastTick()));
+		quote = DefaultQuote.of(
+			quote,
+			bid == null ? Double.NaN : bid.getPrice(), buyBook.getBestQuantity(),
+			offer == null ? Double.NaN : offer.getPrice(), sellBook.getBestQuantity(),
+			tick);
+	}
+
+	/**
+	 * @return a copy of this market's buy order book.
+	 */
+	@Override
+	public List<TickEvent<BuyOrder>> getBuyOrders() {
+		return buyBook.getOrdersAsList();
+	}
+
+	/**
+	 * @return a copy of this market's sell order book.
+	 */
+	@Override
+	public List<TickEvent<SellOrder>> getSellOrders() {
+		return sellBook.getOrdersAsList();
+	}
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the best levels of this market's buy order book.
+	 */
+	@Override
+	public List<DepthLevel> getBuyDepth(int levels) {
+		return buyBook.getDepth(levels);
+	}
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the best levels of this market's sell order book.
+	 */
+	@Override
+	public List<DepthLevel> getSellDepth(int levels) {
+		return sellBook.getDepth(levels);
+	}
+
+	@Override
+	public void addDepthListeners(DepthListener buyDepthListener, DepthListener sellDepthListener) {
+		buyBook.addDepthListener(buyDepthListener);
+		sellBook.addDepthListener(sellDepthListener);
+	}
+
+	@Override
+	public String toString(){
+		return String.format("Stock: %s\nBuy orders: %s\nSell orders: %s", stock, buyBook, sellBook);
+	}
+}
@@ -0,0 +1,72 @@
+package uk.ac.glasgow.jagora.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * A flight recorder event timing a clearing round of a continuous order
+ * driven market, so that a slow round can be lined up against garbage
+ * collections and safepoints in the same recording. The trades counted
+ * include those made on the arrival of orders since the previous round,
+ * which the round reports. Call auction markets are not instrumented.
+ * <p>
+ * Rounds are started through {@link #start()}, which creates no event unless
+ * a recording enables clearing events, so that clearing into a trade sink
+ * allocates nothing for the event.
+ */
+@Name("uk.ac.glasgow.jagora.Clearing")
+@Label("Clearing")
+@Category({"Jagora", "Market"})
+@Description("A clearing round of a market")
+@StackTrace(false)
+final class ClearingEvent extends Event {
+
+	@Label("Stock")
+	String stock;
+
+	@Label("Trades")
+	int trades;
+
+	@Label("Buy Book Depth")
+	@Description("The number of buy orders left resting after the round")
+	int buyBookDepth;
+
+	@Label("Sell Book Depth")
+	@Description("The number of sell orders left resting after the round")
+	int sellBookDepth;
+
+	private static final EventType TYPE = EventType.getEventType(ClearingEvent.class);
+
+	/**
+	 * @return a started event timing a clearing round, or null if no
+	 *         recording enables clearing events.
+	 */
+	static ClearingEvent start() {
+		if (!TYPE.isEnabled()) return null;
+		ClearingEvent event = new ClearingEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Ends the timing of the round and commits the event if it is to be
+	 * recorded; does nothing else otherwise.
+	 */
+	void finish(Stock stock, int trades, int buyBookDepth, int sellBookDepth) {
+		end();
+		if (!shouldCommit()) return;
+		this.stock = stock.getName();
+		this.trades = trades;
+		this.buyBookDepth = buyBookDepth;
+		this.sellBookDepth = sellBookDepth;
+		commit();
+	}
+
+}
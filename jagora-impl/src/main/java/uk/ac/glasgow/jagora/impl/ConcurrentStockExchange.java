@@ -0,0 +1,255 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Market;
+import uk.ac.glasgow.jagora.Quote;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+import uk.ac.glasgow.jagora.World;
+
+/**
+ * Provides a stock exchange that accepts orders from many threads at once.
+ * Markets are created atomically on first use and each market is wrapped in
+ * a {@link SynchronizedMarket}, so threads trading different stocks never
+ * wait for each other and there is no lock over the whole exchange. Markets
+ * created as a {@link MarketEventLoop} already apply orders on a single
+ * thread and are used without a lock.
+ * <p>
+ * Traders may be settled by several markets at once, so the world and
+ * traders used with this exchange must be thread safe, as the default
+ * implementations are. Trade listeners are called on the thread that caused
+ * the trade, while the market's lock is held.
+ * <p>
+ * Markets and trade histories are held in arrays indexed by the id that a
+ * {@link StockRegistry} gives each stock, as in {@link DefaultStockExchange}.
+ * The arrays are read without a lock; they are only written, and replaced
+ * when they need to grow, while a market is being created.
+ */
+public class ConcurrentStockExchange implements StockExchange {
+
+	private volatile AtomicReferenceArray<Market> markets = new AtomicReferenceArray<>(16);
+	private volatile AtomicReferenceArray<TradeHistory> tradeHistories = new AtomicReferenceArray<>(16);
+	private final List<Market> createdMarkets = new CopyOnWriteArrayList<>();
+	private final List<TradeListener> tradeListeners = new CopyOnWriteArrayList<>();
+	private final List<OrderRemovalListener> orderRemovalListeners = new CopyOnWriteArrayList<>();
+	private final World world;
+	private final MarketFactory marketFactory;
+	private final StockRegistry stockRegistry;
+
+	/**
+	 * Constructs a new stock exchange of continuous order driven markets
+	 * synchronised to the ticks of the specified world.
+	 * @param world which controls the stock exchange's timing events.
+	 */
+	public ConcurrentStockExchange(World world) {
+		this(world, ContinuousOrderDrivenMarket::new);
+	}
+
+	/**
+	 * Constructs a new stock exchange synchronised to the ticks of the specified world.
+	 * @param world which controls the stock exchange's timing events.
+	 * @param marketFactory which creates the market for each stock when it is first traded.
+	 */
+	public ConcurrentStockExchange(World world, MarketFactory marketFactory) {
+		this(world, marketFactory, new StockRegistry());
+	}
+
+	/**
+	 * Constructs a new stock exchange synchronised to the ticks of the specified world.
+	 * @param world which controls the stock exchange's timing events.
+	 * @param marketFactory which creates the market for each stock when it is first traded.
+	 * @param stockRegistry which interns the stocks traded, and may be shared with trader account ledgers.
+	 */
+	public ConcurrentStockExchange(World world, MarketFactory marketFactory, StockRegistry stockRegistry) {
+		this.world = world;
+		this.marketFactory = marketFactory;
+		this.stockRegistry = stockRegistry;
+	}
+
+	/**
+	 * Performs clearing for each market in the stock exchange, taking each
+	 * market's lock in turn.
+	 */
+	@Override
+	public void doClearing() {
+		for (Market market : createdMarkets) {
+			market.doClearing();
+		}
+	}
+
+	@Override
+	public void addTradeListener(TradeListener tradeListener) {
+		tradeListeners.add(tradeListener);
+	}
+
+	/**
+	 * Registers a listener for orders removed from the continuous order
+	 * driven and call auction markets of the stock exchange, including those
+	 * created later. The listener is called on the thread that removed the
+	 * order, while the market's lock is held.
+	 * @param orderRemovalListener to be notified of each order removed.
+	 */
+	public void addOrderRemovalListener(OrderRemovalListener orderRemovalListener) {
+		orderRemovalListeners.add(orderRemovalListener);
+	}
+
+	@Override
+	public void placeBuyOrder(BuyOrder buyOrder) {
+		getOrCreateMarket(buyOrder.getStock()).placeBuyOrder(buyOrder);
+	}
+
+	@Override
+	public void placeSellOrder(SellOrder sellOrder) {
+		getOrCreateMarket(sellOrder.getStock()).placeSellOrder(sellOrder);
+	}
+
+	@Override
+	public void cancelBuyOrder(BuyOrder buyOrder) {
+		Market market = getMarket(buyOrder.getStock());
+		if (market != null) market.cancelBuyOrder(buyOrder);
+	}
+
+	@Override
+	public void cancelSellOrder(SellOrder sellOrder) {
+		Market market = getMarket(sellOrder.getStock());
+		if (market != null) market.cancelSellOrder(sellOrder);
+	}
+
+	@Override
+	public Double getBestBid(Stock stock) {
+		Market market = getMarket(stock);
+		return market == null ? null : market.getBestBid();
+	}
+
+	@Override
+	public Double getBestOffer(Stock stock) {
+		Market market = getMarket(stock);
+		return market == null ? null : market.getBestOffer();
+	}
+
+	/**
+	 * @param stock of the quote.
+	 * @return the latest quote of the specified stock, read without taking
+	 *         any lock.
+	 */
+	@Override
+	public Quote getQuote(Stock stock) {
+		Market market = getMarket(stock);
+		return market == null ? null : market.getQuote();
+	}
+
+	/**
+	 * @param stock of the trades in the returned trade history list.
+	 * @return a read-only list of the trades performed involving the specified
+	 *         stock so far; ordered from old to new.
+	 */
+	@Override
+	public List<TickEvent<Trade>> getTradeHistory(Stock stock) {
+		int id = stockRegistry.getId(stock);
+		AtomicReferenceArray<TradeHistory> tradeHistories = this.tradeHistories;
+		TradeHistory tradeHistory = id < 0 || id >= tradeHistories.length() ? null : tradeHistories.get(id);
+		if (tradeHistory == null) return Collections.emptyList();
+		return tradeHistory.asList();
+	}
+
+	/**
+	 * @return the markets in the stock exchange, each safe to use from any
+	 *         thread, in the order they were created.
+	 */
+	public List<Market> getMarkets() {
+		return new ArrayList<>(createdMarkets);
+	}
+
+	/**
+	 * @param stock of the market.
+	 * @return the market for the specified stock, or null if it has not been traded.
+	 */
+	private Market getMarket(Stock stock) {
+		int id = stockRegistry.getId(stock);
+		return id < 0 ? null : getMarket(id);
+	}
+
+	/**
+	 * Reads the market with the specified stock id without a lock, reading
+	 * again if the array was replaced while the market was being looked up.
+	 */
+	private Market getMarket(int id) {
+		AtomicReferenceArray<Market> markets;
+		Market market;
+		do {
+			markets = this.markets;
+			market = id < markets.length() ? markets.get(id) : null;
+		} while (market == null && markets != this.markets);
+		return market;
+	}
+
+	/**
+	 * @param stock of the market.
+	 * @return the market for the specified stock, created by the market
+	 *         factory and registered exactly once if it does not yet exist.
+	 */
+	private Market getOrCreateMarket(Stock stock) {
+		int id = stockRegistry.register(stock);
+		Market market = getMarket(id);
+		if (market != null) return market;
+		synchronized (createdMarkets) {
+			market = getMarket(id);
+			if (market == null) market = createMarket(id, stockRegistry.getStock(id));
+			return market;
+		}
+	}
+
+	/**
+	 * Creates the market for a stock while holding the creation lock, growing
+	 * the arrays first if they do not reach the stock's id.
+	 */
+	private Market createMarket(int id, Stock stock) {
+		if (id >= markets.length()) {
+			int length = Math.max(id + 1, markets.length() * 2);
+			markets = copyOf(markets, length);
+			tradeHistories = copyOf(tradeHistories, length);
+		}
+		TradeHistory tradeHistory = new TradeHistory();
+		tradeHistories.set(id, tradeHistory);
+		Market market = createMarket(stock, tradeHistory);
+		markets.set(id, market);
+		createdMarkets.add(market);
+		return market;
+	}
+
+	private static <T> AtomicReferenceArray<T> copyOf(AtomicReferenceArray<T> array, int length) {
+		AtomicReferenceArray<T> copy = new AtomicReferenceArray<>(length);
+		for (int i = 0; i < array.length(); i++) copy.set(i, array.get(i));
+		return copy;
+	}
+
+	private Market createMarket(Stock stock, TradeHistory tradeHistory) {
+		Market market = marketFactory.createMarket(stock, world);
+		OrderRemovalListener orderRemovalListener = order -> {
+			for (OrderRemovalListener listener : orderRemovalListeners) {
+				listener.orderRemoved(order);
+			}
+		};
+		if (market instanceof ContinuousOrderDrivenMarket) ((ContinuousOrderDrivenMarket) market).addOrderRemovalListener(orderRemovalListener);
+		else if (market instanceof CallAuctionMarket) ((CallAuctionMarket) market).addOrderRemovalListener(orderRemovalListener);
+		if (!(market instanceof MarketEventLoop)) market = new SynchronizedMarket(market);
+		market.addTradeListener(tradeEvent -> {
+			tradeHistory.tradeExecuted(tradeEvent);
+			for (TradeListener tradeListener : tradeListeners) {
+				tradeListener.tradeExecuted(tradeEvent);
+			}
+		});
+		return market;
+	}
+
+}
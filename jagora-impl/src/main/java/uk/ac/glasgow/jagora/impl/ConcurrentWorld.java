@@ -0,0 +1,51 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.World;
+
+/**
+ * Provides a world that allocates unique ticks to many threads without
+ * locking. Every tick is taken from a single atomic counter, so ticks
+ * increase in the order they are allocated across all threads, as trade
+ * histories require of the trades made on each stock.
+ * <p>
+ * Tick events can also carry the wall clock time at which they were created,
+ * in nanoseconds since the epoch.
+ */
+public class ConcurrentWorld implements World {
+
+	private final AtomicLong nextTick = new AtomicLong();
+	private final boolean timestamped;
+	private final long epochNanosOffset;
+
+	/**
+	 * Constructs a new world which allocates each tick from an atomic counter.
+	 */
+	public ConcurrentWorld() {
+		this(false);
+	}
+
+	/**
+	 * Constructs a new world.
+	 * @param timestamped whether tick events carry the wall clock time of their creation.
+	 */
+	public ConcurrentWorld(boolean timestamped) {
+		this.timestamped = timestamped;
+		this.epochNanosOffset = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+	}
+
+	@Override
+	public <T> TickEvent<T> createTickEvent(T event) {
+		long tick = nextTick();
+		if (timestamped) return new TimestampedTickEvent<>(event, tick, epochNanosOffset + System.nanoTime());
+		return new DefaultTickEvent<>(event, tick);
+	}
+
+	@Override
+	public long nextTick() {
+		return nextTick.getAndIncrement();
+	}
+
+}
@@ -1,22 +1,47 @@
 package uk.ac.glasgow.jagora.impl;
 
 
+import static uk.ac.glasgow.jagora.impl.OrderFunding.canDeliver;
+import static uk.ac.glasgow.jagora.impl.OrderFunding.canPay;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import uk.ac.glasgow.jagora.*;
 
 /**
- * Provides the behaviour of a continuous order driven market.
+ * Provides the behaviour of a continuous order driven market. By default,
+ * orders rest on the order books until clearing is performed. A market created
+ * to match on arrival instead matches each new order against the opposite
+ * order book as soon as it is placed, and only records any unfilled remainder.
+ * <p>
+ * A market may be given a reservation risk engine, in which case orders are
+ * funded when they are placed and clearing does not need to check the traders
+ * behind the orders it matches. Each order's reservation is kept with it on
+ * the order book, so matching reads it without asking the engine.
+ * <p>
+ * Placements, cancellations, trades and clearing rounds are reported as
+ * flight recorder events, which cost next to nothing unless a recording
+ * enables them.
  * @author tws
  *
  */
 public class ContinuousOrderDrivenMarket implements Market {
 	
-	private OrderBook<SellOrder> sellBook;
-	private OrderBook<BuyOrder> buyBook;
+	private PriceLevelOrderBook<SellOrder> sellBook;
+	private PriceLevelOrderBook<BuyOrder> buyBook;
 	private Stock stock;
 	private World world;
+	private final ReusableTrade reusableTrade = new ReusableTrade();
+	private final boolean matchOnArrival;
+	private final List<TickEvent<Trade>> arrivalTrades = new ArrayList<>();
+	private final ReservationRiskEngine riskEngine;
+	private final List<TradeListener> tradeListeners = new ArrayList<>();
+	private final List<OrderRemovalListener> orderRemovalListeners = new ArrayList<>();
+	private final MarketMetrics metrics;
+	private int clearingTrades;
+	private long lastTradeTick = -1;
+	private volatile DefaultQuote quote = DefaultQuote.EMPTY;
 	
 	/**
 	 * Constructs a new continuous order driven market for the specified stock,
@@ -26,10 +51,42 @@ public class ContinuousOrderDrivenMarket implements Market {
 	 * @param world which controls the market's timing events.
 	 */
 	public ContinuousOrderDrivenMarket(Stock stock, World world) {
+		this(stock, world, false);
+	}
+
+	/**
+	 * Constructs a new continuous order driven market for the specified stock,
+	 * synchronised to the tick events of the specified world.
+	 * 
+	 * @param stock to be traded in the market.
+	 * @param world which controls the market's timing events.
+	 * @param matchOnArrival true if placed orders should be matched against the
+	 *            opposite order book immediately, rather than at clearing.
+	 */
+	public ContinuousOrderDrivenMarket(Stock stock, World world, boolean matchOnArrival) {
+		this(stock, world, matchOnArrival, null);
+	}
+
+	/**
+	 * Constructs a new continuous order driven market for the specified stock,
+	 * synchronised to the tick events of the specified world.
+	 * 
+	 * @param stock to be traded in the market.
+	 * @param world which controls the market's timing events.
+	 * @param matchOnArrival true if placed orders should be matched against the
+	 *            opposite order book immediately, rather than at clearing.
+	 * @param riskEngine which reserves cash and stock for placed orders, or
+	 *            null if traders should instead be checked during clearing.
+	 */
+	public ContinuousOrderDrivenMarket(
+			Stock stock, World world, boolean matchOnArrival, ReservationRiskEngine riskEngine) {
 		this.stock = stock;
 		this.world = world;
-		sellBook = new DefaultOrderBook<>(world);
-		buyBook = new DefaultOrderBook<>(world);
+		this.matchOnArrival = matchOnArrival;
+		this.riskEngine = riskEngine;
+		sellBook = new PriceLevelOrderBook<>(world);
+		buyBook = new PriceLevelOrderBook<>(world);
+		metrics = new MarketMetrics(stock, buyBook, sellBook);
 	}
 
 	/**
@@ -45,16 +102,65 @@ public class ContinuousOrderDrivenMarket implements Market {
 	 * No more trades occur when:
 	 * 		The buy or sell order book is empty.
 	 * 		The best bid cannot satisfy the best offer.
-	 * Cancels bids/offers which cannot be fulfilled by the associated trader (not enough cash/stock quantity).
+	 * Cancels bids/offers which cannot be fulfilled by the associated trader (not enough cash/stock quantity),
+	 * unless the orders were funded by a risk engine when they were placed.
 	 * Cancels bids/offers which have been fulfilled by a successful trade.
-	 * @return list of trade tick events which occurred during the clearing process.
+	 * @return list of trade tick events which occurred on arrival of orders
+	 *         since the last clearing, followed by those which occurred during
+	 *         the clearing process.
      */
 	@Override
 	public List<TickEvent<Trade>> doClearing() {
-		List<TickEvent<Trade>> executedTrades = new ArrayList<>();
+		ClearingEvent event = ClearingEvent.start();
+		long start = System.nanoTime();
+		List<TickEvent<Trade>> executedTrades = new ArrayList<>(arrivalTrades);
+		arrivalTrades.clear();
+		match(executedTrades, null);
+		publishQuote();
+		metrics.cleared(executedTrades.size(), System.nanoTime() - start);
+		if (event != null) event.finish(stock, executedTrades.size(), buyBook.getOrderCount(), sellBook.getOrderCount());
+		return executedTrades;
+	}
+
+	/**
+	 * Performs clearing as for {@link #doClearing()}, but reports each trade to
+	 * the specified sink instead of collecting tick events. A single trade
+	 * instance is reused for every trade, so clearing into a sink creates no
+	 * trade, tick event or list objects, and no flight recorder event unless
+	 * a recording enables clearing events. The only object it may create is
+	 * the quote published at the end of the round, once per round whose
+	 * trades changed the best prices or the latest tick, never once per
+	 * trade. Trades made during clearing into a sink are not reported to the
+	 * registered trade listeners.
+	 * @param sink to be notified of each trade as it is executed.
+	 */
+	public void doClearing(TradeSink sink) {
+		ClearingEvent event = ClearingEvent.start();
+		long start = System.nanoTime();
+		int arrivedTrades = arrivalTrades.size();
+		for (int i = 0; i < arrivedTrades; i++) {
+			TickEvent<Trade> tradeEvent = arrivalTrades.get(i);
+			DefaultTrade trade = (DefaultTrade) tradeEvent.getEvent();
+			sink.tradeExecuted(
+				tradeEvent.getTick(), stock, trade.getBuyOrder(), trade.getSellOrder(),
+				trade.getQuantityAsInt(), trade.getPriceAsDouble());
+		}
+		arrivalTrades.clear();
+		match(null, sink);
+		publishQuote();
+		metrics.cleared(arrivedTrades + clearingTrades, System.nanoTime() - start);
+		if (event != null) event.finish(stock, arrivedTrades + clearingTrades, buyBook.getOrderCount(), sellBook.getOrderCount());
+	}
 
+	/**
+	 * Matches the best bid and offer until no more trades can occur. Trades are
+	 * either created and collected into the specified list or, if the list is
+	 * null, executed through the reusable trade and reported to the sink.
+	 */
+	private void match(List<TickEvent<Trade>> executedTrades, TradeSink sink) {
 		BuyOrder buyOrder;
 		SellOrder sellOrder;
+		clearingTrades = 0;
 
 		while (true) {
 			buyOrder = buyBook.getBestOrder();
@@ -62,76 +168,352 @@ public class ContinuousOrderDrivenMarket implements Market {
 
 			if (buyOrder == null) break;
 			if (sellOrder == null) break;
-			if (getBestBid() < getBestOffer()) break;
+			if (!crosses(buyOrder, sellOrder)) break;
 
 			double price = sellOrder.getPrice();
-			int quantity = Math.min(buyOrder.getRemainingQuantity(), sellOrder.getRemainingQuantity());
+			int buyQuantity = buyOrder.getRemainingQuantityAsInt();
+			int sellQuantity = sellOrder.getRemainingQuantityAsInt();
+			int quantity = buyQuantity < sellQuantity ? buyQuantity : sellQuantity;
 
-			if (sellOrder.getRemainingQuantity() >
-                    sellOrder.getTrader().getInventoryHolding(sellOrder.getStock())) {
-                cancelSellOrder(sellOrder);
+			ReservationRiskEngine.Reservation buyReservation = buyBook.getBestReservation();
+			ReservationRiskEngine.Reservation sellReservation = sellBook.getBestReservation();
+
+			if (sellReservation == null && !canDeliver(sellOrder)) {
+                removeSellOrder(sellOrder);
+                metrics.unfundedSeller();
                 continue;
             }
 
-            if (buyOrder.getPrice() >
-                    buyOrder.getTrader().getCash()) {
-                cancelBuyOrder(buyOrder);
+            if (buyReservation == null && !canPay(buyOrder)) {
+                removeBuyOrder(buyOrder);
+                metrics.unfundedBuyer();
                 continue;
             }
 
-			Trade trade = new DefaultTrade(world, buyOrder, sellOrder, stock, quantity, price);
-			try {
-				executedTrades.add(trade.execute());
+			SettlementResult result = executeTrade(
+				buyOrder, sellOrder, quantity, price, buyReservation, sellReservation, executedTrades, sink);
+			if (result == SettlementResult.INSUFFICIENT_CASH) {
+				removeBuyOrder(buyOrder);
+				metrics.unfundedBuyer();
+				continue;
 			}
-			catch (TradeException e) {
-				e.printStackTrace();
+			if (result == SettlementResult.INSUFFICIENT_STOCK) {
+				removeSellOrder(sellOrder);
+				metrics.unfundedSeller();
+				continue;
 			}
+			if (result != SettlementResult.SETTLED) {
+				// Neither order said which of them was at fault, so neither is kept.
+				removeBuyOrder(buyOrder);
+				removeSellOrder(sellOrder);
+				continue;
+			}
+			clearingTrades++;
 
-			if (buyOrder.getRemainingQuantity() == 0) {
-				cancelBuyOrder(buyOrder);
+			if (buyOrder.getRemainingQuantityAsInt() == 0) {
+				removeBuyOrder(buyOrder);
+				metrics.filled();
 			}
-			if (sellOrder.getRemainingQuantity() == 0) {
-				cancelSellOrder(sellOrder);
+			if (sellOrder.getRemainingQuantityAsInt() == 0) {
+				removeSellOrder(sellOrder);
+				metrics.filled();
 			}
 		}
+	}
 
-		return executedTrades;
+	/**
+	 * Matches an arriving buy order against the best offers until it is filled
+	 * or no longer crosses the sell order book. Trades take place at the price
+	 * of the resting sell order.
+	 * @return true if the buy order has a remainder that should be recorded.
+	 */
+	private boolean matchArrivingBuyOrder(BuyOrder buyOrder, ReservationRiskEngine.Reservation buyReservation) {
+		while (buyOrder.getRemainingQuantityAsInt() > 0) {
+			SellOrder sellOrder = sellBook.getBestOrder();
+			if (sellOrder == null) break;
+			if (!crosses(buyOrder, sellOrder)) break;
+
+			ReservationRiskEngine.Reservation sellReservation = sellBook.getBestReservation();
+			if (sellReservation == null && !canDeliver(sellOrder)) {
+				removeSellOrder(sellOrder);
+				metrics.unfundedSeller();
+				continue;
+			}
+			if (buyReservation == null && !canPay(buyOrder)) {
+				metrics.unfundedBuyer();
+				return false;
+			}
+
+			int quantity = Math.min(buyOrder.getRemainingQuantityAsInt(), sellOrder.getRemainingQuantityAsInt());
+			SettlementResult result = executeTrade(
+				buyOrder, sellOrder, quantity, sellOrder.getPrice(), buyReservation, sellReservation, arrivalTrades, null);
+			if (result == SettlementResult.INSUFFICIENT_CASH) {
+				metrics.unfundedBuyer();
+				return false;
+			}
+			if (result == SettlementResult.INSUFFICIENT_STOCK) {
+				removeSellOrder(sellOrder);
+				metrics.unfundedSeller();
+				continue;
+			}
+			if (result != SettlementResult.SETTLED) {
+				removeSellOrder(sellOrder);
+				return false;
+			}
+
+			if (sellOrder.getRemainingQuantityAsInt() == 0) {
+				removeSellOrder(sellOrder);
+				metrics.filled();
+			}
+		}
+		return buyOrder.getRemainingQuantityAsInt() > 0;
+	}
+
+	/**
+	 * Matches an arriving sell order against the best bids until it is filled
+	 * or no longer crosses the buy order book. Trades take place at the price
+	 * of the resting buy order.
+	 * @return true if the sell order has a remainder that should be recorded.
+	 */
+	private boolean matchArrivingSellOrder(SellOrder sellOrder, ReservationRiskEngine.Reservation sellReservation) {
+		while (sellOrder.getRemainingQuantityAsInt() > 0) {
+			BuyOrder buyOrder = buyBook.getBestOrder();
+			if (buyOrder == null) break;
+			if (!crosses(buyOrder, sellOrder)) break;
+
+			ReservationRiskEngine.Reservation buyReservation = buyBook.getBestReservation();
+			if (buyReservation == null && !canPay(buyOrder)) {
+				removeBuyOrder(buyOrder);
+				metrics.unfundedBuyer();
+				continue;
+			}
+			if (sellReservation == null && !canDeliver(sellOrder)) {
+				metrics.unfundedSeller();
+				return false;
+			}
+
+			int quantity = Math.min(buyOrder.getRemainingQuantityAsInt(), sellOrder.getRemainingQuantityAsInt());
+			SettlementResult result = executeTrade(
+				buyOrder, sellOrder, quantity, buyOrder.getPrice(), buyReservation, sellReservation, arrivalTrades, null);
+			if (result == SettlementResult.INSUFFICIENT_STOCK) {
+				metrics.unfundedSeller();
+				return false;
+			}
+			if (result == SettlementResult.INSUFFICIENT_CASH) {
+				removeBuyOrder(buyOrder);
+				metrics.unfundedBuyer();
+				continue;
+			}
+			if (result != SettlementResult.SETTLED) {
+				removeBuyOrder(buyOrder);
+				return false;
+			}
+
+			if (buyOrder.getRemainingQuantityAsInt() == 0) {
+				removeBuyOrder(buyOrder);
+				metrics.filled();
+			}
+		}
+		return sellOrder.getRemainingQuantityAsInt() > 0;
+	}
+
+	/**
+	 * Executes a single trade between the specified orders. The trade is either
+	 * created and collected into the specified list or, if the list is null,
+	 * executed through the reusable trade and reported to the sink. A trade
+	 * that cannot be settled leaves both orders unchanged and is only counted.
+	 * The part of each order's reservation, if any, covering the trade is
+	 * released once it has settled.
+	 * @return the settlement result of the trade.
+	 */
+	private SettlementResult executeTrade(
+			BuyOrder buyOrder, SellOrder sellOrder, int quantity, double price,
+			ReservationRiskEngine.Reservation buyReservation, ReservationRiskEngine.Reservation sellReservation,
+			List<TickEvent<Trade>> executedTrades, TradeSink sink) {
+		if (executedTrades != null) {
+			Trade trade = new DefaultTrade(world, buyOrder, sellOrder, stock, quantity, price);
+			TickEvent<Trade> tradeEvent = world.createTickEvent(trade);
+			SettlementResult result = trade.settle(tradeEvent);
+			if (result != SettlementResult.SETTLED) {
+				metrics.settlementFailed();
+				return result;
+			}
+			executedTrades.add(tradeEvent);
+			lastTradeTick = tradeEvent.getTick();
+			for (TradeListener tradeListener : tradeListeners) {
+				tradeListener.tradeExecuted(tradeEvent);
+			}
+		}
+		else {
+			long tick = world.nextTick();
+			reusableTrade.reset(tick, buyOrder, sellOrder, stock, quantity, price);
+			SettlementResult result = reusableTrade.settle(reusableTrade);
+			if (result != SettlementResult.SETTLED) {
+				metrics.settlementFailed();
+				return result;
+			}
+			lastTradeTick = tick;
+			sink.tradeExecuted(tick, stock, buyOrder, sellOrder, quantity, price);
+		}
+		buyBook.filled(buyOrder);
+		sellBook.filled(sellOrder);
+		metrics.traded();
+		TradeExecutedEvent.trade(stock, lastTradeTick, price, quantity, buyOrder, sellOrder);
+		if (buyReservation != null) riskEngine.filled(buyReservation, quantity);
+		if (sellReservation != null) riskEngine.filled(sellReservation, quantity);
+		return SettlementResult.SETTLED;
+	}
+
+	/**
+	 * @return the number of trades matched by this market which could not be
+	 *         settled by the buying or selling trader.
+	 */
+	public long getSettlementFailures() {
+		return metrics.getSettlementFailures();
+	}
+
+	/**
+	 * @return the metrics kept by this market.
+	 */
+	public MarketMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Determines whether the specified buy order's price meets the specified
+	 * sell order's price. Fixed point orders are compared by their tick prices.
+	 */
+	private static boolean crosses(BuyOrder buyOrder, SellOrder sellOrder) {
+		if (buyOrder instanceof FixedPointOrder && sellOrder instanceof FixedPointOrder) {
+			return ((FixedPointOrder) buyOrder).getPriceInTicks()
+				>= ((FixedPointOrder) sellOrder).getPriceInTicks();
+		}
+		return buyOrder.getPrice() >= sellOrder.getPrice();
+	}
+
+	/**
+	 * Registers a listener for trades executed by this market, both during
+	 * clearing and on arrival of orders.
+	 * @param tradeListener to be notified of each trade.
+	 */
+	@Override
+	public void addTradeListener(TradeListener tradeListener) {
+		tradeListeners.add(tradeListener);
 	}
 
 	/**
-	 * Adds a new buy order to this market's buy order book.
+	 * Registers a listener for orders which leave this market, or which are
+	 * placed but never recorded on its order books.
+	 * @param orderRemovalListener to be notified of each order removed.
+	 */
+	public void addOrderRemovalListener(OrderRemovalListener orderRemovalListener) {
+		orderRemovalListeners.add(orderRemovalListener);
+	}
+
+	/**
+	 * Adds a new buy order to this market's buy order book. If this market
+	 * matches on arrival, the order is first matched against the best offers
+	 * and only an unfilled remainder is recorded. If this market has a risk
+	 * engine, an order that the buyer cannot fund is rejected, and an order
+	 * already resting on the book is ignored rather than reserved again.
 	 * @param buyOrder to be placed.
      */
 	@Override
 	public void placeBuyOrder(BuyOrder buyOrder) {
-		buyBook.recordOrder(buyOrder);
+		if (riskEngine != null && buyBook.contains(buyOrder)) return;
+		OrderPlacedEvent event = new OrderPlacedEvent();
+		event.begin();
+		int quantity = buyOrder.getRemainingQuantityAsInt();
+		ReservationRiskEngine.Reservation reservation = riskEngine == null ? null : riskEngine.reserve(buyOrder);
+		boolean accepted = riskEngine == null || reservation != null;
+		if (accepted) {
+			if (!matchOnArrival || matchArrivingBuyOrder(buyOrder, reservation)) buyBook.recordOrder(buyOrder, reservation);
+			else {
+				if (reservation != null) riskEngine.cancelled(reservation);
+				orderRemoved(buyOrder);
+			}
+			publishQuote();
+		}
+		else orderRemoved(buyOrder);
+		event.finish(stock, true, buyOrder, quantity, accepted, buyBook.getOrderCount());
 	}
 
 	/**
-	 * Adds a new sell order to this market's sell order book.
+	 * Adds a new sell order to this market's sell order book. If this market
+	 * matches on arrival, the order is first matched against the best bids
+	 * and only an unfilled remainder is recorded. If this market has a risk
+	 * engine, an order that the seller cannot fund is rejected, and an order
+	 * already resting on the book is ignored rather than reserved again.
 	 * @param sellOrder to be placed.
      */
 	@Override
 	public void placeSellOrder(SellOrder sellOrder) {
-		sellBook.recordOrder(sellOrder);
+		if (riskEngine != null && sellBook.contains(sellOrder)) return;
+		OrderPlacedEvent event = new OrderPlacedEvent();
+		event.begin();
+		int quantity = sellOrder.getRemainingQuantityAsInt();
+		ReservationRiskEngine.Reservation reservation = riskEngine == null ? null : riskEngine.reserve(sellOrder);
+		boolean accepted = riskEngine == null || reservation != null;
+		if (accepted) {
+			if (!matchOnArrival || matchArrivingSellOrder(sellOrder, reservation)) sellBook.recordOrder(sellOrder, reservation);
+			else {
+				if (reservation != null) riskEngine.cancelled(reservation);
+				orderRemoved(sellOrder);
+			}
+			publishQuote();
+		}
+		else orderRemoved(sellOrder);
+		event.finish(stock, false, sellOrder, quantity, accepted, sellBook.getOrderCount());
 	}
 
 	/**
-	 * Removes a buy order from this market's buy order book.
+	 * Removes a buy order from this market's buy order book, releasing any
+	 * reservation held for it.
 	 * @param buyOrder to be cancelled.
      */
 	@Override
 	public void cancelBuyOrder(BuyOrder buyOrder) {
-		buyBook.cancelOrder(buyOrder);
+		OrderCancelledEvent event = new OrderCancelledEvent();
+		event.begin();
+		boolean found = removeBuyOrder(buyOrder);
+		if (found) metrics.traderCancelled();
+		publishQuote();
+		event.finish(stock, true, buyOrder, found, buyBook.getOrderCount());
 	}
 
 	/**
-	 * Removes a sell order from this market's sell order book.
+	 * Removes a sell order from this market's sell order book, releasing any
+	 * reservation held for it.
 	 * @param sellOrder to be cancelled.
      */
 	@Override
 	public void cancelSellOrder(SellOrder sellOrder) {
-		sellBook.cancelOrder(sellOrder);
+		OrderCancelledEvent event = new OrderCancelledEvent();
+		event.begin();
+		boolean found = removeSellOrder(sellOrder);
+		if (found) metrics.traderCancelled();
+		publishQuote();
+		event.finish(stock, false, sellOrder, found, sellBook.getOrderCount());
+	}
+
+	private boolean removeBuyOrder(BuyOrder buyOrder) {
+		BuyOrder cancelled = buyBook.cancelOrder(buyOrder, riskEngine);
+		if (cancelled == null) return false;
+		orderRemoved(cancelled);
+		return true;
+	}
+
+	private boolean removeSellOrder(SellOrder sellOrder) {
+		SellOrder cancelled = sellBook.cancelOrder(sellOrder, riskEngine);
+		if (cancelled == null) return false;
+		orderRemoved(cancelled);
+		return true;
+	}
+
+	private void orderRemoved(Order order) {
+		for (int i = 0; i < orderRemovalListeners.size(); i++) {
+			orderRemovalListeners.get(i).orderRemoved(order);
+		}
 	}
 
 	/**
@@ -154,6 +536,72 @@ public class ContinuousOrderDrivenMarket implements Market {
 		return order.getPrice();
 	}
 
+	/**
+	 * @return the quote published after the latest change to this market's
+	 *         order books, read without synchronization.
+	 */
+	@Override
+	public Quote getQuote() {
+		return quote;
+	}
+
+	/**
+	 * Publishes a new quote if the best bid or offer, their quantities or the
+	 * latest tick have changed. The quote is immutable and published through
+	 * a volatile field, so readers on other threads always see a whole quote;
+	 * publishing one therefore allocates it.
+	 */
+	private void publishQuote() {
+		BuyOrder bid = buyBook.getBestOrder();
+		SellOrder offer = sellBook.getBestOrder();
+		long tick = Math.max(lastTradeTick, Math.max(buyBook.getLastTick(), sellBook.getLastTick()));
+		quote = DefaultQuote.of(
+			quote,
+			bid == null ? Double.NaN : bid.getPrice(), buyBook.getBestQuantity(),
+			offer == null ? Double.NaN : offer.getPrice(), sellBook.getBestQuantity(),
+			tick);
+	}
+
+	/**
+	 * @return a copy of this market's buy order book.
+	 */
+	@Override
+	public List<TickEvent<BuyOrder>> getBuyOrders() {
+		return buyBook.getOrdersAsList();
+	}
+
+	/**
+	 * @return a copy of this market's sell order book.
+	 */
+	@Override
+	public List<TickEvent<SellOrder>> getSellOrders() {
+		return sellBook.getOrdersAsList();
+	}
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the best levels of this market's buy order book.
+	 */
+	@Override
+	public List<DepthLevel> getBuyDepth(int levels) {
+		return buyBook.getDepth(levels);
+	}
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the best levels of this market's sell order book.
+	 */
+	@Override
+	public List<DepthLevel> getSellDepth(int levels) {
+		return sellBook.getDepth(levels);
+	}
+
+	@Override
+	public void addDepthListeners(DepthListener buyDepthListener, DepthListener sellDepthListener) {
+		buyBook.addDepthListener(buyDepthListener);
+		sellBook.addDepthListener(sellDepthListener);
+	}
+
 	@Override
 	public String toString(){
 		return String.format("Stock: %s\nBuy orders: %s\nSell orders: %s", stock, buyBook, sellBook);
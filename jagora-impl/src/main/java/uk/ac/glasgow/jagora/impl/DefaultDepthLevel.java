@@ -0,0 +1,59 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.DepthLevel;
+
+/**
+ * Provides an immutable copy of a price level, as returned by an order book's
+ * depth.
+ */
+public final class DefaultDepthLevel implements DepthLevel {
+
+	private final double price;
+	private final int quantity;
+	private final int orderCount;
+
+	/**
+	 * @param price of the level.
+	 * @param quantity remaining on the orders at the level.
+	 * @param orderCount the number of orders at the level.
+	 */
+	public DefaultDepthLevel(double price, int quantity, int orderCount) {
+		this.price = price;
+		this.quantity = quantity;
+		this.orderCount = orderCount;
+	}
+
+	@Override
+	public double getPrice() {
+		return price;
+	}
+
+	@Override
+	public int getQuantity() {
+		return quantity;
+	}
+
+	@Override
+	public int getOrderCount() {
+		return orderCount;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (!(other instanceof DefaultDepthLevel)) return false;
+		DefaultDepthLevel level = (DefaultDepthLevel) other;
+		return Double.compare(price, level.price) == 0 && quantity == level.quantity && orderCount == level.orderCount;
+	}
+
+	@Override
+	public int hashCode() {
+		return Double.hashCode(price) * 31 * 31 + quantity * 31 + orderCount;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d@%s (%d)", quantity, price, orderCount);
+	}
+
+}
@@ -0,0 +1,24 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.FixedPointStock;
+
+public class DefaultFixedPointStock extends DefaultStock implements FixedPointStock {
+
+    private double tickSize;
+
+    /**
+     * Constructs a new stock that is quoted in whole multiples of the specified tick size.
+     * @param name of the stock.
+     * @param tickSize the smallest unit price increment for the stock.
+     */
+    public DefaultFixedPointStock(String name, double tickSize) {
+        super(name);
+        this.tickSize = tickSize;
+    }
+
+    @Override
+    public double getTickSize() {
+        return tickSize;
+    }
+
+}
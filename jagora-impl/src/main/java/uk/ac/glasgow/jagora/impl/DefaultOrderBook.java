@@ -2,6 +2,8 @@ package uk.ac.glasgow.jagora.impl;
 
 import java.util.*;
 
+import uk.ac.glasgow.jagora.DepthLevel;
+import uk.ac.glasgow.jagora.DepthListener;
 import uk.ac.glasgow.jagora.Order;
 import uk.ac.glasgow.jagora.OrderBook;
 import uk.ac.glasgow.jagora.TickEvent;
@@ -9,11 +11,16 @@ import uk.ac.glasgow.jagora.World;
 
 /**
  * Provides the default implementation of an order book for sorting buy and sell orders.
+ * The depth of the book and the changes reported to depth listeners are
+ * worked out by visiting the orders, so {@link PriceLevelOrderBook} should be
+ * preferred for large books.
  * @author tws
  */
 public class DefaultOrderBook<O extends Order & Comparable<O>> implements OrderBook<O> {
 
 	private final Queue<TickEvent<O>> backing;
+	private final Comparator<TickEvent<O>> comparator;
+	private final List<DepthListener> depthListeners;
 	private World world;
 	
 	/**
@@ -21,7 +28,9 @@ public class DefaultOrderBook<O extends Order & Comparable<O>> implements OrderB
 	 * @param world which controls this order book's timing events.
 	 */
 	public DefaultOrderBook(World world) {
-		this.backing = new PriorityQueue<>(new OrderBookComparator());
+		this.comparator = new OrderBookComparator();
+		this.backing = new PriorityQueue<>(comparator);
+		this.depthListeners = new ArrayList<>();
 		this.world = world;
 	}
 
@@ -32,21 +41,26 @@ public class DefaultOrderBook<O extends Order & Comparable<O>> implements OrderB
 	@Override
 	public void recordOrder(O order) {
 		backing.add(world.createTickEvent(order));
+		levelChanged(order.getPrice());
 	}
 
 	/**
 	 * Removes an order from the order book.
 	 * @param order to be cancelled.
+	 * @return the removed order, or null if no matching order was recorded.
      */
 	@Override
-	public void cancelOrder(O order) {
-		for (TickEvent<O> tickEvent : backing) {
-			Order o = tickEvent.getEvent();
+	public O cancelOrder(O order) {
+		Iterator<TickEvent<O>> iterator = backing.iterator();
+		while (iterator.hasNext()) {
+			O o = iterator.next().getEvent();
 			if (o.equals(order)) {
-				backing.remove(tickEvent);
-				return;
+				iterator.remove();
+				levelChanged(o.getPrice());
+				return o;
 			}
 		}
+		return null;
 	}
 
 	/**
@@ -70,8 +84,60 @@ public class DefaultOrderBook<O extends Order & Comparable<O>> implements OrderB
      */
 	@Override
 	public List<TickEvent<O>> getOrdersAsList() {
-		return new ArrayList<>(backing);
+		List<TickEvent<O>> orders = new ArrayList<>(backing);
+		orders.sort(comparator);
+		return orders;
+	}
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the best price levels, found by sorting a copy of the order
+	 *         book, or an empty list if no levels are asked for.
+	 */
+	@Override
+	public List<DepthLevel> getDepth(int levels) {
+		if (levels <= 0 || backing.isEmpty()) return Collections.emptyList();
+		List<DepthLevel> depth = new ArrayList<>();
+		double price = Double.NaN;
+		int quantity = 0;
+		int count = 0;
+		for (TickEvent<O> tickEvent : getOrdersAsList()) {
+			O order = tickEvent.getEvent();
+			if (count > 0 && order.getPrice() != price) {
+				depth.add(new DefaultDepthLevel(price, quantity, count));
+				if (depth.size() == levels) return depth;
+				quantity = 0;
+				count = 0;
+			}
+			price = order.getPrice();
+			quantity += order.getRemainingQuantity();
+			count++;
+		}
+		depth.add(new DefaultDepthLevel(price, quantity, count));
+		return depth;
+	}
+
+	@Override
+	public void addDepthListener(DepthListener depthListener) {
+		depthListeners.add(depthListener);
 	}
+
+	private void levelChanged(double price) {
+		if (depthListeners.isEmpty()) return;
+		int quantity = 0;
+		int count = 0;
+		for (TickEvent<O> tickEvent : backing) {
+			O order = tickEvent.getEvent();
+			if (order.getPrice() == price) {
+				quantity += order.getRemainingQuantity();
+				count++;
+			}
+		}
+		for (DepthListener depthListener : depthListeners) {
+			depthListener.levelChanged(price, quantity, count);
+		}
+	}
+
 	private class OrderBookComparator implements Comparator<TickEvent<O>> {
 
 		@Override
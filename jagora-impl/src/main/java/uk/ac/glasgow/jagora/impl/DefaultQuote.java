@@ -0,0 +1,93 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.Quote;
+
+/**
+ * Provides an immutable quote. Markets publish a new quote through a volatile
+ * field after each change to their order books, so readers on other threads
+ * always see every field of the same quote.
+ */
+public final class DefaultQuote implements Quote {
+
+	/**
+	 * The quote of a market which has had no orders.
+	 */
+	public static final DefaultQuote EMPTY = new DefaultQuote(Double.NaN, 0, Double.NaN, 0, -1L);
+
+	private final double bid;
+	private final int bidQuantity;
+	private final double offer;
+	private final int offerQuantity;
+	private final long tick;
+
+	/**
+	 * @param bid price, or NaN if there is no bid.
+	 * @param bidQuantity at the bid price.
+	 * @param offer price, or NaN if there is no offer.
+	 * @param offerQuantity at the offer price.
+	 * @param tick of the latest order or trade reflected in the quote.
+	 */
+	public DefaultQuote(double bid, int bidQuantity, double offer, int offerQuantity, long tick) {
+		this.bid = bid;
+		this.bidQuantity = bidQuantity;
+		this.offer = offer;
+		this.offerQuantity = offerQuantity;
+		this.tick = tick;
+	}
+
+	/**
+	 * Returns the specified quote if it already holds the specified values, or
+	 * a new quote otherwise, so that a market whose best prices are unchanged
+	 * does not publish a new quote.
+	 * @param quote currently published.
+	 * @return a quote holding the specified values.
+	 */
+	static DefaultQuote of(DefaultQuote quote, double bid, int bidQuantity, double offer, int offerQuantity, long tick) {
+		if (Double.compare(quote.bid, bid) == 0 && quote.bidQuantity == bidQuantity
+				&& Double.compare(quote.offer, offer) == 0 && quote.offerQuantity == offerQuantity
+				&& quote.tick == tick)
+			return quote;
+		return new DefaultQuote(bid, bidQuantity, offer, offerQuantity, tick);
+	}
+
+	@Override
+	public boolean hasBid() {
+		return !Double.isNaN(bid);
+	}
+
+	@Override
+	public double getBid() {
+		return bid;
+	}
+
+	@Override
+	public int getBidQuantity() {
+		return bidQuantity;
+	}
+
+	@Override
+	public boolean hasOffer() {
+		return !Double.isNaN(offer);
+	}
+
+	@Override
+	public double getOffer() {
+		return offer;
+	}
+
+	@Override
+	public int getOfferQuantity() {
+		return offerQuantity;
+	}
+
+	@Override
+	public long getTick() {
+		return tick;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d@%s / %d@%s [%d]", bidQuantity, bid, offerQuantity, offer, tick);
+	}
+
+}
@@ -1,10 +1,24 @@
 package uk.ac.glasgow.jagora.impl;
 
+import java.util.Arrays;
+
 import uk.ac.glasgow.jagora.Stock;
 
+/**
+ * Provides a stock identified by its name. Default stocks with the same name
+ * are equal, so they share a market on a stock exchange.
+ */
 public class DefaultStock implements Stock {
 
+    /**
+     * The most registries whose ids a stock remembers. Registries beyond these
+     * still find the stock's id by its name.
+     */
+    private static final int MAX_STAMPS = 4;
+    private static final Stamp[] NO_STAMPS = new Stamp[0];
+
     private String name;
+    private volatile Stamp[] stamps = NO_STAMPS;
 
     public DefaultStock(String name) {
         this.name = name;
@@ -15,9 +29,58 @@ public class DefaultStock implements Stock {
         return name;
     }
 
+    /**
+     * Records the id given to this stock by a registry, so that the registry
+     * can find it again without hashing the stock's name. Each registry's id
+     * is kept separately, for the first few registries to register the stock.
+     */
+    synchronized void register(StockRegistry registry, int id) {
+        Stamp[] stamps = this.stamps;
+        if (stamps.length == MAX_STAMPS) return;
+        for (Stamp stamp : stamps) {
+            if (stamp.registry == registry) return;
+        }
+        Stamp[] registered = Arrays.copyOf(stamps, stamps.length + 1);
+        registered[stamps.length] = new Stamp(registry, id);
+        this.stamps = registered;
+    }
+
+    /**
+     * @return the id recorded for this stock by the specified registry, or -1
+     *         if the registry has not recorded one.
+     */
+    int getId(StockRegistry registry) {
+        for (Stamp stamp : stamps) {
+            if (stamp.registry == registry) return stamp.id;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof DefaultStock)) return false;
+        return name.equals(((DefaultStock) other).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
     @Override
     public String toString() {
         return name;
     }
 
+    private static final class Stamp {
+        private final StockRegistry registry;
+        private final int id;
+
+        private Stamp(StockRegistry registry, int id) {
+            this.registry = registry;
+            this.id = id;
+        }
+    }
+
 }
@@ -1,47 +1,222 @@
 package uk.ac.glasgow.jagora.impl;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import uk.ac.glasgow.jagora.BuyOrder;
 import uk.ac.glasgow.jagora.Market;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.Quote;
 import uk.ac.glasgow.jagora.SellOrder;
 import uk.ac.glasgow.jagora.Stock;
 import uk.ac.glasgow.jagora.StockExchange;
 import uk.ac.glasgow.jagora.TickEvent;
 import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
 import uk.ac.glasgow.jagora.World;
 
 public class DefaultStockExchange implements StockExchange {
 
     /**
-     * Map of markets in the stock exchange.
+     * Registry which interns the stocks traded in the stock exchange and gives each an id.
+     */
+    private StockRegistry stockRegistry;
+    /**
+     * Array of markets in the stock exchange, indexed by stock id.
+     */
+    private Market[] markets;
+    /**
+     * List of the buffers that relay each market's trades, in the order the markets were created.
+     */
+    private List<MarketTrades> marketTrades;
+    /**
+     * Pool which clears markets in parallel, or null to clear them one after another.
      */
-    private Map<Stock, Market> markets;
+    private ForkJoinPool clearingPool;
     private World world;
+    private MarketFactory marketFactory;
+    /**
+     * Map of market factories chosen for individual stock ids, overriding the default market factory.
+     */
+    private Map<Integer, MarketFactory> stockMarketFactories;
+    /**
+     * Array of the trades made for each stock in the stock exchange, indexed by stock id.
+     */
+    private TradeHistory[] tradeHistories;
+    /**
+     * List of listeners notified of each trade made in the stock exchange, starting with the trade history.
+     */
+    private List<TradeListener> tradeListeners;
+    /**
+     * List of listeners notified of each order removed from, or never recorded by, a market in the stock exchange.
+     */
+    private List<OrderRemovalListener> orderRemovalListeners;
+    private final StockExchangeMetrics metrics;
     /**
-     * List of trades made in the stock exchange, ordered from old to new.
+     * Server with which the metrics of new markets are registered, or null if the stock exchange's MBeans are not registered.
      */
-    private List<TickEvent<Trade>> tradeHistory;
+    private MBeanServer mBeanServer;
+    private String mBeanName;
 
     /**
      * Constructs a new stock exchange synchronised to the ticks of the specified world.
      * @param world which controls the stock exchange's timing events.
      */
     public DefaultStockExchange(World world) {
+        this(world, ContinuousOrderDrivenMarket::new);
+    }
+
+    /**
+     * Constructs a new stock exchange synchronised to the ticks of the specified world.
+     * @param world which controls the stock exchange's timing events.
+     * @param marketFactory which creates the market for each stock when it is first traded.
+     */
+    public DefaultStockExchange(World world, MarketFactory marketFactory) {
+        this(world, marketFactory, new StockRegistry());
+    }
+
+    /**
+     * Constructs a new stock exchange synchronised to the ticks of the specified world.
+     * @param world which controls the stock exchange's timing events.
+     * @param marketFactory which creates the market for each stock when it is first traded.
+     * @param stockRegistry which interns the stocks traded, and may be shared with trader account ledgers.
+     */
+    public DefaultStockExchange(World world, MarketFactory marketFactory, StockRegistry stockRegistry) {
         this.world = world;
-        markets = new HashMap<>();
-        tradeHistory = new ArrayList<>();
+        this.marketFactory = marketFactory;
+        this.stockRegistry = stockRegistry;
+        markets = new Market[16];
+        marketTrades = new ArrayList<>();
+        stockMarketFactories = new HashMap<>();
+        tradeHistories = new TradeHistory[16];
+        tradeListeners = new ArrayList<>();
+        tradeListeners.add(this::recordTrade);
+        orderRemovalListeners = new ArrayList<>();
+        metrics = new StockExchangeMetrics();
+    }
+
+    /**
+     * Selects the type of market to be created for the specified stock, for
+     * example a call auction market for a stock in its opening session.
+     * @param stock to be traded in the market.
+     * @param marketFactory which creates the market for the stock when it is first traded.
+     * @throws IllegalStateException if a market already exists for the stock.
+     */
+    public void setMarketFactory(Stock stock, MarketFactory marketFactory) {
+        if (getMarket(stock) != null)
+            throw new IllegalStateException("Market already exists for " + stock.getName() + ".");
+        stockMarketFactories.put(stockRegistry.register(stock), marketFactory);
     }
 
     /**
-     * Performs clearing for each market in the stock exchange.
+     * Selects parallel clearing, in which the markets are cleared by the
+     * tasks of the specified pool. Traders may hold stock in several markets,
+     * so the world, risk engines and traders used by the markets must be safe
+     * to use from several threads, as the default implementations are.
+     * @param clearingPool which clears the markets, or null to clear them one after another.
+     */
+    public void setClearingPool(ForkJoinPool clearingPool) {
+        this.clearingPool = clearingPool;
+    }
+
+    /**
+     * Performs clearing for each market in the stock exchange, in the order
+     * that the markets were created. Trades reach the trade history and other
+     * listeners as they are executed, so the lists returned by the markets are
+     * not used.
+     * <p>
+     * If a clearing pool is set, the markets are cleared in parallel and each
+     * market's trades are held back until every market has cleared. The
+     * trades are then passed on market by market, in the order that the
+     * markets were created, so the trade history and listeners see the same
+     * sequence of trades for each stock as they would from sequential clearing.
      * @see uk.ac.glasgow.jagora.impl.ContinuousOrderDrivenMarket#doClearing()
      */
     @Override
     public void doClearing() {
-        for (Map.Entry<Stock, Market> entry : markets.entrySet()) {
-            tradeHistory.addAll(entry.getValue().doClearing());
+        long start = System.nanoTime();
+        clearMarkets();
+        metrics.cleared(System.nanoTime() - start);
+    }
+
+    private void clearMarkets() {
+        if (clearingPool == null) {
+            for (MarketTrades trades : marketTrades) {
+                trades.market.doClearing();
+            }
+            return;
+        }
+        for (MarketTrades trades : marketTrades) {
+            trades.held = true;
+        }
+        try {
+            clearingPool.invoke(new ClearingTask(marketTrades, 0, marketTrades.size()));
+        }
+        finally {
+            for (MarketTrades trades : marketTrades) {
+                trades.release();
+            }
+        }
+    }
+
+    /**
+     * Registers a listener for trades made on any market in the stock exchange.
+     * Listeners are notified after the trade history has recorded the trade.
+     * @param tradeListener to be notified of each trade.
+     */
+    @Override
+    public void addTradeListener(TradeListener tradeListener) {
+        tradeListeners.add(tradeListener);
+    }
+
+    /**
+     * Registers a listener for orders removed from the continuous order
+     * driven and call auction markets of the stock exchange, including those
+     * created later. Markets of other types, or wrapped by a synchronized
+     * market or event loop, are not reached. Removals made while the markets
+     * are cleared in parallel are held back until the trades of the
+     * clearing have been passed on.
+     * @param orderRemovalListener to be notified of each order removed.
+     */
+    public void addOrderRemovalListener(OrderRemovalListener orderRemovalListener) {
+        orderRemovalListeners.add(orderRemovalListener);
+    }
+
+    private void orderRemoved(Order order) {
+        for (OrderRemovalListener orderRemovalListener : orderRemovalListeners) {
+            orderRemovalListener.orderRemoved(order);
+        }
+    }
+
+    /**
+     * Passes a trade made on one of the stock exchange's markets to each listener in turn.
+     * @param tradeEvent of the trade.
+     */
+    private void tradeExecuted(TickEvent<Trade> tradeEvent) {
+        for (TradeListener tradeListener : tradeListeners) {
+            tradeListener.tradeExecuted(tradeEvent);
+        }
+    }
+
+    /**
+     * Appends a trade to the trade history of its stock.
+     * @param tradeEvent of the trade.
+     */
+    private void recordTrade(TickEvent<Trade> tradeEvent) {
+        int id = stockRegistry.register(tradeEvent.getEvent().getStock());
+        if (id >= tradeHistories.length) tradeHistories = Arrays.copyOf(tradeHistories, Math.max(id + 1, tradeHistories.length * 2));
+        TradeHistory tradeHistory = tradeHistories[id];
+        if (tradeHistory == null) {
+            tradeHistory = new TradeHistory();
+            tradeHistories[id] = tradeHistory;
         }
+        tradeHistory.tradeExecuted(tradeEvent);
+        metrics.traded();
     }
 
     /**
@@ -51,13 +226,8 @@ public class DefaultStockExchange implements StockExchange {
      */
     @Override
     public void placeBuyOrder(BuyOrder buyOrder) {
-        Stock stock = buyOrder.getStock();
-        Market market = markets.get(stock);
-        if (market == null) {
-            market = new ContinuousOrderDrivenMarket(stock, world);
-            markets.put(stock, market);
-        }
-        market.placeBuyOrder(buyOrder);
+        metrics.buyOrderPlaced();
+        getOrCreateMarket(buyOrder.getStock()).placeBuyOrder(buyOrder);
     }
 
     /**
@@ -67,13 +237,46 @@ public class DefaultStockExchange implements StockExchange {
      */
     @Override
     public void placeSellOrder(SellOrder sellOrder) {
-        Stock stock = sellOrder.getStock();
-        Market market = markets.get(stock);
+        metrics.sellOrderPlaced();
+        getOrCreateMarket(sellOrder.getStock()).placeSellOrder(sellOrder);
+    }
+
+    /**
+     * @param stock of the market.
+     * @return the market for the specified stock, created by the market factory if it does not yet exist.
+     */
+    private Market getOrCreateMarket(Stock stock) {
+        int id = stockRegistry.register(stock);
+        if (id >= markets.length) markets = Arrays.copyOf(markets, Math.max(id + 1, markets.length * 2));
+        Market market = markets[id];
         if (market == null) {
-            market = new ContinuousOrderDrivenMarket(stock, world);
-            markets.put(stock, market);
+            market = stockMarketFactories.getOrDefault(id, marketFactory).createMarket(stockRegistry.getStock(id), world);
+            MarketTrades trades = new MarketTrades(market);
+            market.addTradeListener(trades);
+            if (market instanceof ContinuousOrderDrivenMarket) ((ContinuousOrderDrivenMarket) market).addOrderRemovalListener(trades);
+            else if (market instanceof CallAuctionMarket) ((CallAuctionMarket) market).addOrderRemovalListener(trades);
+            marketTrades.add(trades);
+            markets[id] = market;
+            metrics.marketCreated();
+            if (mBeanServer != null) {
+                try {
+                    registerMarketMBean(market);
+                }
+                catch (JMException e) {
+                    throw new IllegalStateException("Could not register the metrics of " + stock.getName() + ".", e);
+                }
+            }
         }
-        market.placeSellOrder(sellOrder);
+        return market;
+    }
+
+    /**
+     * @param stock of the market.
+     * @return the market for the specified stock, or null if it has not been traded.
+     */
+    private Market getMarket(Stock stock) {
+        int id = stockRegistry.getId(stock);
+        return id < 0 || id >= markets.length ? null : markets[id];
     }
 
     /**
@@ -82,8 +285,9 @@ public class DefaultStockExchange implements StockExchange {
      */
     @Override
     public void cancelBuyOrder(BuyOrder buyOrder) {
-        Market market = markets.get(buyOrder.getStock());
+        Market market = getMarket(buyOrder.getStock());
         if (market == null) return;
+        metrics.cancelled();
         market.cancelBuyOrder(buyOrder);
     }
 
@@ -93,8 +297,9 @@ public class DefaultStockExchange implements StockExchange {
      */
     @Override
     public void cancelSellOrder(SellOrder sellOrder) {
-        Market market = markets.get(sellOrder.getStock());
+        Market market = getMarket(sellOrder.getStock());
         if (market == null) return;
+        metrics.cancelled();
         market.cancelSellOrder(sellOrder);
     }
 
@@ -104,7 +309,7 @@ public class DefaultStockExchange implements StockExchange {
      */
     @Override
     public Double getBestOffer(Stock stock) {
-        Market market = markets.get(stock);
+        Market market = getMarket(stock);
         if (market == null) return null;
         return market.getBestOffer();
     }
@@ -115,24 +320,167 @@ public class DefaultStockExchange implements StockExchange {
      */
     @Override
     public Double getBestBid(Stock stock) {
-        Market market = markets.get(stock);
+        Market market = getMarket(stock);
         if (market == null) return null;
         return market.getBestBid();
     }
 
+    /**
+     * @param stock of the quote.
+     * @return the latest quote of the specified stock, read without synchronization.
+     */
+    @Override
+    public Quote getQuote(Stock stock) {
+        Market market = getMarket(stock);
+        if (market == null) return null;
+        return market.getQuote();
+    }
+
     /**
      * @param stock of the trades in the returned trade history list.
-     * @return a list of trades performed involving the specified stock; ordered from old to new.
+     * @return a read-only list of trades performed involving the specified stock; ordered from old to new.
      */
     @Override
     public List<TickEvent<Trade>> getTradeHistory(Stock stock) {
-        List<TickEvent<Trade>> stockTradeHistory = new ArrayList<>();
-        for (TickEvent<Trade> te : tradeHistory) {
-            if (te.getEvent().getStock() == stock) {
-                stockTradeHistory.add(te);
+        TradeHistory tradeHistory = getTradeHistoryOf(stock);
+        if (tradeHistory == null) return Collections.emptyList();
+        return tradeHistory.asList();
+    }
+
+    /**
+     * @param stock of the trades in the returned trade history list.
+     * @param fromTick the earliest tick to include.
+     * @param toTick the tick before which to stop.
+     * @return a read-only list of trades performed involving the specified
+     *         stock between the specified ticks; ordered from old to new.
+     */
+    public List<TickEvent<Trade>> getTradeHistory(Stock stock, long fromTick, long toTick) {
+        TradeHistory tradeHistory = getTradeHistoryOf(stock);
+        if (tradeHistory == null) return Collections.emptyList();
+        return tradeHistory.between(fromTick, toTick);
+    }
+
+    /**
+     * @return the metrics kept by the stock exchange.
+     */
+    public StockExchangeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers the stock exchange's metrics with an MBean server as
+     * {@code uk.ac.glasgow.jagora:type=StockExchange,name=<name>}, along with
+     * the metrics of each continuous order driven market in it as
+     * {@code uk.ac.glasgow.jagora:type=Market,exchange=<name>,stock=<stock>}.
+     * Markets created later are registered as they are created. Markets
+     * wrapped by a synchronized market or event loop are not reached, and
+     * their metrics must be registered by whoever wrapped them.
+     * @param server with which the MBeans are registered, such as the platform MBean server.
+     * @param name distinguishing this stock exchange from others registered with the server.
+     * @throws JMException if an MBean cannot be registered.
+     */
+    public void registerMBeans(MBeanServer server, String name) throws JMException {
+        server.registerMBean(metrics, new ObjectName("uk.ac.glasgow.jagora:type=StockExchange,name=" + ObjectName.quote(name)));
+        mBeanServer = server;
+        mBeanName = name;
+        for (MarketTrades trades : marketTrades) {
+            registerMarketMBean(trades.market);
+        }
+    }
+
+    private void registerMarketMBean(Market market) throws JMException {
+        if (!(market instanceof ContinuousOrderDrivenMarket)) return;
+        mBeanServer.registerMBean(
+            ((ContinuousOrderDrivenMarket) market).getMetrics(),
+            new ObjectName("uk.ac.glasgow.jagora:type=Market,exchange=" + ObjectName.quote(mBeanName)
+                + ",stock=" + ObjectName.quote(market.getStock().getName())));
+    }
+
+    /**
+     * @return the markets in the stock exchange, in the order they were created.
+     */
+    public List<Market> getMarkets() {
+        List<Market> markets = new ArrayList<>(marketTrades.size());
+        for (MarketTrades trades : marketTrades) {
+            markets.add(trades.market);
+        }
+        return markets;
+    }
+
+    private TradeHistory getTradeHistoryOf(Stock stock) {
+        int id = stockRegistry.getId(stock);
+        return id < 0 || id >= tradeHistories.length ? null : tradeHistories[id];
+    }
+
+    /**
+     * Relays the trades made by a single market, and the orders it removes,
+     * to the stock exchange's listeners, holding them back while the market
+     * is cleared in parallel.
+     */
+    private class MarketTrades implements TradeListener, OrderRemovalListener {
+        private final Market market;
+        private final List<TickEvent<Trade>> heldTrades = new ArrayList<>();
+        private final List<Order> heldRemovals = new ArrayList<>();
+        private boolean held;
+
+        private MarketTrades(Market market) {
+            this.market = market;
+        }
+
+        @Override
+        public void tradeExecuted(TickEvent<Trade> tradeEvent) {
+            if (held) heldTrades.add(tradeEvent);
+            else DefaultStockExchange.this.tradeExecuted(tradeEvent);
+        }
+
+        @Override
+        public void orderRemoved(Order order) {
+            if (held) heldRemovals.add(order);
+            else DefaultStockExchange.this.orderRemoved(order);
+        }
+
+        /**
+         * Passes on the held trades in the order they were made, and then
+         * the held removals, since an order is only removed after its last trade.
+         */
+        private void release() {
+            held = false;
+            for (TickEvent<Trade> tradeEvent : heldTrades) {
+                DefaultStockExchange.this.tradeExecuted(tradeEvent);
+            }
+            heldTrades.clear();
+            for (Order order : heldRemovals) {
+                DefaultStockExchange.this.orderRemoved(order);
+            }
+            heldRemovals.clear();
+        }
+    }
+
+    /**
+     * Clears a range of markets by splitting it in half until a single market remains.
+     */
+    private static class ClearingTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<MarketTrades> marketTrades;
+        private final int from;
+        private final int to;
+
+        private ClearingTask(List<MarketTrades> marketTrades, int from, int to) {
+            this.marketTrades = marketTrades;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) marketTrades.get(from).market.doClearing();
+                return;
             }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ClearingTask(marketTrades, from, middle), new ClearingTask(marketTrades, middle, to));
         }
-        return stockTradeHistory;
     }
 
 }
@@ -2,6 +2,7 @@ package uk.ac.glasgow.jagora.impl;
 
 import uk.ac.glasgow.jagora.BuyOrder;
 import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.SettlementResult;
 import uk.ac.glasgow.jagora.Stock;
 import uk.ac.glasgow.jagora.TickEvent;
 import uk.ac.glasgow.jagora.Trade;
@@ -41,6 +42,26 @@ public class DefaultTrade implements Trade {
 		return price;
 	}
 
+	@Override
+	public int getQuantityAsInt() {
+		return quantity;
+	}
+
+	@Override
+	public double getPriceAsDouble() {
+		return price;
+	}
+
+	@Override
+	public BuyOrder getBuyOrder() {
+		return buyOrder;
+	}
+
+	@Override
+	public SellOrder getSellOrder() {
+		return sellOrder;
+	}
+
 
 	/**
 	 *
@@ -53,8 +74,43 @@ public class DefaultTrade implements Trade {
 	@Override
 	public TickEvent<Trade> execute() throws TradeException {
 		TickEvent<Trade> te = world.createTickEvent(this);
-		buyOrder.satisfyTrade(te);
-		sellOrder.satisfyTrade(te);
+		SettlementResult result = settle(te);
+		if (result != SettlementResult.SETTLED) throw failure(result, buyOrder, sellOrder);
 		return te;
 	}
+
+	/**
+	 * Settles the trade as for {@link Trade#settle(BuyOrder, SellOrder, TickEvent)},
+	 * with the accounts of both traders locked for the whole settlement, so
+	 * markets may settle trades for the same traders on different threads.
+	 * @param tradeEvent the tick event recording the time of the trade.
+	 * @return SETTLED if both orders were satisfied; otherwise the result
+	 *         reported by the order that could not be.
+	 */
+	@Override
+	public SettlementResult settle(TickEvent<Trade> tradeEvent) {
+		return settleLocked(buyOrder, sellOrder, tradeEvent);
+	}
+
+	static SettlementResult settleLocked(BuyOrder buyOrder, SellOrder sellOrder, TickEvent<Trade> tradeEvent) {
+		int buyerStripe = TraderLocks.stripe(buyOrder.getTrader());
+		int sellerStripe = TraderLocks.stripe(sellOrder.getTrader());
+		synchronized (TraderLocks.lock(Math.min(buyerStripe, sellerStripe))) {
+			synchronized (TraderLocks.lock(Math.max(buyerStripe, sellerStripe))) {
+				return Trade.settle(buyOrder, sellOrder, tradeEvent);
+			}
+		}
+	}
+
+	/**
+	 * @return the exception reporting why a trade between the specified
+	 *         orders could not be settled.
+	 */
+	static TradeException failure(SettlementResult result, BuyOrder buyOrder, SellOrder sellOrder) {
+		if (result == SettlementResult.INSUFFICIENT_STOCK)
+			return new TradeException("Seller not enough stock.", sellOrder.getTrader());
+		if (result == SettlementResult.INSUFFICIENT_CASH)
+			return new TradeException("Buyer not enough cash.", buyOrder.getTrader());
+		return new TradeException("Trade could not be settled.", buyOrder.getTrader());
+	}
 }
@@ -1,6 +1,7 @@
 package uk.ac.glasgow.jagora.impl;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 import uk.ac.glasgow.jagora.*;
@@ -14,12 +15,13 @@ import uk.ac.glasgow.jagora.*;
 public class DefaultTrader implements Trader {
 
     private String name;
-    private Double cash;
-    private HashMap<Stock, Integer> inventory = new HashMap<>();
+    private final AccountLedger ledger;
+    private final int account;
 
     /**
      * Constructs a new instance of default trader with the specified cash and a
-     * single stock of the specified quantity.
+     * single stock of the specified quantity, whose account is held in a
+     * ledger of its own.
      *
      * @param name of the trader.
      * @param cash: Quantity of cash belonging to the trader.
@@ -27,9 +29,43 @@ public class DefaultTrader implements Trader {
      * @param quantity of the trader's initial stock.
      */
     public DefaultTrader(String name, Double cash, Stock stock, Integer quantity) {
+        this(new AccountLedger(), name, cash, stock, quantity);
+    }
+
+    /**
+     * Constructs a new instance of default trader whose account is held in the
+     * specified ledger, which may be shared with other traders.
+     *
+     * @param ledger which holds the trader's cash and stock.
+     * @param name of the trader.
+     * @param cash: Quantity of cash belonging to the trader.
+     * @param stock: The trader's initial stock type.
+     * @param quantity of the trader's initial stock.
+     */
+    public DefaultTrader(AccountLedger ledger, String name, Double cash, Stock stock, Integer quantity) {
+        this(ledger, name, cash, Collections.singletonMap(stock, quantity));
+    }
+
+    /**
+     * Constructs a new instance of default trader holding several stocks, whose
+     * account is held in the specified ledger.
+     *
+     * @param ledger which holds the trader's cash and stock.
+     * @param name of the trader.
+     * @param cash: Quantity of cash belonging to the trader.
+     * @param inventory: The quantity of each of the trader's initial stocks.
+     */
+    public DefaultTrader(AccountLedger ledger, String name, Double cash, Map<Stock, Integer> inventory) {
         this.name = name;
-        this.cash = cash;
-        this.inventory.put(stock, quantity);
+        this.ledger = ledger;
+        this.account = ledger.openAccount(cash);
+        // the ledger grows its arrays while holding every trader lock, so
+        // the initial positions are written under this trader's lock
+        synchronized (TraderLocks.lockFor(this)) {
+            for (Map.Entry<Stock, Integer> holding : inventory.entrySet()) {
+                ledger.setPosition(account, ledger.getStockId(holding.getKey()), holding.getValue());
+            }
+        }
     }
 
     @Override
@@ -37,9 +73,39 @@ public class DefaultTrader implements Trader {
         return name;
     }
 
+    /**
+     * @return the number of this trader's account in its ledger.
+     */
+    public int getAccount() {
+        return account;
+    }
+
     @Override
     public Double getCash() {
-        return cash;
+        return FixedPoint.toCash(ledger.getCash(account));
+    }
+
+    @Override
+    public double getCashAsDouble() {
+        return FixedPoint.toCash(ledger.getCash(account));
+    }
+
+    /**
+     * @return the cash held by this trader, in minor units.
+     */
+    long getCashUnits() {
+        return ledger.getCash(account);
+    }
+
+    /**
+     * Sets the cash held by this trader in minor units, for example when
+     * restoring it from a snapshot.
+     * @param cashUnits held by the trader.
+     */
+    void setCashUnits(long cashUnits) {
+        synchronized (TraderLocks.lockFor(this)) {
+            ledger.setCash(account, cashUnits);
+        }
     }
 
     /**
@@ -47,17 +113,30 @@ public class DefaultTrader implements Trader {
      * @param stock to be sold.
      * @param quantity of stock units to be sold.
      * @param price of the stock sale.
-     * @throws TradeException if trader does not have enough/any stock to fulfill the sale.
+     * @throws TradeException if the quantity is not positive, or if trader does
+     *         not have enough/any stock to fulfill the sale.
      */
     @Override
     public void sellStock(Stock stock, Integer quantity, Double price) throws TradeException {
-        if (inventory.containsKey(stock)) {
-            int amount = inventory.get(stock);
-            if (amount - quantity >= 0) {
-                cash += quantity * price;
-                inventory.replace(stock, amount - quantity);
-            } else throw new TradeException("Seller not enough stock.", this);
-        } else throw new TradeException("Seller not enough stock.", this);
+        if (quantity <= 0) throw new TradeException("Quantity must be positive.", this);
+        if (trySellStock(stock, quantity, price) != SettlementResult.SETTLED)
+            throw new TradeException("Seller not enough stock.", this);
+    }
+
+    /**
+     * Applies the effects of the specified sale on this trader, if it holds
+     * enough of the stock, while holding the trader's lock.
+     * @param stock to be sold.
+     * @param quantity of stock units to be sold.
+     * @param price of the stock sale.
+     * @return SETTLED; or INSUFFICIENT_STOCK, or FAILED if the quantity is not
+     *         positive, leaving the trader unchanged.
+     */
+    @Override
+    public SettlementResult trySellStock(Stock stock, int quantity, double price) {
+        synchronized (TraderLocks.lockFor(this)) {
+            return ledger.sell(account, ledger.getStockId(stock), quantity, FixedPoint.toCashUnits(quantity, price));
+        }
     }
 
     /**
@@ -65,16 +144,30 @@ public class DefaultTrader implements Trader {
      * @param stock to be purchased.
      * @param quantity of stock units to be purchased.
      * @param price of the stock purchase.
-     * @throws TradeException if trader does not have enough cash to fulfill the purchase.
+     * @throws TradeException if the quantity is not positive, or if trader does
+     *         not have enough cash to fulfill the purchase.
      */
     @Override
     public void buyStock(Stock stock, Integer quantity, Double price) throws TradeException {
-        if (cash - (quantity * price) >= 0) {
-            cash -= quantity * price;
-            if (inventory.containsKey(stock)) {
-                inventory.replace(stock, inventory.get(stock) + quantity);
-            } else inventory.put(stock, quantity);
-        } else throw new TradeException("Buyer not enough cash.", this);
+        if (quantity <= 0) throw new TradeException("Quantity must be positive.", this);
+        if (tryBuyStock(stock, quantity, price) != SettlementResult.SETTLED)
+            throw new TradeException("Buyer not enough cash.", this);
+    }
+
+    /**
+     * Applies the effects of the specified purchase on this trader, if it has
+     * enough cash, while holding the trader's lock.
+     * @param stock to be purchased.
+     * @param quantity of stock units to be purchased.
+     * @param price of the stock purchase.
+     * @return SETTLED; or INSUFFICIENT_CASH, or FAILED if the quantity is not
+     *         positive, leaving the trader unchanged.
+     */
+    @Override
+    public SettlementResult tryBuyStock(Stock stock, int quantity, double price) {
+        synchronized (TraderLocks.lockFor(this)) {
+            return ledger.buy(account, ledger.getStockId(stock), quantity, FixedPoint.toCashUnits(quantity, price));
+        }
     }
 
     /**
@@ -83,8 +176,12 @@ public class DefaultTrader implements Trader {
      */
     @Override
     public Integer getInventoryHolding(Stock stock) {
-        if (inventory.containsKey(stock)) return inventory.get(stock);
-        return 0;
+        return ledger.getPosition(account, ledger.getStockId(stock));
+    }
+
+    @Override
+    public int getInventoryHoldingAsInt(Stock stock) {
+        return ledger.getPosition(account, ledger.getStockId(stock));
     }
 
     /**
@@ -100,8 +197,7 @@ public class DefaultTrader implements Trader {
      */
     @Override
     public Set<Stock> getTradingStocks() {
-        Set<Stock> stockSet = inventory.keySet();
-        return stockSet;
+        return ledger.getStocks(account);
     }
 
 }
@@ -3,13 +3,22 @@ package uk.ac.glasgow.jagora.impl;
 import uk.ac.glasgow.jagora.TickEvent;
 import uk.ac.glasgow.jagora.World;
 
+/**
+ * Provides a world whose ticks count up from zero. Ticks may be allocated by
+ * several threads at once, for example by markets clearing in parallel.
+ */
 public class DefaultWorld implements World {
 
-	private Long tickCount = 0L;
+	private long tickCount = 0L;
 
 	@Override
 	public <T> TickEvent<T> createTickEvent(T event) {
-		return new DefaultTickEvent<>(event, tickCount++);
+		return new DefaultTickEvent<>(event, nextTick());
+	}
+
+	@Override
+	public synchronized long nextTick() {
+		return tickCount++;
 	}
 
 }
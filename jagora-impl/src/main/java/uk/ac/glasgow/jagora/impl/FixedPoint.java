@@ -0,0 +1,67 @@
+package uk.ac.glasgow.jagora.impl;
+
+/**
+ * Converts between floating point prices and the whole number units used for
+ * fixed point prices and cash balances.
+ */
+public final class FixedPoint {
+
+	/**
+	 * The number of minor units in one unit of cash. Cash balances are held
+	 * as a whole number of minor units so that repeated trades do not
+	 * accumulate rounding errors.
+	 */
+	public static final long CASH_UNITS = 10_000L;
+
+	private FixedPoint() {
+	}
+
+	/**
+	 * @param price to be converted.
+	 * @param tickSize of the stock being priced.
+	 * @return the nearest whole number of ticks to the specified price.
+	 */
+	public static long toTicks(double price, double tickSize) {
+		return Math.round(price / tickSize);
+	}
+
+	/**
+	 * @param ticks to be converted.
+	 * @param tickSize of the stock being priced.
+	 * @return the unit price represented by the specified number of ticks.
+	 */
+	public static double toPrice(long ticks, double tickSize) {
+		return ticks * tickSize;
+	}
+
+	/**
+	 * @param cash amount to be converted.
+	 * @return the nearest whole number of minor units to the specified amount.
+	 */
+	public static long toCashUnits(double cash) {
+		return Math.round(cash * CASH_UNITS);
+	}
+
+	/**
+	 * Prices a quantity of stock by rounding the unit price to minor units
+	 * before multiplying, so that the cost of an order is the sum of the cost
+	 * of its parts however it is filled. Settlement and risk reservations both
+	 * price trades this way, so a reservation always covers the trades it was
+	 * made for.
+	 * @param quantity of stock units.
+	 * @param price per unit.
+	 * @return the cost of the stock in minor units.
+	 */
+	public static long toCashUnits(int quantity, double price) {
+		return toCashUnits(price) * quantity;
+	}
+
+	/**
+	 * @param cashUnits to be converted.
+	 * @return the cash amount represented by the specified minor units.
+	 */
+	public static double toCash(long cashUnits) {
+		return (double) cashUnits / CASH_UNITS;
+	}
+
+}
@@ -0,0 +1,47 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.*;
+
+/**
+ * Implements a limit buy order whose price is held as a whole number of ticks
+ * of a fixed point stock. Comparisons against other fixed point orders use the
+ * tick prices directly.
+ */
+public class FixedPointLimitBuyOrder extends LimitBuyOrder implements FixedPointOrder {
+
+	private final long priceInTicks;
+
+	/**
+	 * @param trader placing the order.
+	 * @param stock to be bought.
+	 * @param quantity of stock units to be bought.
+	 * @param priceInTicks the limit price as a multiple of the stock's tick size.
+	 */
+	public FixedPointLimitBuyOrder(Trader trader, FixedPointStock stock, Integer quantity, long priceInTicks) {
+		super(trader, stock, quantity, FixedPoint.toPrice(priceInTicks, stock.getTickSize()));
+		this.priceInTicks = priceInTicks;
+	}
+
+	/**
+	 * @param trader placing the order.
+	 * @param stock to be bought.
+	 * @param quantity of stock units to be bought.
+	 * @param price the limit price, rounded to the nearest tick.
+	 */
+	public FixedPointLimitBuyOrder(Trader trader, FixedPointStock stock, Integer quantity, Double price) {
+		this(trader, stock, quantity, FixedPoint.toTicks(price, stock.getTickSize()));
+	}
+
+	@Override
+	public long getPriceInTicks() {
+		return priceInTicks;
+	}
+
+	@Override
+	public int compareTo(BuyOrder order) {
+		if (order instanceof FixedPointOrder) {
+			return Long.compare(((FixedPointOrder) order).getPriceInTicks(), priceInTicks);
+		}
+		return super.compareTo(order);
+	}
+}
@@ -0,0 +1,422 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.FixedPointOrder;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Writes an append-only journal of the orders placed and cancelled on a stock
+ * exchange, its clearings and the trades they make. Records are written in a
+ * compact binary format to fixed size segment files, each memory mapped in
+ * turn, so appending a record is a few writes to memory.
+ * <p>
+ * Each record is an int length, an int CRC-32 checksum, a long sequence
+ * number, a byte type and the fields of the record. The checksum covers
+ * everything after it, and the length is written last, so a record cut short
+ * by the process stopping is never read back; nor is a record of which only
+ * some pages reached the disk before the operating system stopped, since the
+ * pages of a mapped segment may be written back in any order. Sequence
+ * numbers run on without a gap, so a reader also stops at any record left
+ * over from before the journal was last reopened. Stocks and traders are
+ * written once by name and referred to by id afterwards, and orders are given
+ * ids so that cancellations and trades can refer to them. Traders are told
+ * apart by identity rather than by name, and each is written with the number
+ * of its account in its {@link AccountLedger}, so that traders sharing a name
+ * are replayed as different traders. A reopened journal defines each trader
+ * again, under a new id, the first time it is referred to.
+ * <p>
+ * Records reach the operating system as soon as they are written. The
+ * segment is forced to disk after a configurable number of records, so
+ * that the cost of the force is shared by the whole group, and whenever
+ * {@link #flush()} is called. Opening a journal on an existing directory
+ * continues after its last complete record, first zeroing the rest of that
+ * segment and deleting any segments after it, so that nothing of a record
+ * cut short remains to be read back after the new records.
+ * <p>
+ * Orders are forgotten once they are cancelled, filled or otherwise removed
+ * from their market; the journal is told of removals as an
+ * {@link OrderRemovalListener}, which a {@link JournalingStockExchange}
+ * registers for it. The journal is synchronized and may be written from
+ * several threads.
+ */
+public class Journal implements TradeListener, OrderRemovalListener, Closeable {
+
+	static final int MAGIC = 0x4A524E4C;
+	static final int VERSION = 3;
+	static final int HEADER_SIZE = 8;
+	static final String SEGMENT_SUFFIX = ".journal";
+
+	static final byte DEFINE_STOCK = 1;
+	static final byte DEFINE_TRADER = 2;
+	static final byte PLACE_BUY_ORDER = 3;
+	static final byte PLACE_SELL_ORDER = 4;
+	static final byte CANCEL_BUY_ORDER = 5;
+	static final byte CANCEL_SELL_ORDER = 6;
+	static final byte CLEAR = 7;
+	static final byte TRADE = 8;
+
+	static final int RECORD_HEADER_SIZE = 4 + 4 + 8 + 1;
+	private static final int ORDER_SIZE = 8 + 4 + 4 + 4 + 8 + 1;
+	private static final int TRADE_SIZE = 8 + 4 + 8 + 8 + 4 + 8;
+
+	private final Path directory;
+	private final int segmentSize;
+	private final int recordsPerForce;
+
+	private final Map<String, Integer> stockIds = new HashMap<>();
+	private final Map<Trader, Integer> traderIds = new IdentityHashMap<>();
+	private final Map<Order, Long> orderIds = new IdentityHashMap<>();
+	private final CRC32 checksum = new CRC32();
+
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int segment;
+	private long sequence;
+	private long nextOrderId;
+	private int nextTraderId;
+	private int recordStart;
+	private int unforcedRecords;
+
+	/**
+	 * Opens a journal in the specified directory, continuing after the last
+	 * record of any journal already there.
+	 * @param directory to hold the journal's segment files.
+	 * @param segmentSize the size in bytes of each segment file.
+	 * @param recordsPerForce the number of records written between forcing the
+	 *        segment to disk, or 0 to force it only when flushed.
+	 * @throws IOException if the journal cannot be read or created.
+	 */
+	public Journal(Path directory, int segmentSize, int recordsPerForce) throws IOException {
+		if (segmentSize < HEADER_SIZE + 1024) throw new IllegalArgumentException("Segment size is too small.");
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.recordsPerForce = recordsPerForce;
+		Files.createDirectories(directory);
+
+		JournalReader reader = new JournalReader(directory);
+		sequence = reader.read(new JournalHandler() {
+			@Override
+			public void stockDefined(int stockId, String name) {
+				stockIds.put(name, stockId);
+			}
+
+			@Override
+			public void traderDefined(int traderId, int account, String name) {
+				nextTraderId = Math.max(nextTraderId, traderId + 1);
+			}
+
+			@Override
+			public void orderPlaced(
+					long sequence, boolean buy, long orderId, int stockId, int traderId,
+					int quantity, double price, boolean fixedPoint) {
+				nextOrderId = Math.max(nextOrderId, orderId + 1);
+			}
+		});
+		for (Path segment : JournalReader.listSegments(directory)) {
+			if (segmentNumber(segment) > reader.getLastSegment()) Files.delete(segment);
+		}
+		if (reader.getLastSegment() < 0) openSegment(0, HEADER_SIZE);
+		else openSegment(reader.getLastSegment(), reader.getEndOffset());
+	}
+
+	/**
+	 * Records a buy order about to be placed, giving it an order id.
+	 * @param buyOrder to be placed.
+	 */
+	public synchronized void placeBuyOrder(BuyOrder buyOrder) {
+		writeOrder(PLACE_BUY_ORDER, buyOrder, assignOrderId(buyOrder));
+	}
+
+	/**
+	 * Records a sell order about to be placed, giving it an order id.
+	 * @param sellOrder to be placed.
+	 */
+	public synchronized void placeSellOrder(SellOrder sellOrder) {
+		writeOrder(PLACE_SELL_ORDER, sellOrder, assignOrderId(sellOrder));
+	}
+
+	/**
+	 * Records a buy order about to be cancelled.
+	 * @param buyOrder to be cancelled.
+	 */
+	public synchronized void cancelBuyOrder(BuyOrder buyOrder) {
+		Long orderId = orderIds.remove(buyOrder);
+		writeOrder(CANCEL_BUY_ORDER, buyOrder, orderId == null ? -1L : orderId);
+	}
+
+	/**
+	 * Records a sell order about to be cancelled.
+	 * @param sellOrder to be cancelled.
+	 */
+	public synchronized void cancelSellOrder(SellOrder sellOrder) {
+		Long orderId = orderIds.remove(sellOrder);
+		writeOrder(CANCEL_SELL_ORDER, sellOrder, orderId == null ? -1L : orderId);
+	}
+
+	/**
+	 * Records a clearing about to be performed.
+	 */
+	public synchronized void clearing() {
+		begin(CLEAR, 0);
+		end();
+	}
+
+	/**
+	 * Records a trade made by the stock exchange. Orders which the trade
+	 * fills completely are forgotten.
+	 * @param tradeEvent of the trade.
+	 */
+	@Override
+	public synchronized void tradeExecuted(TickEvent<Trade> tradeEvent) {
+		Trade trade = tradeEvent.getEvent();
+		int stockId = defineStock(trade.getStock());
+		long buyOrderId = filledOrderId(trade.getBuyOrder());
+		long sellOrderId = filledOrderId(trade.getSellOrder());
+		begin(TRADE, TRADE_SIZE);
+		buffer.putLong(tradeEvent.getTick());
+		buffer.putInt(stockId);
+		buffer.putLong(buyOrderId);
+		buffer.putLong(sellOrderId);
+		buffer.putInt(trade.getQuantityAsInt());
+		buffer.putDouble(trade.getPriceAsDouble());
+		end();
+	}
+
+	/**
+	 * Forgets an order removed from its market, so that the journal only
+	 * holds ids for orders which are resting.
+	 * @param order removed from its market.
+	 */
+	@Override
+	public synchronized void orderRemoved(Order order) {
+		orderIds.remove(order);
+	}
+
+	/**
+	 * Gives orders rebuilt from the journal, for example by a
+	 * {@link JournalReplayer}, their original ids, so that cancelling them
+	 * refers to the orders that were placed.
+	 * @param orders by order id.
+	 */
+	public synchronized void restoreOrders(Map<Long, Order> orders) {
+		for (Map.Entry<Long, Order> entry : orders.entrySet()) {
+			orderIds.put(entry.getValue(), entry.getKey());
+		}
+	}
+
+	/**
+	 * @return the number of orders placed through the journal, or restored to
+	 *         it, which have not yet been cancelled, filled or removed.
+	 */
+	public synchronized int getOrderCount() {
+		return orderIds.size();
+	}
+
+	/**
+	 * @return the sequence number of the last record written.
+	 */
+	public synchronized long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Forces every record written so far to disk.
+	 */
+	public synchronized void flush() {
+		buffer.force();
+		unforcedRecords = 0;
+	}
+
+	/**
+	 * Forces the journal to disk and closes the current segment.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		flush();
+		channel.close();
+	}
+
+	private long assignOrderId(Order order) {
+		long orderId = nextOrderId++;
+		orderIds.put(order, orderId);
+		return orderId;
+	}
+
+	private long filledOrderId(Order order) {
+		if (order == null) return -1L;
+		Long orderId = orderIds.get(order);
+		if (orderId == null) return -1L;
+		if (order.getRemainingQuantity() == 0) orderIds.remove(order);
+		return orderId;
+	}
+
+	private void writeOrder(byte type, Order order, long orderId) {
+		int stockId = defineStock(order.getStock());
+		int traderId = defineTrader(order.getTrader());
+		begin(type, ORDER_SIZE);
+		buffer.putLong(orderId);
+		buffer.putInt(stockId);
+		buffer.putInt(traderId);
+		buffer.putInt(order.getRemainingQuantity());
+		buffer.putDouble(order.getPrice());
+		buffer.put((byte) (order instanceof FixedPointOrder ? 1 : 0));
+		end();
+	}
+
+	private int defineStock(Stock stock) {
+		Integer stockId = stockIds.get(stock.getName());
+		if (stockId != null) return stockId;
+		stockId = stockIds.size();
+		stockIds.put(stock.getName(), stockId);
+		byte[] name = encode(stock.getName());
+		begin(DEFINE_STOCK, 4 + 2 + name.length);
+		buffer.putInt(stockId);
+		buffer.putShort((short) name.length);
+		buffer.put(name);
+		end();
+		return stockId;
+	}
+
+	private int defineTrader(Trader trader) {
+		Integer traderId = traderIds.get(trader);
+		if (traderId != null) return traderId;
+		traderId = nextTraderId++;
+		traderIds.put(trader, traderId);
+		byte[] name = encode(trader.getName());
+		begin(DEFINE_TRADER, 4 + 4 + 2 + name.length);
+		buffer.putInt(traderId);
+		buffer.putInt(account(trader));
+		buffer.putShort((short) name.length);
+		buffer.put(name);
+		end();
+		return traderId;
+	}
+
+	/**
+	 * @return the number of the trader's account in its ledger, or -1 if it
+	 *         does not keep its account in a ledger.
+	 */
+	private static int account(Trader trader) {
+		if (trader instanceof DefaultTrader) return ((DefaultTrader) trader).getAccount();
+		if (trader instanceof RandomTrader) return ((RandomTrader) trader).getAccount();
+		return -1;
+	}
+
+	private static byte[] encode(String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Name is too long to journal.");
+		return bytes;
+	}
+
+	/**
+	 * Starts a record, moving to a new segment if the record does not fit in
+	 * the current one. The length is left as zero until the record is ended.
+	 */
+	private void begin(byte type, int size) {
+		int recordSize = RECORD_HEADER_SIZE + size;
+		if (recordSize > segmentSize - HEADER_SIZE)
+			throw new IllegalArgumentException("Record is larger than a journal segment.");
+		if (buffer.remaining() < recordSize) {
+			buffer.force();
+			try {
+				channel.close();
+				openSegment(segment + 1, HEADER_SIZE);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		recordStart = buffer.position();
+		buffer.putInt(0);
+		buffer.putInt(0);
+		buffer.putLong(++sequence);
+		buffer.put(type);
+	}
+
+	/**
+	 * Completes the current record by writing its checksum and then its
+	 * length, and forces the segment to disk if a group of records is
+	 * complete.
+	 */
+	private void end() {
+		int recordEnd = buffer.position();
+		buffer.putInt(recordStart + 4, checksum(buffer, recordStart + 8, recordEnd, checksum));
+		buffer.putInt(recordStart, recordEnd - recordStart - 4);
+		if (recordsPerForce > 0 && ++unforcedRecords >= recordsPerForce) {
+			buffer.force();
+			unforcedRecords = 0;
+		}
+	}
+
+	/**
+	 * Maps a segment for writing from the specified offset. The rest of an
+	 * existing segment is zeroed and forced to disk before any record is
+	 * written to it, so that the new records are never followed by the
+	 * remains of a record that was cut short.
+	 */
+	private void openSegment(int number, int offset) throws IOException {
+		Path path = directory.resolve(String.format("%08d%s", number, SEGMENT_SUFFIX));
+		boolean created = !Files.exists(path);
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		if (created) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+		}
+		else {
+			buffer.position(offset);
+			while (buffer.remaining() >= 8) buffer.putLong(0L);
+			while (buffer.hasRemaining()) buffer.put((byte) 0);
+			buffer.force();
+		}
+		buffer.position(offset);
+		segment = number;
+	}
+
+	/**
+	 * Computes a checksum on the buffer itself, moving its position and limit
+	 * to the specified offsets and then restoring them, so that no view of
+	 * the buffer is created for each record.
+	 * @return the CRC-32 checksum of the bytes of the buffer between the
+	 *         specified offsets.
+	 */
+	static int checksum(ByteBuffer buffer, int from, int to, CRC32 checksum) {
+		int position = buffer.position();
+		int limit = buffer.limit();
+		buffer.limit(to).position(from);
+		checksum.reset();
+		checksum.update(buffer);
+		buffer.limit(limit).position(position);
+		return (int) checksum.getValue();
+	}
+
+	/**
+	 * @return the number of the segment file at the specified path.
+	 */
+	static int segmentNumber(Path segment) {
+		String name = segment.getFileName().toString();
+		return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+}
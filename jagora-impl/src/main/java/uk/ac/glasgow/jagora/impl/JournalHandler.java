@@ -0,0 +1,79 @@
+package uk.ac.glasgow.jagora.impl;
+
+/**
+ * Receives the records read from a journal, in the order they were written.
+ * Stocks and traders are defined before the first record that refers to
+ * them, and are identified in later records by the ids given here.
+ *
+ * @see JournalReader
+ */
+public interface JournalHandler {
+
+	/**
+	 * @param stockId the journal's id for the stock.
+	 * @param name of the stock.
+	 */
+	public default void stockDefined(int stockId, String name) {
+	}
+
+	/**
+	 * @param traderId the journal's id for the trader.
+	 * @param account the number of the trader's account in its ledger, or -1
+	 *        if it does not keep its account in a ledger.
+	 * @param name of the trader.
+	 */
+	public default void traderDefined(int traderId, int account, String name) {
+	}
+
+	/**
+	 * @param sequence of the record.
+	 * @param buy true for a buy order, false for a sell order.
+	 * @param orderId the journal's id for the order.
+	 * @param stockId of the order's stock.
+	 * @param traderId of the order's trader.
+	 * @param quantity of the order when it was placed.
+	 * @param price of the order.
+	 * @param fixedPoint true if the order was priced in ticks of its stock.
+	 */
+	public default void orderPlaced(
+			long sequence, boolean buy, long orderId, int stockId, int traderId,
+			int quantity, double price, boolean fixedPoint) {
+	}
+
+	/**
+	 * @param sequence of the record.
+	 * @param buy true for a buy order, false for a sell order.
+	 * @param orderId the journal's id for the order, or -1 if the cancelled
+	 *        order was not placed through the journal.
+	 * @param stockId of the order's stock.
+	 * @param traderId of the order's trader.
+	 * @param quantity remaining on the order when it was cancelled.
+	 * @param price of the order.
+	 * @param fixedPoint true if the order was priced in ticks of its stock.
+	 */
+	public default void orderCancelled(
+			long sequence, boolean buy, long orderId, int stockId, int traderId,
+			int quantity, double price, boolean fixedPoint) {
+	}
+
+	/**
+	 * @param sequence of the record.
+	 */
+	public default void clearing(long sequence) {
+	}
+
+	/**
+	 * @param sequence of the record.
+	 * @param tick of the trade.
+	 * @param stockId of the stock traded.
+	 * @param buyOrderId of the buy order filled, or -1 if unknown.
+	 * @param sellOrderId of the sell order filled, or -1 if unknown.
+	 * @param quantity of stock traded.
+	 * @param price of the trade.
+	 */
+	public default void tradeExecuted(
+			long sequence, long tick, int stockId, long buyOrderId, long sellOrderId,
+			int quantity, double price) {
+	}
+
+}
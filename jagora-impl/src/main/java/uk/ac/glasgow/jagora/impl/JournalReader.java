@@ -0,0 +1,180 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the segment files of a journal written by {@link Journal}, passing
+ * each record to a handler. Reading moves on to the next segment at the first
+ * record whose length has not been written, which marks the end of a segment
+ * or a record that was being written when the process stopped. Reading stops
+ * altogether at a record whose checksum does not match its contents, or
+ * whose sequence number does not follow on from the record before it, since
+ * nothing after such a record can be trusted.
+ */
+public class JournalReader {
+
+	private final Path directory;
+	private long lastSequence;
+	private int lastSegment = -1;
+	private int endOffset = Journal.HEADER_SIZE;
+	private boolean broken;
+	private final CRC32 checksum = new CRC32();
+
+	/**
+	 * @param directory holding the journal's segment files.
+	 */
+	public JournalReader(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Reads every record in the journal.
+	 * @param handler to receive the records.
+	 * @return the sequence number of the last record, or 0 if the journal is empty.
+	 * @throws IOException if a segment cannot be read or is not a journal segment.
+	 */
+	public long read(JournalHandler handler) throws IOException {
+		return read(handler, 0L);
+	}
+
+	/**
+	 * Reads the records in the journal after the specified sequence number.
+	 * Stock and trader definitions are always passed to the handler, since
+	 * later records refer to them.
+	 * @param handler to receive the records.
+	 * @param afterSequence the sequence number of the last record to skip.
+	 * @return the sequence number of the last record, or 0 if the journal is empty.
+	 * @throws IOException if a segment cannot be read or is not a journal segment.
+	 */
+	public long read(JournalHandler handler, long afterSequence) throws IOException {
+		for (Path segment : listSegments(directory)) {
+			lastSegment = Journal.segmentNumber(segment);
+			try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				if (buffer.limit() < Journal.HEADER_SIZE || buffer.getInt(0) != Journal.MAGIC)
+					throw new IOException(segment + " is not a journal segment.");
+				if (buffer.getInt(4) != Journal.VERSION)
+					throw new IOException(segment + " is of an unsupported journal version.");
+				buffer.position(Journal.HEADER_SIZE);
+				endOffset = readSegment(buffer, handler, afterSequence);
+			}
+			if (broken) break;
+		}
+		return lastSequence;
+	}
+
+	/**
+	 * Reads records from the segment until a record is missing or broken.
+	 * @return the offset just after the last record read.
+	 */
+	private int readSegment(MappedByteBuffer buffer, JournalHandler handler, long afterSequence) {
+		while (buffer.remaining() >= Journal.RECORD_HEADER_SIZE) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			if (length == 0) return start;
+			if (length < Journal.RECORD_HEADER_SIZE - 4 || length > buffer.remaining()
+					|| buffer.getInt() != Journal.checksum(buffer, start + 8, start + 4 + length, checksum)
+					|| buffer.getLong(start + 8) != lastSequence + 1) {
+				broken = true;
+				return start;
+			}
+			long sequence = buffer.getLong();
+			byte type = buffer.get();
+			lastSequence = sequence;
+			boolean skip = sequence <= afterSequence;
+			switch (type) {
+				case Journal.DEFINE_STOCK:
+					handler.stockDefined(buffer.getInt(), readString(buffer));
+					break;
+				case Journal.DEFINE_TRADER:
+					handler.traderDefined(buffer.getInt(), buffer.getInt(), readString(buffer));
+					break;
+				case Journal.PLACE_BUY_ORDER:
+				case Journal.PLACE_SELL_ORDER:
+				case Journal.CANCEL_BUY_ORDER:
+				case Journal.CANCEL_SELL_ORDER: {
+					long orderId = buffer.getLong();
+					int stockId = buffer.getInt();
+					int traderId = buffer.getInt();
+					int quantity = buffer.getInt();
+					double price = buffer.getDouble();
+					boolean fixedPoint = buffer.get() != 0;
+					if (skip) break;
+					boolean buy = type == Journal.PLACE_BUY_ORDER || type == Journal.CANCEL_BUY_ORDER;
+					if (type == Journal.PLACE_BUY_ORDER || type == Journal.PLACE_SELL_ORDER)
+						handler.orderPlaced(sequence, buy, orderId, stockId, traderId, quantity, price, fixedPoint);
+					else
+						handler.orderCancelled(sequence, buy, orderId, stockId, traderId, quantity, price, fixedPoint);
+					break;
+				}
+				case Journal.CLEAR:
+					if (!skip) handler.clearing(sequence);
+					break;
+				case Journal.TRADE: {
+					long tick = buffer.getLong();
+					int stockId = buffer.getInt();
+					long buyOrderId = buffer.getLong();
+					long sellOrderId = buffer.getLong();
+					int quantity = buffer.getInt();
+					double price = buffer.getDouble();
+					if (!skip) handler.tradeExecuted(sequence, tick, stockId, buyOrderId, sellOrderId, quantity, price);
+					break;
+				}
+			}
+			buffer.position(start + 4 + length);
+		}
+		return buffer.position();
+	}
+
+	private static String readString(MappedByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the sequence number of the last record read.
+	 */
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * @return the number of the last segment read, or -1 if there were none.
+	 */
+	int getLastSegment() {
+		return lastSegment;
+	}
+
+	/**
+	 * @return the offset just after the last record in the last segment read.
+	 */
+	int getEndOffset() {
+		return endOffset;
+	}
+
+	/**
+	 * @return the journal's segment files in the order they were written.
+	 */
+	static List<Path> listSegments(Path directory) throws IOException {
+		List<Path> segments = new ArrayList<>();
+		if (!Files.isDirectory(directory)) return segments;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + Journal.SEGMENT_SUFFIX)) {
+			for (Path segment : stream) segments.add(segment);
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+
+}
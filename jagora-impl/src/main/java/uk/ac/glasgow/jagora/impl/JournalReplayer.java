@@ -0,0 +1,200 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.FixedPointStock;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Rebuilds the state of a stock exchange by placing, cancelling and clearing
+ * the orders recorded in a journal, in the order they were recorded. Stocks
+ * are looked up by the names recorded in the journal. Traders are looked up
+ * by name and by the number of their account in their ledger, so that
+ * traders sharing a name can be told apart, and should hold the cash and
+ * stock they held when the journal was started. The trades made by the replayed clearings are the
+ * trades recorded in the journal, which are therefore not replayed
+ * themselves.
+ */
+public class JournalReplayer implements JournalHandler {
+
+	private final BiFunction<String, Integer, Trader> traders;
+	private final Function<String, Stock> stocks;
+
+	private final List<Stock> stockIds = new ArrayList<>();
+	private final List<Trader> traderIds = new ArrayList<>();
+	private final Map<Long, Order> orders = new HashMap<>();
+	private final Map<Order, Long> orderIds = new IdentityHashMap<>();
+	private StockExchange stockExchange;
+
+	/**
+	 * Creates a replayer for a journal whose traders all have different names.
+	 * @param traders finds the trader with a recorded name.
+	 * @param stocks finds the stock with a recorded name.
+	 */
+	public JournalReplayer(Function<String, Trader> traders, Function<String, Stock> stocks) {
+		this((name, account) -> traders.apply(name), stocks);
+	}
+
+	/**
+	 * @param traders finds the trader with a recorded name and account number,
+	 *        which is -1 for a trader that does not keep its account in a
+	 *        ledger.
+	 * @param stocks finds the stock with a recorded name.
+	 */
+	public JournalReplayer(BiFunction<String, Integer, Trader> traders, Function<String, Stock> stocks) {
+		this.traders = traders;
+		this.stocks = stocks;
+	}
+
+	/**
+	 * Replays every record in a journal on a stock exchange.
+	 * @param directory holding the journal.
+	 * @param stockExchange on which orders are placed.
+	 * @return the sequence number of the last record replayed.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	public long replay(Path directory, StockExchange stockExchange) throws IOException {
+		return replay(directory, stockExchange, 0L);
+	}
+
+	/**
+	 * Replays the records in a journal after the specified sequence number,
+	 * for example those written after a snapshot was taken.
+	 * @param directory holding the journal.
+	 * @param stockExchange on which orders are placed.
+	 * @param afterSequence the sequence number of the last record to skip.
+	 * @return the sequence number of the last record in the journal.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	public long replay(Path directory, StockExchange stockExchange, long afterSequence) throws IOException {
+		this.stockExchange = stockExchange;
+		return new JournalReader(directory).read(this, afterSequence);
+	}
+
+	/**
+	 * Makes an order placed before the replayed records known to the replayer,
+	 * so that a replayed cancellation of it cancels this order.
+	 * @param orderId of the order in the journal.
+	 * @param order already on the stock exchange.
+	 */
+	public void addOrder(long orderId, Order order) {
+		orders.put(orderId, order);
+		orderIds.put(order, orderId);
+	}
+
+	/**
+	 * @param order placed by the replay, or added to it.
+	 * @return the journal id of the order, or -1 if it is not known to the
+	 *         replayer or has been cancelled or filled.
+	 */
+	long getOrderId(Order order) {
+		Long orderId = orderIds.get(order);
+		return orderId == null ? -1L : orderId;
+	}
+
+	/**
+	 * @return the orders placed by the replay, or added to it, that have not
+	 *         been cancelled or completely filled, by order id.
+	 */
+	public Map<Long, Order> getOrders() {
+		Map<Long, Order> restingOrders = new HashMap<>();
+		for (Map.Entry<Long, Order> entry : orders.entrySet()) {
+			if (entry.getValue().getRemainingQuantity() > 0) restingOrders.put(entry.getKey(), entry.getValue());
+		}
+		return restingOrders;
+	}
+
+	@Override
+	public void stockDefined(int stockId, String name) {
+		set(stockIds, stockId, stocks.apply(name));
+	}
+
+	@Override
+	public void traderDefined(int traderId, int account, String name) {
+		Trader trader = traders.apply(name, account);
+		if (trader == null) throw new IllegalStateException("No trader named " + name + " to replay the journal.");
+		set(traderIds, traderId, trader);
+	}
+
+	@Override
+	public void orderPlaced(
+			long sequence, boolean buy, long orderId, int stockId, int traderId,
+			int quantity, double price, boolean fixedPoint) {
+		Order order = createOrder(buy, stockId, traderId, quantity, price, fixedPoint);
+		addOrder(orderId, order);
+		if (buy) stockExchange.placeBuyOrder((BuyOrder) order);
+		else stockExchange.placeSellOrder((SellOrder) order);
+	}
+
+	@Override
+	public void orderCancelled(
+			long sequence, boolean buy, long orderId, int stockId, int traderId,
+			int quantity, double price, boolean fixedPoint) {
+		Order order = orders.remove(orderId);
+		if (order != null) orderIds.remove(order);
+		else order = createOrder(buy, stockId, traderId, quantity, price, fixedPoint);
+		if (buy) stockExchange.cancelBuyOrder((BuyOrder) order);
+		else stockExchange.cancelSellOrder((SellOrder) order);
+	}
+
+	@Override
+	public void clearing(long sequence) {
+		stockExchange.doClearing();
+	}
+
+	/**
+	 * Forgets the orders which the replayed trade filled completely.
+	 */
+	@Override
+	public void tradeExecuted(
+			long sequence, long tick, int stockId, long buyOrderId, long sellOrderId,
+			int quantity, double price) {
+		forgetIfFilled(buyOrderId);
+		forgetIfFilled(sellOrderId);
+	}
+
+	private void forgetIfFilled(long orderId) {
+		Order order = orders.get(orderId);
+		if (order != null && order.getRemainingQuantity() == 0) {
+			orders.remove(orderId);
+			orderIds.remove(order);
+		}
+	}
+
+	private Order createOrder(boolean buy, int stockId, int traderId, int quantity, double price, boolean fixedPoint) {
+		return createOrder(buy, traderIds.get(traderId), stockIds.get(stockId), quantity, price, fixedPoint);
+	}
+
+	/**
+	 * @return a new limit order, priced in ticks of the stock if it was
+	 *         recorded so and the stock is a fixed point stock.
+	 */
+	static Order createOrder(boolean buy, Trader trader, Stock stock, int quantity, double price, boolean fixedPoint) {
+		if (fixedPoint && stock instanceof FixedPointStock) {
+			FixedPointStock fixedPointStock = (FixedPointStock) stock;
+			if (buy) return new FixedPointLimitBuyOrder(trader, fixedPointStock, quantity, price);
+			else return new FixedPointLimitSellOrder(trader, fixedPointStock, quantity, price);
+		}
+		if (buy) return new LimitBuyOrder(trader, stock, quantity, price);
+		else return new LimitSellOrder(trader, stock, quantity, price);
+	}
+
+	private static <T> void set(List<T> list, int index, T element) {
+		while (list.size() <= index) list.add(null);
+		list.set(index, element);
+	}
+
+}
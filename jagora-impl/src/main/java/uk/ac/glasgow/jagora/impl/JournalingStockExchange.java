@@ -0,0 +1,163 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.List;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Quote;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+
+/**
+ * Records every order placed on and cancelled from a stock exchange, and
+ * every clearing, in a journal before passing it on to the stock exchange,
+ * and records the trades the stock exchange makes. The stock exchange can be
+ * rebuilt by replaying the journal with a {@link JournalReplayer}, or by
+ * restoring a {@link Snapshot}, taken by a {@link SnapshotReplica}, and
+ * replaying only the records after it.
+ * <p>
+ * Each order is recorded and passed on while holding the ordering lock of
+ * its stock, so that the journal records each stock's orders in the order
+ * its market receives them even when they are placed from several threads.
+ * Stocks are spread over a fixed number of lock stripes when the stock
+ * exchange is a {@link ConcurrentStockExchange}, so orders for stocks on
+ * different stripes are recorded and matched at the same time, and only the
+ * short append to the journal is shared. Other stock exchanges are not
+ * thread safe and are given a single stripe. A clearing takes every stripe,
+ * in order, so it falls between the same records in the journal as it does
+ * on the stock exchange. Where one trader's orders for different stocks are
+ * settled at the same moment, a replay settles them in the order they were
+ * recorded.
+ * <p>
+ * The journal forgets the orders which the markets of a
+ * {@link DefaultStockExchange} or {@link ConcurrentStockExchange} remove,
+ * for example because they could not be funded. The journal cannot learn of
+ * the removals made by other stock exchanges, and forgets only cancelled and
+ * filled orders placed on them.
+ */
+public class JournalingStockExchange implements StockExchange {
+
+	private static final int STRIPES = 64;
+
+	private final StockExchange stockExchange;
+	private final Journal journal;
+	private final Object[] orderingLocks;
+
+	/**
+	 * @param stockExchange to which orders are passed on.
+	 * @param journal in which orders and trades are recorded.
+	 */
+	public JournalingStockExchange(StockExchange stockExchange, Journal journal) {
+		this.stockExchange = stockExchange;
+		this.journal = journal;
+		orderingLocks = new Object[stockExchange instanceof ConcurrentStockExchange ? STRIPES : 1];
+		for (int i = 0; i < orderingLocks.length; i++) orderingLocks[i] = new Object();
+		stockExchange.addTradeListener(journal);
+		if (stockExchange instanceof DefaultStockExchange)
+			((DefaultStockExchange) stockExchange).addOrderRemovalListener(journal);
+		else if (stockExchange instanceof ConcurrentStockExchange)
+			((ConcurrentStockExchange) stockExchange).addOrderRemovalListener(journal);
+	}
+
+	@Override
+	public void doClearing() {
+		withAllOrderingLocks(() -> {
+			journal.clearing();
+			stockExchange.doClearing();
+		});
+	}
+
+	@Override
+	public void addTradeListener(TradeListener tradeListener) {
+		stockExchange.addTradeListener(tradeListener);
+	}
+
+	@Override
+	public void placeBuyOrder(BuyOrder buyOrder) {
+		synchronized (orderingLock(buyOrder.getStock())) {
+			journal.placeBuyOrder(buyOrder);
+			stockExchange.placeBuyOrder(buyOrder);
+		}
+	}
+
+	@Override
+	public void placeSellOrder(SellOrder sellOrder) {
+		synchronized (orderingLock(sellOrder.getStock())) {
+			journal.placeSellOrder(sellOrder);
+			stockExchange.placeSellOrder(sellOrder);
+		}
+	}
+
+	@Override
+	public void cancelBuyOrder(BuyOrder buyOrder) {
+		synchronized (orderingLock(buyOrder.getStock())) {
+			journal.cancelBuyOrder(buyOrder);
+			stockExchange.cancelBuyOrder(buyOrder);
+		}
+	}
+
+	@Override
+	public void cancelSellOrder(SellOrder sellOrder) {
+		synchronized (orderingLock(sellOrder.getStock())) {
+			journal.cancelSellOrder(sellOrder);
+			stockExchange.cancelSellOrder(sellOrder);
+		}
+	}
+
+	@Override
+	public List<TickEvent<Trade>> getTradeHistory(Stock stock) {
+		return stockExchange.getTradeHistory(stock);
+	}
+
+	@Override
+	public Double getBestOffer(Stock stock) {
+		return stockExchange.getBestOffer(stock);
+	}
+
+	@Override
+	public Double getBestBid(Stock stock) {
+		return stockExchange.getBestBid(stock);
+	}
+
+	@Override
+	public Quote getQuote(Stock stock) {
+		return stockExchange.getQuote(stock);
+	}
+
+	/**
+	 * @return the lock ordering the orders for the specified stock.
+	 */
+	private Object orderingLock(Stock stock) {
+		int hash = stock.getName().hashCode();
+		return orderingLocks[(hash ^ (hash >>> 16)) & (orderingLocks.length - 1)];
+	}
+
+	/**
+	 * Runs the specified action while holding every ordering lock, taken in
+	 * order.
+	 */
+	private void withAllOrderingLocks(Runnable action) {
+		withOrderingLocksFrom(0, action);
+	}
+
+	private void withOrderingLocksFrom(int stripe, Runnable action) {
+		if (stripe == orderingLocks.length) {
+			action.run();
+			return;
+		}
+		synchronized (orderingLocks[stripe]) {
+			withOrderingLocksFrom(stripe + 1, action);
+		}
+	}
+
+	/**
+	 * @return the journal in which orders and trades are recorded.
+	 */
+	public Journal getJournal() {
+		return journal;
+	}
+
+}
@@ -6,7 +6,7 @@ public class LimitSellOrder implements SellOrder {
 
 	private Trader trader;
 	private Stock stock;
-	private Integer quantity;
+	private int quantity;
 	private Double price;
 	
 	public LimitSellOrder(Trader trader, Stock stock, Integer quantity, Double price) {
@@ -39,6 +39,11 @@ public class LimitSellOrder implements SellOrder {
 		return quantity;
 	}
 
+	@Override
+	public int getRemainingQuantityAsInt() {
+		return quantity;
+	}
+
 	/**
 	 * Attempts to make a trade.
 	 * @param tradeEvent to be attempted.
@@ -46,10 +51,23 @@ public class LimitSellOrder implements SellOrder {
      */
 	@Override
 	public void satisfyTrade(TickEvent<Trade> tradeEvent) throws TradeException {
-		Double tradePrice = tradeEvent.getEvent().getPrice();
-		Integer tradeQuantity = tradeEvent.getEvent().getQuantity();
-		trader.sellStock(tradeEvent.getEvent().getStock(), tradeQuantity, tradePrice);
-		quantity -= tradeQuantity;
+		SettlementResult result = trySatisfyTrade(tradeEvent);
+		if (result != SettlementResult.SETTLED) throw new TradeException(result.toString(), trader);
+	}
+
+	/**
+	 * Attempts to make a trade without throwing an exception on failure.
+	 * @param tradeEvent to be attempted.
+	 * @return the trader's settlement result; the remaining quantity is only
+	 *         reduced if the trade was settled.
+	 */
+	@Override
+	public SettlementResult trySatisfyTrade(TickEvent<Trade> tradeEvent) {
+		Trade trade = tradeEvent.getEvent();
+		int tradeQuantity = trade.getQuantityAsInt();
+		SettlementResult result = trader.trySellStock(trade.getStock(), tradeQuantity, trade.getPriceAsDouble());
+		if (result == SettlementResult.SETTLED) quantity -= tradeQuantity;
+		return result;
 	}
 
 	/**
@@ -59,18 +77,32 @@ public class LimitSellOrder implements SellOrder {
      */
 	@Override
 	public void rollBackTrade(TickEvent<Trade> tradeEvent) throws TradeException {
-		Double tradePrice = tradeEvent.getEvent().getPrice();
-		Integer tradeQuantity = tradeEvent.getEvent().getQuantity();
-		trader.buyStock(tradeEvent.getEvent().getStock(), tradeQuantity, tradePrice);
-		quantity += tradeQuantity;
+		SettlementResult result = tryRollBackTrade(tradeEvent);
+		if (result != SettlementResult.SETTLED) throw new TradeException(result.toString(), trader);
+	}
+
+	/**
+	 * Rolls back a previously initiated trade without throwing an exception
+	 * on failure.
+	 * @param tradeEvent to be rolled back.
+	 * @return the trader's settlement result; the remaining quantity is only
+	 *         restored if the roll back was settled.
+	 */
+	@Override
+	public SettlementResult tryRollBackTrade(TickEvent<Trade> tradeEvent) {
+		Trade trade = tradeEvent.getEvent();
+		int tradeQuantity = trade.getQuantityAsInt();
+		SettlementResult result = trader.tryBuyStock(trade.getStock(), tradeQuantity, trade.getPriceAsDouble());
+		if (result == SettlementResult.SETTLED) quantity += tradeQuantity;
+		return result;
 	}
 
 	@Override
 	public boolean equals(Object order) {
 		if(order instanceof Order) {
 			Order o = (Order) order;
-			if(o.getPrice() == null || price == null) return (o.getPrice() == price && o.getStock().getName().equals(stock.getName()) && o.getRemainingQuantity() == quantity);
-			return (o.getPrice().equals(price) && o.getStock().getName().equals(stock.getName()) && o.getRemainingQuantity() == quantity);
+			if(o.getPrice() == null || price == null) return (o.getPrice() == price && StockRegistry.isSameStock(o.getStock(), stock) && o.getRemainingQuantity() == quantity);
+			return (o.getPrice().equals(price) && StockRegistry.isSameStock(o.getStock(), stock) && o.getRemainingQuantity() == quantity);
 		}else return false;
 	}
 
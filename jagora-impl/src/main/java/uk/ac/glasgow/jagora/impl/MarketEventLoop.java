@@ -0,0 +1,431 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.DepthLevel;
+import uk.ac.glasgow.jagora.DepthListener;
+import uk.ac.glasgow.jagora.Market;
+import uk.ac.glasgow.jagora.Quote;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+
+/**
+ * Confines a market to a single dedicated thread, which applies commands taken
+ * from a ring buffer. Any number of threads may place and cancel orders:
+ * each command claims the next sequence number from an atomic counter, is
+ * written into the pre-allocated slot for that sequence and is then published
+ * by marking the slot available. No locks are taken on either side. The
+ * market thread applies every available command in one batch before
+ * releasing the slots for reuse, so the market itself can stay
+ * single threaded.
+ * <p>
+ * Every command has a sequence number, and commands are applied to the market
+ * in sequence order. Placing and cancelling orders return as soon as the
+ * command is published. Quotes, and the best bid and offer, are read from the
+ * quote most recently published by the market, without waiting; a thread
+ * that needs them to reflect its own commands can wait for them with
+ * {@link #awaitApplied(long)}. Clearing and copying the order books wait for
+ * their own commands to be applied. Trade listeners are called on the market
+ * thread.
+ * <p>
+ * Threads waiting for the market thread, and the market thread waiting for
+ * commands, pass the time according to the loop's {@link WaitStrategy}.
+ * Once the loop has been stopped, publishing a command throws an
+ * IllegalStateException.
+ */
+public class MarketEventLoop implements Market {
+
+	private static final int PLACE_BUY_ORDER = 0;
+	private static final int PLACE_SELL_ORDER = 1;
+	private static final int CANCEL_BUY_ORDER = 2;
+	private static final int CANCEL_SELL_ORDER = 3;
+	private static final int DO_CLEARING = 4;
+	private static final int ADD_TRADE_LISTENER = 5;
+	private static final int GET_BUY_ORDERS = 6;
+	private static final int GET_SELL_ORDERS = 7;
+	private static final int GET_BUY_DEPTH = 8;
+	private static final int GET_SELL_DEPTH = 9;
+	private static final int ADD_DEPTH_LISTENERS = 10;
+	private static final int STOP = 11;
+
+	private static final int YIELDS_BEFORE_PARKING = 1000;
+	private static final long PARK_NANOS = 50_000L;
+
+	private final Market market;
+	private final Command[] commands;
+	private final AtomicIntegerArray published;
+	private final int mask;
+	private final int indexShift;
+
+	private final AtomicLong claimed = new AtomicLong(-1);
+	private final AtomicLong applied = new AtomicLong(-1);
+
+	private final WaitStrategy waitStrategy;
+	private final Thread thread;
+	private volatile boolean stopped;
+	private volatile long failedCommands;
+
+	/**
+	 * Constructs an event loop for the specified market, with space for the
+	 * specified number of unapplied commands, whose threads yield and then
+	 * park briefly while they wait. The loop's thread is started by
+	 * {@link #start()}.
+	 * @param market to be confined to the loop's thread, which must not be used directly.
+	 * @param capacity of the ring buffer, which must be a power of two.
+	 */
+	public MarketEventLoop(Market market, int capacity) {
+		this(market, capacity, WaitStrategy.parking(YIELDS_BEFORE_PARKING, PARK_NANOS));
+	}
+
+	/**
+	 * Constructs an event loop for the specified market, with space for the
+	 * specified number of unapplied commands. The loop's thread is started by
+	 * {@link #start()}.
+	 * @param market to be confined to the loop's thread, which must not be used directly.
+	 * @param capacity of the ring buffer, which must be a power of two.
+	 * @param waitStrategy by which the market thread waits for commands, and
+	 *        other threads wait for the market thread.
+	 */
+	public MarketEventLoop(Market market, int capacity, WaitStrategy waitStrategy) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("Capacity must be a power of two.");
+		this.market = market;
+		this.commands = new Command[capacity];
+		for (int i = 0; i < capacity; i++) commands[i] = new Command();
+		this.published = new AtomicIntegerArray(capacity);
+		for (int i = 0; i < capacity; i++) published.set(i, -1);
+		this.mask = capacity - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(capacity);
+		this.waitStrategy = waitStrategy;
+		this.thread = new Thread(this::run, "market-" + market.getStock().getName());
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Constructs an event loop for the specified market with space for 1024
+	 * unapplied commands.
+	 * @param market to be confined to the loop's thread, which must not be used directly.
+	 */
+	public MarketEventLoop(Market market) {
+		this(market, 1024);
+	}
+
+	/**
+	 * Starts the market thread.
+	 * @return this event loop.
+	 */
+	public MarketEventLoop start() {
+		thread.start();
+		return this;
+	}
+
+	/**
+	 * Stops the market thread once every command published so far has been
+	 * applied, and waits for it to finish. Commands published after this
+	 * call are rejected.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public void stop() throws InterruptedException {
+		synchronized (thread) {
+			if (!stopped) {
+				stopped = true;
+				publish(STOP, null, null, claimed.incrementAndGet());
+			}
+		}
+		thread.join();
+	}
+
+	@Override
+	public Stock getStock() {
+		return market.getStock();
+	}
+
+	/**
+	 * Publishes a clearing command and waits for the market thread to apply it.
+	 * @return the trades made by the market during clearing.
+	 */
+	@Override
+	public List<TickEvent<Trade>> doClearing() {
+		return call(DO_CLEARING, null);
+	}
+
+	@Override
+	public void addTradeListener(TradeListener tradeListener) {
+		publish(ADD_TRADE_LISTENER, tradeListener, null);
+	}
+
+	@Override
+	public void placeBuyOrder(BuyOrder buyOrder) {
+		publish(PLACE_BUY_ORDER, buyOrder, null);
+	}
+
+	@Override
+	public void placeSellOrder(SellOrder sellOrder) {
+		publish(PLACE_SELL_ORDER, sellOrder, null);
+	}
+
+	@Override
+	public void cancelBuyOrder(BuyOrder buyOrder) {
+		publish(CANCEL_BUY_ORDER, buyOrder, null);
+	}
+
+	@Override
+	public void cancelSellOrder(SellOrder sellOrder) {
+		publish(CANCEL_SELL_ORDER, sellOrder, null);
+	}
+
+	/**
+	 * @return the best bid in the quote most recently published by the
+	 *         market thread, without waiting for commands still to be applied.
+	 */
+	@Override
+	public Double getBestBid() {
+		Quote quote = market.getQuote();
+		return quote.hasBid() ? quote.getBid() : null;
+	}
+
+	/**
+	 * @return the best offer in the quote most recently published by the
+	 *         market thread, without waiting for commands still to be applied.
+	 */
+	@Override
+	public Double getBestOffer() {
+		Quote quote = market.getQuote();
+		return quote.hasOffer() ? quote.getOffer() : null;
+	}
+
+	/**
+	 * @return the quote most recently published by the market thread, without
+	 *         waiting for commands still to be applied.
+	 */
+	@Override
+	public Quote getQuote() {
+		return market.getQuote();
+	}
+
+	/**
+	 * Publishes a command to copy the buy order book and waits for the market
+	 * thread to apply it.
+	 * @return the buy orders on the market once every command published
+	 *         before the call has been applied.
+	 */
+	@Override
+	public List<TickEvent<BuyOrder>> getBuyOrders() {
+		return call(GET_BUY_ORDERS, null);
+	}
+
+	/**
+	 * Publishes a command to copy the sell order book and waits for the market
+	 * thread to apply it.
+	 * @return the sell orders on the market once every command published
+	 *         before the call has been applied.
+	 */
+	@Override
+	public List<TickEvent<SellOrder>> getSellOrders() {
+		return call(GET_SELL_ORDERS, null);
+	}
+
+	/**
+	 * Publishes a command to read the buy order book's depth and waits for the
+	 * market thread to apply it.
+	 * @return the best levels of the buy order book once every command
+	 *         published before the call has been applied.
+	 */
+	@Override
+	public List<DepthLevel> getBuyDepth(int levels) {
+		return call(GET_BUY_DEPTH, levels);
+	}
+
+	/**
+	 * Publishes a command to read the sell order book's depth and waits for the
+	 * market thread to apply it.
+	 * @return the best levels of the sell order book once every command
+	 *         published before the call has been applied.
+	 */
+	@Override
+	public List<DepthLevel> getSellDepth(int levels) {
+		return call(GET_SELL_DEPTH, levels);
+	}
+
+	/**
+	 * Publishes a command to register the depth listeners, which are then
+	 * called on the market thread.
+	 */
+	@Override
+	public void addDepthListeners(DepthListener buyDepthListener, DepthListener sellDepthListener) {
+		publish(ADD_DEPTH_LISTENERS, new DepthListener[] {buyDepthListener, sellDepthListener}, null);
+	}
+
+	/**
+	 * @return the sequence number of the last command claimed by a producer.
+	 */
+	public long getPublishedSequence() {
+		return claimed.get();
+	}
+
+	/**
+	 * @return the sequence number of the last command applied to the market.
+	 */
+	public long getAppliedSequence() {
+		return applied.get();
+	}
+
+	/**
+	 * @return the number of commands whose application to the market threw an exception.
+	 */
+	public long getFailedCommands() {
+		return failedCommands;
+	}
+
+	/**
+	 * Waits until the command with the specified sequence number has been
+	 * applied to the market.
+	 * @param sequence of the command.
+	 */
+	public void awaitApplied(long sequence) {
+		int spins = 0;
+		while (applied.get() < sequence) {
+			spins = waitStrategy.idle(spins);
+		}
+	}
+
+	/**
+	 * Publishes a command with a result and waits for the market thread to
+	 * complete it.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T call(int type, Object subject) {
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		publish(type, subject, result);
+		return (T) result.join();
+	}
+
+	/**
+	 * Claims the next sequence number and publishes the command under it.
+	 * @return the sequence number of the command.
+	 * @throws IllegalStateException if the loop has been stopped.
+	 */
+	private long publish(int type, Object subject, CompletableFuture<Object> result) {
+		return publish(type, subject, result, claim());
+	}
+
+	/**
+	 * Claims the next sequence number unless the loop has been stopped. The
+	 * flag is read after the counter, and the stop command is claimed after
+	 * the flag is set, so a command can only be claimed after the stop
+	 * command by a thread that then sees the flag and gives up its claim.
+	 * @return the sequence number claimed.
+	 */
+	private long claim() {
+		while (true) {
+			long current = claimed.get();
+			if (stopped) throw new IllegalStateException(this + " has been stopped.");
+			if (claimed.compareAndSet(current, current + 1)) return current + 1;
+		}
+	}
+
+	/**
+	 * Waits for the slot of a claimed sequence number to be released by the
+	 * market thread, fills the slot and marks it available.
+	 * @return the sequence number of the command.
+	 */
+	private long publish(int type, Object subject, CompletableFuture<Object> result, long sequence) {
+		int spins = 0;
+		while (sequence - commands.length > applied.get()) {
+			spins = waitStrategy.idle(spins);
+		}
+		int index = (int) sequence & mask;
+		Command command = commands[index];
+		command.type = type;
+		command.subject = subject;
+		command.result = result;
+		published.lazySet(index, (int) (sequence >>> indexShift));
+		return sequence;
+	}
+
+	/**
+	 * Applies batches of available commands in sequence order until stopped.
+	 */
+	private void run() {
+		long next = 0;
+		int spins = 0;
+		boolean running = true;
+		while (running) {
+			long last = next - 1;
+			long limit = claimed.get();
+			while (last < limit && isPublished(last + 1)) last++;
+			if (last < next) {
+				spins = waitStrategy.idle(spins);
+				continue;
+			}
+			spins = 0;
+			for (long sequence = next; sequence <= last; sequence++) {
+				running &= apply(commands[(int) sequence & mask]);
+			}
+			applied.set(last);
+			next = last + 1;
+		}
+	}
+
+	private boolean isPublished(long sequence) {
+		return published.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+	}
+
+	/**
+	 * Applies a single command to the market and clears its slot.
+	 * @return false if the command stops the loop.
+	 */
+	private boolean apply(Command command) {
+		Object subject = command.subject;
+		CompletableFuture<Object> result = command.result;
+		command.subject = null;
+		command.result = null;
+		try {
+			switch (command.type) {
+				case PLACE_BUY_ORDER: market.placeBuyOrder((BuyOrder) subject); break;
+				case PLACE_SELL_ORDER: market.placeSellOrder((SellOrder) subject); break;
+				case CANCEL_BUY_ORDER: market.cancelBuyOrder((BuyOrder) subject); break;
+				case CANCEL_SELL_ORDER: market.cancelSellOrder((SellOrder) subject); break;
+				case DO_CLEARING: result.complete(market.doClearing()); break;
+				case ADD_TRADE_LISTENER: market.addTradeListener((TradeListener) subject); break;
+				case GET_BUY_ORDERS: result.complete(market.getBuyOrders()); break;
+				case GET_SELL_ORDERS: result.complete(market.getSellOrders()); break;
+				case GET_BUY_DEPTH: result.complete(market.getBuyDepth((Integer) subject)); break;
+				case GET_SELL_DEPTH: result.complete(market.getSellDepth((Integer) subject)); break;
+				case ADD_DEPTH_LISTENERS: {
+					DepthListener[] depthListeners = (DepthListener[]) subject;
+					market.addDepthListeners(depthListeners[0], depthListeners[1]);
+					break;
+				}
+				case STOP: return false;
+			}
+		}
+		catch (RuntimeException e) {
+			failedCommands++;
+			if (result != null) result.completeExceptionally(e);
+		}
+		return true;
+	}
+
+	/**
+	 * A pre-allocated slot in the ring buffer.
+	 */
+	private static class Command {
+		private int type;
+		private Object subject;
+		private CompletableFuture<Object> result;
+	}
+
+	@Override
+	public String toString() {
+		return "Event loop for " + market.getStock();
+	}
+
+}
@@ -0,0 +1,19 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.Market;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.World;
+
+/**
+ * Creates the market for a stock when it is first traded on a stock exchange.
+ */
+public interface MarketFactory {
+
+	/**
+	 * @param stock to be traded in the market.
+	 * @param world which controls the market's timing events.
+	 * @return a new market for the specified stock.
+	 */
+	public Market createMarket(Stock stock, World world);
+
+}
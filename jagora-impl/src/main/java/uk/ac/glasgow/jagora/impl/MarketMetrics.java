@@ -0,0 +1,164 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * Counts what a continuous order driven market does: its clearing rounds and
+ * how long they take, its trades, and the orders removed from its books and
+ * why. Counters are striped adders, so a market updating them while a
+ * monitoring thread reads them costs little more than an increment. The
+ * depth of each book is read from the books when asked for, without
+ * synchronising with the market, so it may be slightly out of date.
+ * <p>
+ * The metrics are a standard MBean and can be registered with an MBean
+ * server, as {@link DefaultStockExchange#registerMBeans} does for the
+ * markets it creates.
+ */
+public class MarketMetrics implements MarketMetricsMBean {
+
+	private final Stock stock;
+	private final PriceLevelOrderBook<?> buyBook;
+	private final PriceLevelOrderBook<?> sellBook;
+
+	private final LongAdder trades = new LongAdder();
+	private final LongAdder traderCancels = new LongAdder();
+	private final LongAdder filledCancels = new LongAdder();
+	private final LongAdder unfundedBuyerCancels = new LongAdder();
+	private final LongAdder unfundedSellerCancels = new LongAdder();
+	private final LongAdder settlementFailures = new LongAdder();
+	private final StripedHistogram tradesPerClearing = new StripedHistogram();
+	private final StripedHistogram clearingNanos = new StripedHistogram();
+
+	MarketMetrics(Stock stock, PriceLevelOrderBook<?> buyBook, PriceLevelOrderBook<?> sellBook) {
+		this.stock = stock;
+		this.buyBook = buyBook;
+		this.sellBook = sellBook;
+	}
+
+	void cleared(int trades, long nanos) {
+		tradesPerClearing.record(trades);
+		clearingNanos.record(nanos);
+	}
+
+	void traded() {
+		trades.increment();
+	}
+
+	void traderCancelled() {
+		traderCancels.increment();
+	}
+
+	void filled() {
+		filledCancels.increment();
+	}
+
+	void unfundedBuyer() {
+		unfundedBuyerCancels.increment();
+	}
+
+	void unfundedSeller() {
+		unfundedSellerCancels.increment();
+	}
+
+	void settlementFailed() {
+		settlementFailures.increment();
+	}
+
+	@Override
+	public String getStock() {
+		return stock.getName();
+	}
+
+	@Override
+	public long getClearings() {
+		return clearingNanos.getCount();
+	}
+
+	@Override
+	public long getTrades() {
+		return trades.sum();
+	}
+
+	@Override
+	public double getTradesPerClearingMean() {
+		return tradesPerClearing.getMean();
+	}
+
+	@Override
+	public long getTradesPerClearing99thPercentile() {
+		return tradesPerClearing.getValueAtPercentile(99.0);
+	}
+
+	@Override
+	public long getTradesPerClearingMax() {
+		return tradesPerClearing.getMax();
+	}
+
+	@Override
+	public double getClearingNanosMean() {
+		return clearingNanos.getMean();
+	}
+
+	@Override
+	public long getClearingNanos50thPercentile() {
+		return clearingNanos.getValueAtPercentile(50.0);
+	}
+
+	@Override
+	public long getClearingNanos99thPercentile() {
+		return clearingNanos.getValueAtPercentile(99.0);
+	}
+
+	@Override
+	public long getClearingNanosMax() {
+		return clearingNanos.getMax();
+	}
+
+	@Override
+	public int getBuyOrders() {
+		return buyBook.getOrderCount();
+	}
+
+	@Override
+	public int getSellOrders() {
+		return sellBook.getOrderCount();
+	}
+
+	@Override
+	public int getBuyPriceLevels() {
+		return buyBook.getLevelCount();
+	}
+
+	@Override
+	public int getSellPriceLevels() {
+		return sellBook.getLevelCount();
+	}
+
+	@Override
+	public long getTraderCancels() {
+		return traderCancels.sum();
+	}
+
+	@Override
+	public long getFilledCancels() {
+		return filledCancels.sum();
+	}
+
+	@Override
+	public long getUnfundedBuyerCancels() {
+		return unfundedBuyerCancels.sum();
+	}
+
+	@Override
+	public long getUnfundedSellerCancels() {
+		return unfundedSellerCancels.sum();
+	}
+
+	@Override
+	public long getSettlementFailures() {
+		return settlementFailures.sum();
+	}
+
+}
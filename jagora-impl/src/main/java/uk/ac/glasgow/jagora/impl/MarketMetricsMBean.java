@@ -0,0 +1,83 @@
+package uk.ac.glasgow.jagora.impl;
+
+/**
+ * The management interface of the metrics kept by a continuous order driven
+ * market. Durations are in nanoseconds.
+ */
+public interface MarketMetricsMBean {
+
+	/**
+	 * @return the name of the stock traded in the market.
+	 */
+	public String getStock();
+
+	/**
+	 * @return the number of clearing rounds performed.
+	 */
+	public long getClearings();
+
+	/**
+	 * @return the number of trades settled, on arrival of orders or in clearing.
+	 */
+	public long getTrades();
+
+	public double getTradesPerClearingMean();
+
+	public long getTradesPerClearing99thPercentile();
+
+	public long getTradesPerClearingMax();
+
+	public double getClearingNanosMean();
+
+	public long getClearingNanos50thPercentile();
+
+	public long getClearingNanos99thPercentile();
+
+	public long getClearingNanosMax();
+
+	/**
+	 * @return the number of orders resting on the buy order book.
+	 */
+	public int getBuyOrders();
+
+	/**
+	 * @return the number of orders resting on the sell order book.
+	 */
+	public int getSellOrders();
+
+	/**
+	 * @return the number of prices at which buy orders rest.
+	 */
+	public int getBuyPriceLevels();
+
+	/**
+	 * @return the number of prices at which sell orders rest.
+	 */
+	public int getSellPriceLevels();
+
+	/**
+	 * @return the number of orders cancelled by their traders.
+	 */
+	public long getTraderCancels();
+
+	/**
+	 * @return the number of orders removed because they were completely filled.
+	 */
+	public long getFilledCancels();
+
+	/**
+	 * @return the number of buy orders removed because the buyer could not pay.
+	 */
+	public long getUnfundedBuyerCancels();
+
+	/**
+	 * @return the number of sell orders removed because the seller could not deliver.
+	 */
+	public long getUnfundedSellerCancels();
+
+	/**
+	 * @return the number of matched trades which could not be settled.
+	 */
+	public long getSettlementFailures();
+
+}
@@ -0,0 +1,64 @@
+package uk.ac.glasgow.jagora.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * A flight recorder event timing the cancellation of an order by its trader
+ * on a continuous order driven market. As for placements, only
+ * cancellations taking longer than the threshold, by default 20
+ * microseconds, are recorded.
+ */
+@Name("uk.ac.glasgow.jagora.OrderCancelled")
+@Label("Order Cancelled")
+@Category({"Jagora", "Market"})
+@Description("An order cancelled by its trader")
+@Threshold("20 us")
+@StackTrace(false)
+final class OrderCancelledEvent extends Event {
+
+	@Label("Stock")
+	String stock;
+
+	@Label("Buy")
+	boolean buy;
+
+	@Label("Price")
+	double price;
+
+	@Label("Remaining Quantity")
+	int remainingQuantity;
+
+	@Label("Found")
+	@Description("Whether the order was resting on the book to be cancelled")
+	boolean found;
+
+	@Label("Book Depth")
+	@Description("The number of orders resting on the order's side of the market")
+	int bookDepth;
+
+	/**
+	 * Ends the timing of the cancellation and commits the event if it is to
+	 * be recorded; does nothing else otherwise.
+	 */
+	void finish(Stock stock, boolean buy, Order order, boolean found, int bookDepth) {
+		end();
+		if (!shouldCommit()) return;
+		this.stock = stock.getName();
+		this.buy = buy;
+		price = order.getPrice();
+		remainingQuantity = order.getRemainingQuantity();
+		this.found = found;
+		this.bookDepth = bookDepth;
+		commit();
+	}
+
+}
@@ -0,0 +1,39 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Checks whether the traders behind orders can still fund them, so that
+ * markets can cancel orders that would fail on settlement. Traders are read
+ * under their settlement locks, as other markets may be settling trades for
+ * them at the same time.
+ */
+final class OrderFunding {
+
+	private OrderFunding() {
+	}
+
+	/**
+	 * @return true if the seller holds enough stock to fill the sell order.
+	 */
+	static boolean canDeliver(SellOrder sellOrder) {
+		Trader seller = sellOrder.getTrader();
+		synchronized (TraderLocks.lockFor(seller)) {
+			return sellOrder.getRemainingQuantityAsInt() <= seller.getInventoryHoldingAsInt(sellOrder.getStock());
+		}
+	}
+
+	/**
+	 * @return true if the buyer holds enough cash to fill the buy order at its
+	 *         limit price.
+	 */
+	static boolean canPay(BuyOrder buyOrder) {
+		Trader buyer = buyOrder.getTrader();
+		synchronized (TraderLocks.lockFor(buyer)) {
+			return buyOrder.getPrice() * buyOrder.getRemainingQuantityAsInt() <= buyer.getCashAsDouble();
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package uk.ac.glasgow.jagora.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * A flight recorder event timing the placement of an order on a continuous
+ * order driven market, including any matching on arrival. Only placements
+ * taking longer than the threshold, by default 20 microseconds, are
+ * recorded, so a recording shows the slow placements without one event for
+ * every order. Call auction markets are not instrumented.
+ */
+@Name("uk.ac.glasgow.jagora.OrderPlaced")
+@Label("Order Placed")
+@Category({"Jagora", "Market"})
+@Description("An order placed on a market")
+@Threshold("20 us")
+@StackTrace(false)
+final class OrderPlacedEvent extends Event {
+
+	@Label("Stock")
+	String stock;
+
+	@Label("Buy")
+	boolean buy;
+
+	@Label("Price")
+	double price;
+
+	@Label("Quantity")
+	int quantity;
+
+	@Label("Accepted")
+	@Description("False if the market's risk engine rejected the order")
+	boolean accepted;
+
+	@Label("Remaining Quantity")
+	@Description("The quantity left unfilled by matching on arrival")
+	int remainingQuantity;
+
+	@Label("Book Depth")
+	@Description("The number of orders resting on the order's side of the market")
+	int bookDepth;
+
+	/**
+	 * Ends the timing of the placement and commits the event if it is to be
+	 * recorded; does nothing else otherwise.
+	 * @param quantity of the order before it was matched on arrival.
+	 * @param accepted false if the order was rejected by a risk engine.
+	 */
+	void finish(Stock stock, boolean buy, Order order, int quantity, boolean accepted, int bookDepth) {
+		end();
+		if (!shouldCommit()) return;
+		this.stock = stock.getName();
+		this.buy = buy;
+		price = order.getPrice();
+		this.quantity = quantity;
+		this.accepted = accepted;
+		remainingQuantity = order.getRemainingQuantity();
+		this.bookDepth = bookDepth;
+		commit();
+	}
+
+}
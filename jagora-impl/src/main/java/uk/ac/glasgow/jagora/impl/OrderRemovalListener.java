@@ -0,0 +1,19 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.Order;
+
+/**
+ * Receives the orders a market no longer holds: those cancelled by their
+ * traders, filled, or dropped by the market because they could not be
+ * funded, as well as placed orders the market never recorded because they
+ * were rejected or filled on arrival. Listeners are notified synchronously on
+ * the thread that removed the order.
+ */
+public interface OrderRemovalListener {
+
+	/**
+	 * @param order which is no longer held by the market.
+	 */
+	public void orderRemoved(Order order);
+
+}
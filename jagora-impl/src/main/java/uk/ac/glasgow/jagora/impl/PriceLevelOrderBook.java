@@ -0,0 +1,389 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import uk.ac.glasgow.jagora.DepthLevel;
+import uk.ac.glasgow.jagora.DepthListener;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.OrderBook;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.World;
+
+/**
+ * Provides an order book that groups orders into price levels. Levels are kept
+ * in a sorted map ordered by the compareTo() method of the orders, and each
+ * level holds its orders in a first in, first out queue in the order that they
+ * were received. Recording an order at an existing level and finding the best
+ * order do not depend on the number of orders in the book.
+ * <p>
+ * Every recorded order is indexed by identity to its position in the book, so
+ * cancelling an order that was recorded here only unlinks it from its level.
+ * <p>
+ * Each level keeps the total quantity and number of its orders as orders are
+ * recorded, cancelled and, when the market reports them through
+ * {@link #filled(Order)}, partly filled. The depth of the book is read from
+ * the first few levels without visiting their orders, and every change to a
+ * level is passed on to the book's depth listeners.
+ */
+public class PriceLevelOrderBook<O extends Order & Comparable<O>> implements OrderBook<O> {
+
+	private final NavigableMap<O, PriceLevel> levels;
+	private final Map<O, Node> index;
+	private PriceLevel bestLevel;
+	private long lastTick = -1;
+	private final List<DepthListener> depthListeners = new ArrayList<>();
+	private World world;
+
+	/**
+	 * Constructs a new instance of the order book synchronized to the ticks of the specified world.
+	 * @param world which controls this order book's timing events.
+	 */
+	public PriceLevelOrderBook(World world) {
+		this.levels = new TreeMap<>();
+		this.index = new IdentityHashMap<>();
+		this.world = world;
+	}
+
+	/**
+	 * Adds an order to the back of the queue for its price level, creating
+	 * the level if it does not yet exist.
+	 * @param order to be recorded.
+     */
+	@Override
+	public void recordOrder(O order) {
+		recordOrder(order, null);
+	}
+
+	/**
+	 * Records an order as for {@link #recordOrder(Order)}, keeping with it
+	 * the reservation made for it by a risk engine.
+	 * @param order to be recorded.
+	 * @param reservation made for the order, or null if it has none.
+	 */
+	void recordOrder(O order, ReservationRiskEngine.Reservation reservation) {
+		PriceLevel level = levels.get(order);
+		if (level == null) {
+			level = new PriceLevel(order);
+			levels.put(order, level);
+			if (bestLevel == null || levels.firstKey() == level.key) {
+				bestLevel = level;
+			}
+		}
+		Node node = new Node(world.createTickEvent(order), level, reservation);
+		lastTick = node.tickEvent.getTick();
+		level.append(node);
+		index.putIfAbsent(order, node);
+		levelChanged(level);
+	}
+
+	/**
+	 * Removes an order from its price level. An order instance recorded in
+	 * this book is found through the order index; any other order falls back
+	 * to removing the earliest equal order at the same price level. The level
+	 * is discarded once it holds no more orders.
+	 * @param order to be cancelled.
+	 * @return the removed order, or null if no matching order was recorded.
+     */
+	@Override
+	public O cancelOrder(O order) {
+		return cancelOrder(order, null);
+	}
+
+	/**
+	 * Removes an order as for {@link #cancelOrder(Order)}, releasing what
+	 * remains of the reservation recorded with it.
+	 * @param order to be cancelled.
+	 * @param riskEngine which made the reservations recorded in this book,
+	 *        or null if they have none.
+	 * @return the removed order, or null if no matching order was recorded.
+	 */
+	O cancelOrder(O order, ReservationRiskEngine riskEngine) {
+		Node node = index.get(order);
+		if (node == null) {
+			PriceLevel level = levels.get(order);
+			if (level == null) return null;
+			node = level.find(order);
+			if (node == null) return null;
+		}
+		remove(node);
+		if (node.reservation != null) riskEngine.cancelled(node.reservation);
+		return node.tickEvent.getEvent();
+	}
+
+	/**
+	 * Best order is the earliest order received at the best price level.
+	 * @return the best order in the order book.
+     */
+	@Override
+	public O getBestOrder() {
+		if (bestLevel == null) {
+			return null;
+		}
+		else {
+			return bestLevel.head.tickEvent.getEvent();
+		}
+	}
+
+	/**
+	 * @return a list of the orders in the order book, sorted by price level
+	 *         and then by time received.
+     */
+	@Override
+	public List<TickEvent<O>> getOrdersAsList() {
+		List<TickEvent<O>> orders = new ArrayList<>(index.size());
+		for (PriceLevel level : levels.values()) {
+			for (Node node = level.head; node != null; node = node.next) {
+				orders.add(node.tickEvent);
+			}
+		}
+		return orders;
+	}
+
+	/**
+	 * @param levels the maximum number of price levels to return.
+	 * @return the best price levels, read from the totals kept by each level,
+	 *         or an empty list if no levels are asked for. Adjacent levels at
+	 *         the same price, which orders that compare by more than price can
+	 *         create, are reported as one.
+	 */
+	@Override
+	public List<DepthLevel> getDepth(int levels) {
+		if (levels <= 0 || this.levels.isEmpty()) return Collections.emptyList();
+		List<DepthLevel> depth = new ArrayList<>(Math.min(levels, this.levels.size()));
+		double price = Double.NaN;
+		int quantity = 0;
+		int count = 0;
+		for (PriceLevel level : this.levels.values()) {
+			double levelPrice = level.key.getPrice();
+			if (count > 0 && levelPrice != price) {
+				depth.add(new DefaultDepthLevel(price, quantity, count));
+				if (depth.size() == levels) return depth;
+				quantity = 0;
+				count = 0;
+			}
+			price = levelPrice;
+			quantity += level.quantity;
+			count += level.count;
+		}
+		depth.add(new DefaultDepthLevel(price, quantity, count));
+		return depth;
+	}
+
+	@Override
+	public void addDepthListener(DepthListener depthListener) {
+		depthListeners.add(depthListener);
+	}
+
+	/**
+	 * Updates the quantity held for an order recorded in this book after
+	 * part of it has been filled.
+	 * @param order which has traded.
+	 */
+	void filled(O order) {
+		Node node = index.get(order);
+		if (node == null) return;
+		int quantity = order.getRemainingQuantityAsInt();
+		if (quantity == node.quantity) return;
+		node.level.quantity += quantity - node.quantity;
+		node.quantity = quantity;
+		levelChanged(node.level);
+	}
+
+	/**
+	 * @return the reservation recorded with the best order, or null if the
+	 *         book is empty or the best order has none.
+	 */
+	ReservationRiskEngine.Reservation getBestReservation() {
+		return bestLevel == null ? null : bestLevel.head.reservation;
+	}
+
+	/**
+	 * @param order to be found.
+	 * @return true if this order instance is recorded in this book.
+	 */
+	boolean contains(O order) {
+		return index.containsKey(order);
+	}
+
+	/**
+	 * @return the quantity remaining on the orders at the best price level.
+	 */
+	int getBestQuantity() {
+		return bestLevel == null ? 0 : bestLevel.quantity;
+	}
+
+	/**
+	 * @return the tick at which the latest order was recorded, or -1 if none has been.
+	 */
+	long getLastTick() {
+		return lastTick;
+	}
+
+	/**
+	 * @return the number of orders in the order book.
+	 */
+	int getOrderCount() {
+		return index.size();
+	}
+
+	/**
+	 * @return the number of price levels in the order book.
+	 */
+	int getLevelCount() {
+		return levels.size();
+	}
+
+	/**
+	 * Copies the price of each level, from best to worst, with the total
+	 * quantity of the orders at or better than that level. Adjacent levels at
+	 * the same price are copied as one.
+	 * @param prices to receive the price of each level.
+	 * @param cumulative to receive the quantity at or better than each level.
+	 * @return the number of levels copied; the arrays must be at least as
+	 *         long as the number of price levels in the book.
+	 */
+	int cumulativeLevels(double[] prices, long[] cumulative) {
+		int copied = 0;
+		long total = 0;
+		for (PriceLevel level : levels.values()) {
+			double price = level.key.getPrice();
+			total += level.quantity;
+			if (copied == 0 || prices[copied - 1] != price) {
+				prices[copied++] = price;
+			}
+			cumulative[copied - 1] = total;
+		}
+		return copied;
+	}
+
+	/**
+	 * Removes every order matching the specified condition, walking the
+	 * levels in place rather than copying the book.
+	 * @param condition which orders to be removed satisfy.
+	 * @return the removed orders, from best to worst.
+	 */
+	List<O> removeIf(Predicate<? super O> condition) {
+		List<O> removed = new ArrayList<>();
+		Iterator<PriceLevel> iterator = levels.values().iterator();
+		while (iterator.hasNext()) {
+			PriceLevel level = iterator.next();
+			Node node = level.head;
+			while (node != null) {
+				Node next = node.next;
+				O order = node.tickEvent.getEvent();
+				if (condition.test(order)) {
+					unlink(node);
+					removed.add(order);
+				}
+				node = next;
+			}
+			if (level.head == null) iterator.remove();
+		}
+		if (!removed.isEmpty()) {
+			Map.Entry<O, PriceLevel> first = levels.firstEntry();
+			bestLevel = first == null ? null : first.getValue();
+		}
+		return removed;
+	}
+
+	private void remove(Node node) {
+		unlink(node);
+		PriceLevel level = node.level;
+		if (level.head == null) {
+			levels.remove(level.key);
+			if (level == bestLevel) bestLevel = levels.isEmpty() ? null : levels.get(levels.firstKey());
+		}
+	}
+
+	private void unlink(Node node) {
+		O order = node.tickEvent.getEvent();
+		if (index.get(order) == node) {
+			index.remove(order);
+		}
+		node.level.unlink(node);
+		levelChanged(node.level);
+	}
+
+	private void levelChanged(PriceLevel level) {
+		if (depthListeners.isEmpty()) return;
+		double price = level.key.getPrice();
+		for (DepthListener depthListener : depthListeners) {
+			depthListener.levelChanged(price, level.quantity, level.count);
+		}
+	}
+
+	/**
+	 * Holds the orders recorded at a single price as a doubly linked list,
+	 * earliest first, with their total quantity and number.
+	 */
+	private class PriceLevel {
+		private final O key;
+		private Node head;
+		private Node tail;
+		private int quantity;
+		private int count;
+
+		private PriceLevel(O key) {
+			this.key = key;
+		}
+
+		private void append(Node node) {
+			quantity += node.quantity;
+			count++;
+			if (tail == null) {
+				head = node;
+			}
+			else {
+				tail.next = node;
+				node.previous = tail;
+			}
+			tail = node;
+		}
+
+		private void unlink(Node node) {
+			quantity -= node.quantity;
+			count--;
+			if (node.previous == null) head = node.next;
+			else node.previous.next = node.next;
+			if (node.next == null) tail = node.previous;
+			else node.next.previous = node.previous;
+			node.previous = null;
+			node.next = null;
+		}
+
+		private Node find(O order) {
+			for (Node node = head; node != null; node = node.next) {
+				if (node.tickEvent.getEvent().equals(order)) return node;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Records the position of a single order within its price level, the
+	 * quantity remaining on the order when it was recorded or last filled,
+	 * and any reservation made for it.
+	 */
+	private class Node {
+		private final TickEvent<O> tickEvent;
+		private final PriceLevel level;
+		private final ReservationRiskEngine.Reservation reservation;
+		private int quantity;
+		private Node previous;
+		private Node next;
+
+		private Node(TickEvent<O> tickEvent, PriceLevel level, ReservationRiskEngine.Reservation reservation) {
+			this.tickEvent = tickEvent;
+			this.level = level;
+			this.reservation = reservation;
+			this.quantity = tickEvent.getEvent().getRemainingQuantityAsInt();
+		}
+	}
+
+	@Override
+	public String toString (){
+		return getOrdersAsList().toString();
+	}
+
+}
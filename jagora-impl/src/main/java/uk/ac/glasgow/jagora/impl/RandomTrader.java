@@ -29,18 +29,34 @@ import uk.ac.glasgow.jagora.*;
 public class RandomTrader implements Trader {
 
     private String name;
-    private Double cash;
-    private HashMap<Stock, Integer> inventory = new HashMap<>();
+    private final AccountLedger ledger;
+    private final int account;
     private Integer maxTradeQuantity;
     private Double priceRange;
     private Random random;
 
+    /**
+     * Constructs a new random trader whose account is held in a ledger of its own.
+     */
     public RandomTrader(
             String name, Double cash, Stock stock, Integer quantity,
+            Integer maxTradeQuantity, double priceRange, Random random) {
+        this(new AccountLedger(), name, cash, stock, quantity, maxTradeQuantity, priceRange, random);
+    }
+
+    /**
+     * Constructs a new random trader whose account is held in the specified
+     * ledger, which may be shared with other traders.
+     */
+    public RandomTrader(
+            AccountLedger ledger, String name, Double cash, Stock stock, Integer quantity,
             Integer maxTradeQuantity, double priceRange, Random random) {
 		this.name = name;
-        this.cash = cash;
-        this.inventory.put(stock, quantity);
+        this.ledger = ledger;
+        this.account = ledger.openAccount(cash);
+        synchronized (TraderLocks.lockFor(this)) {
+            ledger.setPosition(account, ledger.getStockId(stock), quantity);
+        }
         this.maxTradeQuantity = maxTradeQuantity;
         this.priceRange = priceRange;
         this.random = random;
@@ -51,38 +67,59 @@ public class RandomTrader implements Trader {
         return name;
     }
 
+    /**
+     * @return the number of this trader's account in its ledger.
+     */
+    public int getAccount() {
+        return account;
+    }
+
     @Override
     public Double getCash() {
-        return cash;
+        return FixedPoint.toCash(ledger.getCash(account));
+    }
+
+    @Override
+    public double getCashAsDouble() {
+        return FixedPoint.toCash(ledger.getCash(account));
     }
 
     @Override
     public void sellStock(Stock stock, Integer quantity, Double price) throws TradeException {
-        if (inventory.containsKey(stock)) {
-            int amount = inventory.get(stock);
-            if (amount - quantity >= 0) {
-                cash += quantity * price;
-                inventory.replace(stock, amount - quantity);
-            } else throw new TradeException("Seller not enough stock.", this);
-        } else throw new TradeException("Seller not enough stock.", this);
+        if (quantity <= 0) throw new TradeException("Quantity must be positive.", this);
+        if (trySellStock(stock, quantity, price) != SettlementResult.SETTLED)
+            throw new TradeException("Seller not enough stock.", this);
     }
 
     @Override
-    public void buyStock(Stock stock, Integer quantity, Double price)
-            throws TradeException {
-        if (cash - (quantity * price) >= 0) {
-            cash -= quantity * price;
-            if (inventory.containsKey(stock)) {
-                inventory.replace(stock, inventory.get(stock) + quantity);
-            } else inventory.put(stock, quantity);
-        } else throw new TradeException("Buyer not enough cash.", this);
+    public SettlementResult trySellStock(Stock stock, int quantity, double price) {
+        synchronized (TraderLocks.lockFor(this)) {
+            return ledger.sell(account, ledger.getStockId(stock), quantity, FixedPoint.toCashUnits(quantity, price));
+        }
+    }
 
+    @Override
+    public void buyStock(Stock stock, Integer quantity, Double price) throws TradeException {
+        if (quantity <= 0) throw new TradeException("Quantity must be positive.", this);
+        if (tryBuyStock(stock, quantity, price) != SettlementResult.SETTLED)
+            throw new TradeException("Buyer not enough cash.", this);
+    }
+
+    @Override
+    public SettlementResult tryBuyStock(Stock stock, int quantity, double price) {
+        synchronized (TraderLocks.lockFor(this)) {
+            return ledger.buy(account, ledger.getStockId(stock), quantity, FixedPoint.toCashUnits(quantity, price));
+        }
     }
 
     @Override
     public Integer getInventoryHolding(Stock stock) {
-        if (inventory.containsKey(stock)) return inventory.get(stock);
-        return 0;
+        return ledger.getPosition(account, ledger.getStockId(stock));
+    }
+
+    @Override
+    public int getInventoryHoldingAsInt(Stock stock) {
+        return ledger.getPosition(account, ledger.getStockId(stock));
     }
 
     @Override
@@ -91,16 +128,21 @@ public class RandomTrader implements Trader {
         double price = (random.nextDouble() - 0.5) * priceRange;
         int quantity = random.nextInt(maxTradeQuantity - 1) + 1;
 
-        List<Stock> keys = new ArrayList<>(inventory.keySet());
+        List<Stock> keys = new ArrayList<>(getTradingStocks());
         Stock stock = keys.get(random.nextInt(keys.size()));
 
+        Quote quote = stockExchange.getQuote(stock);
+        if (quote == null) return;
+
         if (buy) {
-            price += stockExchange.getBestBid(stock);
+            if (!quote.hasBid()) return;
+            price += quote.getBid();
             BuyOrder buyOrder = new LimitBuyOrder(this, stock, quantity, price);
             stockExchange.placeBuyOrder(buyOrder);
         }
         else {
-            price += stockExchange.getBestOffer(stock);
+            if (!quote.hasOffer()) return;
+            price += quote.getOffer();
             SellOrder sellOrder = new LimitSellOrder(this, stock, quantity, price);
             stockExchange.placeSellOrder(sellOrder);
         }
@@ -109,8 +151,7 @@ public class RandomTrader implements Trader {
 
     @Override
     public Set<Stock> getTradingStocks() {
-        Set<Stock> stockSet = inventory.keySet();
-        return stockSet;
+        return ledger.getStocks(account);
     }
 
 }
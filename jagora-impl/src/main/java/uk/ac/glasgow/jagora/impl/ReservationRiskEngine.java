@@ -0,0 +1,190 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Performs pre-trade risk checks by reserving the resources an order needs at
+ * the moment it is placed. A buy order reserves its limit price multiplied by
+ * its quantity from the buyer's cash, priced as settlement prices trades (see
+ * {@link FixedPoint#toCashUnits(int, double)}); a sell order reserves its quantity from
+ * the seller's holding of the stock. An order is rejected if the trader's
+ * unreserved cash or stock cannot cover it. Reservations are released as the
+ * order is filled or when it is cancelled, so every order resting on a market
+ * that uses this engine can always be settled.
+ * <p>
+ * Each reservation is returned to the market placing the order, which keeps
+ * it with the order on its book, so the engine holds no table of orders and
+ * a market finds out whether an order is funded without asking the engine.
+ * <p>
+ * A single engine should be shared by all the markets on which the same
+ * traders place orders, since cash is reserved across stocks. The amounts
+ * reserved for a trader are changed while holding the trader's lock (see
+ * {@link TraderLocks}), and the engine's own lock is only taken to find a
+ * trader's account when an order is placed, so markets sharing the engine
+ * may be cleared in parallel without waiting for each other.
+ */
+public class ReservationRiskEngine {
+
+	private final Map<Trader, Account> accounts = new IdentityHashMap<>();
+
+	/**
+	 * Reserves cash for the specified buy order.
+	 * @param buyOrder to be placed.
+	 * @return the reservation made if the buyer's unreserved cash covers the
+	 *         order; or null if the order should be rejected.
+	 */
+	public Reservation reserve(BuyOrder buyOrder) {
+		Trader trader = buyOrder.getTrader();
+		Account account = getAccount(trader);
+		long unitPrice = FixedPoint.toCashUnits(buyOrder.getPrice());
+		int quantity = buyOrder.getRemainingQuantityAsInt();
+		long cost = FixedPoint.toCashUnits(quantity, buyOrder.getPrice());
+
+		synchronized (account.lock) {
+			long cash = FixedPoint.toCashUnits(trader.getCashAsDouble());
+			if (cash - account.reservedCash < cost) return null;
+			account.reservedCash += cost;
+		}
+		return new Reservation(account, null, quantity, unitPrice);
+	}
+
+	/**
+	 * Reserves stock for the specified sell order.
+	 * @param sellOrder to be placed.
+	 * @return the reservation made if the seller's unreserved holding covers
+	 *         the order; or null if the order should be rejected.
+	 */
+	public Reservation reserve(SellOrder sellOrder) {
+		Trader trader = sellOrder.getTrader();
+		Stock stock = sellOrder.getStock();
+		Account account = getAccount(trader);
+		int quantity = sellOrder.getRemainingQuantityAsInt();
+
+		synchronized (account.lock) {
+			int reserved = account.getReservedStock(stock);
+			if (trader.getInventoryHoldingAsInt(stock) - reserved < quantity) return null;
+			account.reservedStock.put(stock, reserved + quantity);
+		}
+		return new Reservation(account, stock, quantity, 0L);
+	}
+
+	/**
+	 * Releases the part of a reservation covering a quantity that has just
+	 * been filled.
+	 * @param reservation made for the order that was filled.
+	 * @param quantity of stock units filled.
+	 */
+	public void filled(Reservation reservation, int quantity) {
+		synchronized (reservation.account.lock) {
+			release(reservation, Math.min(quantity, reservation.quantity));
+		}
+	}
+
+	/**
+	 * Releases whatever remains of the reservation for a cancelled order.
+	 * @param reservation made for the order that was cancelled.
+	 */
+	public void cancelled(Reservation reservation) {
+		synchronized (reservation.account.lock) {
+			release(reservation, reservation.quantity);
+		}
+	}
+
+	/**
+	 * @param trader
+	 * @return the cash currently reserved for the trader's resting buy orders.
+	 */
+	public Double getReservedCash(Trader trader) {
+		Account account = findAccount(trader);
+		if (account == null) return 0.0;
+		synchronized (account.lock) {
+			return FixedPoint.toCash(account.reservedCash);
+		}
+	}
+
+	/**
+	 * @param trader
+	 * @param stock
+	 * @return the quantity of the stock currently reserved for the trader's
+	 *         resting sell orders.
+	 */
+	public Integer getReservedStock(Trader trader, Stock stock) {
+		Account account = findAccount(trader);
+		if (account == null) return 0;
+		synchronized (account.lock) {
+			return account.getReservedStock(stock);
+		}
+	}
+
+	private static void release(Reservation reservation, int quantity) {
+		if (quantity == 0) return;
+		Account account = reservation.account;
+		if (reservation.stock == null) {
+			account.reservedCash -= reservation.unitPrice * quantity;
+		}
+		else {
+			Stock stock = reservation.stock;
+			account.reservedStock.put(stock, account.getReservedStock(stock) - quantity);
+		}
+		reservation.quantity -= quantity;
+	}
+
+	private synchronized Account findAccount(Trader trader) {
+		return accounts.get(trader);
+	}
+
+	private synchronized Account getAccount(Trader trader) {
+		Account account = accounts.get(trader);
+		if (account == null) {
+			account = new Account(TraderLocks.lockFor(trader));
+			accounts.put(trader, account);
+		}
+		return account;
+	}
+
+	/**
+	 * Totals the cash (in minor units) and stock reserved for a single trader,
+	 * guarded by the trader's lock.
+	 */
+	private static class Account {
+		private final Object lock;
+		private long reservedCash;
+		private final Map<Stock, Integer> reservedStock = new HashMap<>();
+
+		private Account(Object lock) {
+			this.lock = lock;
+		}
+
+		private int getReservedStock(Stock stock) {
+			Integer reserved = reservedStock.get(stock);
+			return reserved == null ? 0 : reserved;
+		}
+	}
+
+	/**
+	 * Records the quantity still reserved for a single order: for a buy
+	 * order, together with the cash reserved per unit (in minor units); for
+	 * a sell order, together with the stock reserved.
+	 */
+	public static final class Reservation {
+		private final Account account;
+		private final Stock stock;
+		private final long unitPrice;
+		private int quantity;
+
+		private Reservation(Account account, Stock stock, int quantity, long unitPrice) {
+			this.account = account;
+			this.stock = stock;
+			this.quantity = quantity;
+			this.unitPrice = unitPrice;
+		}
+	}
+
+}
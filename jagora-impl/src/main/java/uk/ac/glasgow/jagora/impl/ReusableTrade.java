@@ -0,0 +1,112 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.SettlementResult;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeException;
+
+/**
+ * Provides a trade that also acts as its own tick event, so that a single
+ * instance can be reset and executed for every trade made by a market. Orders
+ * and traders must not keep a reference to the tick event passed to them, as
+ * its contents change with the next trade. Orders read the trade through its
+ * primitive accessors, so settling it boxes neither its quantity nor its
+ * price.
+ */
+class ReusableTrade implements Trade, TickEvent<Trade> {
+
+	private BuyOrder buyOrder;
+	private SellOrder sellOrder;
+	private Stock stock;
+	private int quantity;
+	private double price;
+	private long tick;
+
+	void reset(long tick, BuyOrder buyOrder, SellOrder sellOrder, Stock stock, int quantity, double price) {
+		this.tick = tick;
+		this.buyOrder = buyOrder;
+		this.sellOrder = sellOrder;
+		this.stock = stock;
+		this.quantity = quantity;
+		this.price = price;
+	}
+
+	@Override
+	public Stock getStock() {
+		return stock;
+	}
+
+	@Override
+	public Integer getQuantity() {
+		return quantity;
+	}
+
+	@Override
+	public Double getPrice() {
+		return price;
+	}
+
+	@Override
+	public int getQuantityAsInt() {
+		return quantity;
+	}
+
+	@Override
+	public double getPriceAsDouble() {
+		return price;
+	}
+
+	/**
+	 * Applies the current trade to its buy and sell orders.
+	 * @return this trade, as the tick event for its execution.
+	 * @throws TradeException if either order cannot be satisfied.
+	 */
+	@Override
+	public TickEvent<Trade> execute() throws TradeException {
+		SettlementResult result = settle(this);
+		if (result != SettlementResult.SETTLED) throw DefaultTrade.failure(result, buyOrder, sellOrder);
+		return this;
+	}
+
+	@Override
+	public BuyOrder getBuyOrder() {
+		return buyOrder;
+	}
+
+	@Override
+	public SellOrder getSellOrder() {
+		return sellOrder;
+	}
+
+	/**
+	 * Applies the current trade to its buy and sell orders, as for
+	 * {@link DefaultTrade#settle(TickEvent)}.
+	 */
+	@Override
+	public SettlementResult settle(TickEvent<Trade> tradeEvent) {
+		return DefaultTrade.settleLocked(buyOrder, sellOrder, tradeEvent);
+	}
+
+	@Override
+	public Trade getEvent() {
+		return this;
+	}
+
+	@Override
+	public Long getTick() {
+		return tick;
+	}
+
+	@Override
+	public int compareTo(TickEvent<Trade> tickEvent) {
+		return Long.compare(tick, tickEvent.getTick());
+	}
+
+	@Override
+	public String toString() {
+		return "Tick: " + tick + "\nEvent: " + stock + " " + quantity + " @ " + price;
+	}
+}
@@ -0,0 +1,188 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Runs a simulation in rounds. In each round every trader is asked to speak
+ * once, all at the same time on separate threads, and the round ends when
+ * every trader has finished. The stock exchange is cleared after a set number
+ * of rounds, on the simulation's own thread, so that clearing never runs
+ * alongside traders placing orders. The simulation stops after a set number
+ * of rounds, or earlier once a stop condition holds at the end of a round.
+ * <p>
+ * Traders speak on virtual threads where the Java runtime has them (Java 21
+ * and later), so that hundreds of thousands of traders can speak at once.
+ * On older runtimes, such as Java 17, they speak on a fixed pool of one
+ * platform thread per available processor, so only that many traders speak
+ * at a time, and a trader that blocks while speaking holds a pool thread
+ * and delays the traders queued behind it. Since traders speak
+ * concurrently, the stock exchange must accept orders from several threads,
+ * as {@link ConcurrentStockExchange} does, and the order in which traders'
+ * orders arrive within a round is not fixed.
+ * <p>
+ * Each trader speaks through a view of the stock exchange that is open only
+ * for the round's window of opportunity: from the start of the round until
+ * the speak deadline passes or the trader returns. Every trader in a round
+ * shares the same deadline, so a trader queued behind others on the pool
+ * has less of its window left, rather than a later deadline. Orders placed
+ * or cancelled outside the window are dropped and counted as late orders. A
+ * trader is not interrupted when its deadline passes, so a trader that never
+ * returns still holds up the end of its round.
+ */
+public class Simulation {
+
+	private final StockExchange stockExchange;
+	private final List<Trader> traders;
+	private final LongAdder lateOrders = new LongAdder();
+
+	private ExecutorService executor;
+	private int rounds = 1;
+	private int clearingInterval = 1;
+	private long speakDeadline;
+	private BooleanSupplier stopCondition;
+	// Written before each round's speeches are submitted, which publishes it
+	// to the threads they run on.
+	private long roundDeadline;
+
+	/**
+	 * @param stockExchange on which the traders speak.
+	 * @param traders who speak in each round.
+	 */
+	public Simulation(StockExchange stockExchange, Collection<? extends Trader> traders) {
+		this.stockExchange = stockExchange;
+		this.traders = new ArrayList<>(traders);
+	}
+
+	/**
+	 * @param rounds the most rounds to run.
+	 */
+	public void setRounds(int rounds) {
+		this.rounds = rounds;
+	}
+
+	/**
+	 * @param clearingInterval the number of rounds between clearings of the
+	 *            stock exchange, or zero to never clear it.
+	 */
+	public void setClearingInterval(int clearingInterval) {
+		this.clearingInterval = clearingInterval;
+	}
+
+	/**
+	 * @param speakDeadline how long after the start of each round the
+	 *            traders' windows stay open, or zero for each window to stay
+	 *            open until its trader returns.
+	 * @param unit of the deadline.
+	 */
+	public void setSpeakDeadline(long speakDeadline, TimeUnit unit) {
+		this.speakDeadline = unit.toNanos(speakDeadline);
+	}
+
+	/**
+	 * @param stopCondition checked at the end of each round, after any
+	 *            clearing; the simulation stops once it is true.
+	 */
+	public void setStopCondition(BooleanSupplier stopCondition) {
+		this.stopCondition = stopCondition;
+	}
+
+	/**
+	 * Selects the executor on which traders speak, in place of virtual
+	 * threads or the default pool. The executor is not shut down by the
+	 * simulation.
+	 * @param executor on which traders speak.
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @return the number of orders and cancellations dropped because they
+	 *         were made outside a speak's window.
+	 */
+	public long getLateOrders() {
+		return lateOrders.sum();
+	}
+
+	/**
+	 * Runs rounds until the set number have been run or the stop condition
+	 * holds. If the running thread is interrupted, the simulation stops after
+	 * the round in progress.
+	 * @return the number of rounds run.
+	 * @throws IllegalStateException if a trader throws an exception while speaking.
+	 */
+	public int run() {
+		ExecutorService executor = this.executor != null ? this.executor : createExecutor();
+		List<Callable<Void>> speeches = new ArrayList<>(traders.size());
+		for (Trader trader : traders) {
+			speeches.add(() -> {
+				speak(trader);
+				return null;
+			});
+		}
+
+		int round = 0;
+		try {
+			while (round < rounds) {
+				roundDeadline = speakDeadline > 0 ? System.nanoTime() + speakDeadline : Long.MAX_VALUE;
+				for (Future<Void> speech : executor.invokeAll(speeches)) speech.get();
+				round++;
+				if (clearingInterval > 0 && round % clearingInterval == 0) stockExchange.doClearing();
+				if (stopCondition != null && stopCondition.getAsBoolean()) break;
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("A trader failed while speaking in round " + (round + 1) + ".", e.getCause());
+		}
+		finally {
+			if (this.executor == null) executor.shutdown();
+		}
+		return round;
+	}
+
+	private void speak(Trader trader) {
+		SpeakWindow window = new SpeakWindow(stockExchange, roundDeadline, lateOrders);
+		try {
+			trader.speak(window);
+		}
+		finally {
+			window.close();
+		}
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread for each speak if the
+	 * runtime supports them, which is looked up reflectively so that the
+	 * simulation still runs on older runtimes, and otherwise a pool of daemon
+	 * threads, one per processor.
+	 */
+	static ExecutorService createExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "simulation");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+}
@@ -0,0 +1,334 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.FixedPointOrder;
+import uk.ac.glasgow.jagora.Market;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Holds a copy of the orders resting on a stock exchange's markets and of the
+ * traders' accounts, as they were after a given journal record. Restoring a
+ * snapshot and then replaying the journal records after it rebuilds the
+ * stock exchange without replaying the whole journal.
+ * <p>
+ * A snapshot is taken by a {@link SnapshotReplica}, from a copy of the stock
+ * exchange rebuilt from its journal, so matching on the journaled stock
+ * exchange never pauses while the books and accounts are copied into the
+ * snapshot's arrays. Orders are held in the order they would be matched, so
+ * placing them again in that order keeps their priority. Cash is held in
+ * minor units, as the traders' ledgers hold it.
+ */
+public class Snapshot {
+
+	private static final int MAGIC = 0x4A534E50;
+	private static final int VERSION = 2;
+
+	private final long sequence;
+	private final List<Book> books;
+	private final List<Account> accounts;
+
+	private Snapshot(long sequence, List<Book> books, List<Account> accounts) {
+		this.sequence = sequence;
+		this.books = books;
+		this.accounts = accounts;
+	}
+
+	/**
+	 * Copies the resting orders of the specified markets and the accounts of
+	 * the specified traders. The caller must ensure that no orders are placed,
+	 * cancelled or matched while the copy is made.
+	 * @param sequence of the last journal record reflected in the markets.
+	 * @param markets whose orders are copied.
+	 * @param traders whose accounts are copied.
+	 * @param orderIds gives the journal id of an order, or -1 if it has none.
+	 * @return the snapshot.
+	 */
+	static Snapshot capture(
+			long sequence, Collection<Market> markets, Collection<? extends Trader> traders,
+			ToLongFunction<Order> orderIds) {
+		List<Book> books = new ArrayList<>(markets.size() * 2);
+		for (Market market : markets) {
+			books.add(Book.capture(market.getStock().getName(), true, market.getBuyOrders(), orderIds));
+			books.add(Book.capture(market.getStock().getName(), false, market.getSellOrders(), orderIds));
+		}
+		List<Account> accounts = new ArrayList<>(traders.size());
+		for (Trader trader : traders) {
+			accounts.add(Account.capture(trader));
+		}
+		return new Snapshot(sequence, books, accounts);
+	}
+
+	/**
+	 * @return the sequence number of the last journal record reflected in the snapshot.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return the number of resting orders in the snapshot.
+	 */
+	public int getOrderCount() {
+		int count = 0;
+		for (Book book : books) count += book.orderIds.length;
+		return count;
+	}
+
+	/**
+	 * Creates a default trader for each account in the snapshot, holding the
+	 * account's cash and stock.
+	 * @param ledger in which the traders' accounts are opened.
+	 * @param stocks finds the stock with a recorded name.
+	 * @return the traders by name.
+	 */
+	public Map<String, Trader> restoreTraders(AccountLedger ledger, Function<String, Stock> stocks) {
+		Map<String, Trader> traders = new HashMap<>();
+		for (Account account : accounts) {
+			Map<Stock, Integer> inventory = new HashMap<>();
+			for (int i = 0; i < account.stocks.length; i++) {
+				inventory.put(stocks.apply(account.stocks[i]), account.quantities[i]);
+			}
+			DefaultTrader trader = new DefaultTrader(ledger, account.name, 0.0, inventory);
+			trader.setCashUnits(account.cash);
+			traders.put(account.name, trader);
+		}
+		return traders;
+	}
+
+	/**
+	 * Places the resting orders in the snapshot on a stock exchange, in the
+	 * order they would have been matched.
+	 * @param stockExchange on which the orders are placed.
+	 * @param traders finds the trader with a recorded name.
+	 * @param stocks finds the stock with a recorded name.
+	 * @return the orders placed which had journal ids, by id.
+	 */
+	public Map<Long, Order> restoreOrders(
+			StockExchange stockExchange, Function<String, Trader> traders, Function<String, Stock> stocks) {
+		Map<Long, Order> orders = new HashMap<>();
+		for (Book book : books) {
+			Stock stock = stocks.apply(book.stock);
+			for (int i = 0; i < book.orderIds.length; i++) {
+				Order order = JournalReplayer.createOrder(
+					book.buy, traders.apply(book.traders[i]), stock,
+					book.quantities[i], book.prices[i], book.fixedPoint[i]);
+				if (book.buy) stockExchange.placeBuyOrder((BuyOrder) order);
+				else stockExchange.placeSellOrder((SellOrder) order);
+				if (book.orderIds[i] >= 0) orders.put(book.orderIds[i], order);
+			}
+		}
+		return orders;
+	}
+
+	/**
+	 * Writes the snapshot to a file, replacing it only once the whole snapshot
+	 * has been written. The snapshot is forced to disk before it is renamed
+	 * into place, and the rename is forced to disk afterwards, so that after
+	 * a crash the file holds either the old snapshot or the whole new one.
+	 * @param file to hold the snapshot.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public void write(Path file) throws IOException {
+		Path partial = file.resolveSibling(file.getFileName() + ".partial");
+		try (FileChannel channel = FileChannel.open(
+				partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(sequence);
+			out.writeInt(books.size());
+			for (Book book : books) book.write(out);
+			out.writeInt(accounts.size());
+			for (Account account : accounts) account.write(out);
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		forceDirectory(file.toAbsolutePath().getParent());
+	}
+
+	/**
+	 * Forces a directory's entries to disk, where the platform allows a
+	 * directory to be opened; it does not on Windows, which needs no such
+	 * step for a rename to last.
+	 */
+	private static void forceDirectory(Path directory) throws IOException {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+		catch (AccessDeniedException e) {
+			// directories cannot be opened on this platform.
+		}
+	}
+
+	/**
+	 * @param file holding a snapshot.
+	 * @return the snapshot read from the file.
+	 * @throws IOException if the file cannot be read or is not a snapshot.
+	 */
+	public static Snapshot read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException(file + " is not a snapshot.");
+			long sequence = in.readLong();
+			int bookCount = in.readInt();
+			List<Book> books = new ArrayList<>(bookCount);
+			for (int i = 0; i < bookCount; i++) books.add(Book.read(in));
+			int accountCount = in.readInt();
+			List<Account> accounts = new ArrayList<>(accountCount);
+			for (int i = 0; i < accountCount; i++) accounts.add(Account.read(in));
+			return new Snapshot(sequence, books, accounts);
+		}
+	}
+
+	/**
+	 * The resting orders on one side of a market, held in columns.
+	 */
+	private static class Book {
+		private final String stock;
+		private final boolean buy;
+		private final long[] orderIds;
+		private final String[] traders;
+		private final int[] quantities;
+		private final double[] prices;
+		private final boolean[] fixedPoint;
+
+		private Book(String stock, boolean buy, int size) {
+			this.stock = stock;
+			this.buy = buy;
+			orderIds = new long[size];
+			traders = new String[size];
+			quantities = new int[size];
+			prices = new double[size];
+			fixedPoint = new boolean[size];
+		}
+
+		private static Book capture(
+				String stock, boolean buy, List<? extends TickEvent<? extends Order>> orders,
+				ToLongFunction<Order> orderIds) {
+			Book book = new Book(stock, buy, orders.size());
+			for (int i = 0; i < orders.size(); i++) {
+				Order order = orders.get(i).getEvent();
+				book.orderIds[i] = orderIds.applyAsLong(order);
+				book.traders[i] = order.getTrader().getName();
+				book.quantities[i] = order.getRemainingQuantity();
+				book.prices[i] = order.getPrice();
+				book.fixedPoint[i] = order instanceof FixedPointOrder;
+			}
+			return book;
+		}
+
+		/**
+		 * Writes the book, naming each trader only the first time in a row
+		 * that it appears.
+		 */
+		private void write(DataOutputStream out) throws IOException {
+			out.writeUTF(stock);
+			out.writeBoolean(buy);
+			out.writeInt(orderIds.length);
+			String trader = null;
+			for (int i = 0; i < orderIds.length; i++) {
+				out.writeLong(orderIds[i]);
+				if (traders[i].equals(trader)) out.writeBoolean(false);
+				else {
+					trader = traders[i];
+					out.writeBoolean(true);
+					out.writeUTF(trader);
+				}
+				out.writeInt(quantities[i]);
+				out.writeDouble(prices[i]);
+				out.writeBoolean(fixedPoint[i]);
+			}
+		}
+
+		private static Book read(DataInputStream in) throws IOException {
+			String stock = in.readUTF();
+			boolean buy = in.readBoolean();
+			Book book = new Book(stock, buy, in.readInt());
+			String trader = null;
+			for (int i = 0; i < book.orderIds.length; i++) {
+				book.orderIds[i] = in.readLong();
+				if (in.readBoolean()) trader = in.readUTF();
+				book.traders[i] = trader;
+				book.quantities[i] = in.readInt();
+				book.prices[i] = in.readDouble();
+				book.fixedPoint[i] = in.readBoolean();
+			}
+			return book;
+		}
+	}
+
+	/**
+	 * The cash and stock held by one trader.
+	 */
+	private static class Account {
+		private final String name;
+		private final long cash;
+		private final String[] stocks;
+		private final int[] quantities;
+
+		private Account(String name, long cash, int size) {
+			this.name = name;
+			this.cash = cash;
+			stocks = new String[size];
+			quantities = new int[size];
+		}
+
+		private static Account capture(Trader trader) {
+			List<Stock> tradingStocks = new ArrayList<>(trader.getTradingStocks());
+			long cash = trader instanceof DefaultTrader
+				? ((DefaultTrader) trader).getCashUnits()
+				: FixedPoint.toCashUnits(trader.getCash());
+			Account account = new Account(trader.getName(), cash, tradingStocks.size());
+			for (int i = 0; i < tradingStocks.size(); i++) {
+				account.stocks[i] = tradingStocks.get(i).getName();
+				account.quantities[i] = trader.getInventoryHolding(tradingStocks.get(i));
+			}
+			return account;
+		}
+
+		private void write(DataOutputStream out) throws IOException {
+			out.writeUTF(name);
+			out.writeLong(cash);
+			out.writeInt(stocks.length);
+			for (int i = 0; i < stocks.length; i++) {
+				out.writeUTF(stocks[i]);
+				out.writeInt(quantities[i]);
+			}
+		}
+
+		private static Account read(DataInputStream in) throws IOException {
+			Account account = new Account(in.readUTF(), in.readLong(), in.readInt());
+			for (int i = 0; i < account.stocks.length; i++) {
+				account.stocks[i] = in.readUTF();
+				account.quantities[i] = in.readInt();
+			}
+			return account;
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Keeps a copy of a journaled stock exchange, by replaying the journal on a
+ * stock exchange and traders of its own, and takes snapshots of the copy.
+ * Each snapshot first replays the records written since the last one and
+ * then copies the replica's books and accounts, which all reflect the same
+ * last record. The journaled stock exchange is never held back, so the
+ * snapshots can be taken on a background thread while trading continues.
+ * <p>
+ * The journal is read as it is being written. A record is only read once
+ * its length, which is written last, has been written and its checksum
+ * matches, so a record still being written is left for the next snapshot.
+ */
+public class SnapshotReplica {
+
+	private final Path directory;
+	private final DefaultStockExchange stockExchange;
+	private final Collection<? extends Trader> traders;
+	private final JournalReplayer replayer;
+	private long sequence;
+
+	/**
+	 * @param directory holding the journal.
+	 * @param stockExchange on which the journal is replayed, with the same
+	 *        kind of markets as the journaled stock exchange.
+	 * @param traders of the replica, holding the cash and stock the journaled
+	 *        traders held when the journal was started.
+	 * @param traderLookup finds the replica's trader with a recorded name and
+	 *        account number.
+	 * @param stocks finds the stock with a recorded name.
+	 */
+	public SnapshotReplica(
+			Path directory, DefaultStockExchange stockExchange, Collection<? extends Trader> traders,
+			BiFunction<String, Integer, Trader> traderLookup, Function<String, Stock> stocks) {
+		this.directory = directory;
+		this.stockExchange = stockExchange;
+		this.traders = traders;
+		replayer = new JournalReplayer(traderLookup, stocks);
+	}
+
+	/**
+	 * Replays the records written to the journal since the last snapshot and
+	 * copies the replica's resting orders and accounts.
+	 * @return the snapshot.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	public synchronized Snapshot takeSnapshot() throws IOException {
+		sequence = replayer.replay(directory, stockExchange, sequence);
+		return Snapshot.capture(sequence, stockExchange.getMarkets(), traders, replayer::getOrderId);
+	}
+
+	/**
+	 * @return the sequence number of the last journal record replayed.
+	 */
+	public synchronized long getSequence() {
+		return sequence;
+	}
+
+}
@@ -0,0 +1,108 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Quote;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+
+/**
+ * The view of a stock exchange given to a trader for a single speak. Orders
+ * and cancellations are passed on to the stock exchange until the window
+ * closes, which happens when the deadline passes or when the speak returns,
+ * whichever is first; after that they are dropped and counted as late, so a
+ * trader cannot act outside its window by working slowly or by keeping the
+ * view for later. A trader may read the stock exchange at any time, but may
+ * never clear it.
+ * <p>
+ * The window is checked before each order is passed on, without holding it
+ * open while the stock exchange handles the order, so an order checked just
+ * before the deadline may reach the stock exchange just after it. The
+ * deadline is a best-effort cut-off, not a guarantee.
+ */
+final class SpeakWindow implements StockExchange {
+
+	private final StockExchange stockExchange;
+	private final long deadline;
+	private final LongAdder lateOrders;
+	private volatile boolean closed;
+
+	/**
+	 * @param stockExchange to which orders are passed on.
+	 * @param deadline in {@link System#nanoTime()} terms, or
+	 *            {@link Long#MAX_VALUE} for a window open until closed.
+	 * @param lateOrders counts the orders and cancellations dropped.
+	 */
+	SpeakWindow(StockExchange stockExchange, long deadline, LongAdder lateOrders) {
+		this.stockExchange = stockExchange;
+		this.deadline = deadline;
+		this.lateOrders = lateOrders;
+	}
+
+	void close() {
+		closed = true;
+	}
+
+	private boolean isOpen() {
+		if (!closed && (deadline == Long.MAX_VALUE || System.nanoTime() - deadline < 0)) return true;
+		lateOrders.increment();
+		return false;
+	}
+
+	@Override
+	public void doClearing() {
+		// traders do not clear the stock exchange.
+	}
+
+	@Override
+	public void addTradeListener(TradeListener tradeListener) {
+		stockExchange.addTradeListener(tradeListener);
+	}
+
+	@Override
+	public void placeBuyOrder(BuyOrder buyOrder) {
+		if (isOpen()) stockExchange.placeBuyOrder(buyOrder);
+	}
+
+	@Override
+	public void placeSellOrder(SellOrder sellOrder) {
+		if (isOpen()) stockExchange.placeSellOrder(sellOrder);
+	}
+
+	@Override
+	public void cancelBuyOrder(BuyOrder buyOrder) {
+		if (isOpen()) stockExchange.cancelBuyOrder(buyOrder);
+	}
+
+	@Override
+	public void cancelSellOrder(SellOrder sellOrder) {
+		if (isOpen()) stockExchange.cancelSellOrder(sellOrder);
+	}
+
+	@Override
+	public List<TickEvent<Trade>> getTradeHistory(Stock stock) {
+		return stockExchange.getTradeHistory(stock);
+	}
+
+	@Override
+	public Double getBestOffer(Stock stock) {
+		return stockExchange.getBestOffer(stock);
+	}
+
+	@Override
+	public Double getBestBid(Stock stock) {
+		return stockExchange.getBestBid(stock);
+	}
+
+	@Override
+	public Quote getQuote(Stock stock) {
+		return stockExchange.getQuote(stock);
+	}
+
+}
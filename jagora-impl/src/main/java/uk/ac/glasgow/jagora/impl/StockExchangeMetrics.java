@@ -0,0 +1,98 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the orders, cancellations, trades and clearings passing through a
+ * default stock exchange, and how long each clearing of all its markets
+ * takes. Counters are striped adders, so that they can be updated by traders
+ * placing orders from several threads without contending on a shared
+ * counter. The metrics of each market are kept by the market itself.
+ */
+public class StockExchangeMetrics implements StockExchangeMetricsMBean {
+
+	private final LongAdder markets = new LongAdder();
+	private final LongAdder buyOrdersPlaced = new LongAdder();
+	private final LongAdder sellOrdersPlaced = new LongAdder();
+	private final LongAdder cancels = new LongAdder();
+	private final LongAdder trades = new LongAdder();
+	private final StripedHistogram clearingNanos = new StripedHistogram();
+
+	StockExchangeMetrics() {
+	}
+
+	void marketCreated() {
+		markets.increment();
+	}
+
+	void buyOrderPlaced() {
+		buyOrdersPlaced.increment();
+	}
+
+	void sellOrderPlaced() {
+		sellOrdersPlaced.increment();
+	}
+
+	void cancelled() {
+		cancels.increment();
+	}
+
+	void traded() {
+		trades.increment();
+	}
+
+	void cleared(long nanos) {
+		clearingNanos.record(nanos);
+	}
+
+	@Override
+	public long getMarkets() {
+		return markets.sum();
+	}
+
+	@Override
+	public long getBuyOrdersPlaced() {
+		return buyOrdersPlaced.sum();
+	}
+
+	@Override
+	public long getSellOrdersPlaced() {
+		return sellOrdersPlaced.sum();
+	}
+
+	@Override
+	public long getCancels() {
+		return cancels.sum();
+	}
+
+	@Override
+	public long getTrades() {
+		return trades.sum();
+	}
+
+	@Override
+	public long getClearings() {
+		return clearingNanos.getCount();
+	}
+
+	@Override
+	public double getClearingNanosMean() {
+		return clearingNanos.getMean();
+	}
+
+	@Override
+	public long getClearingNanos50thPercentile() {
+		return clearingNanos.getValueAtPercentile(50.0);
+	}
+
+	@Override
+	public long getClearingNanos99thPercentile() {
+		return clearingNanos.getValueAtPercentile(99.0);
+	}
+
+	@Override
+	public long getClearingNanosMax() {
+		return clearingNanos.getMax();
+	}
+
+}
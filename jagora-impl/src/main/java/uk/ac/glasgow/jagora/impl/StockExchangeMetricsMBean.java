@@ -0,0 +1,38 @@
+package uk.ac.glasgow.jagora.impl;
+
+/**
+ * The management interface of the metrics kept by a default stock exchange.
+ * Durations are in nanoseconds.
+ */
+public interface StockExchangeMetricsMBean {
+
+	/**
+	 * @return the number of markets created in the stock exchange.
+	 */
+	public long getMarkets();
+
+	public long getBuyOrdersPlaced();
+
+	public long getSellOrdersPlaced();
+
+	public long getCancels();
+
+	/**
+	 * @return the number of trades made on all the markets.
+	 */
+	public long getTrades();
+
+	/**
+	 * @return the number of times every market was cleared.
+	 */
+	public long getClearings();
+
+	public double getClearingNanosMean();
+
+	public long getClearingNanos50thPercentile();
+
+	public long getClearingNanos99thPercentile();
+
+	public long getClearingNanosMax();
+
+}
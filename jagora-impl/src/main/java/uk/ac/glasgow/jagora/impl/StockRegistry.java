@@ -0,0 +1,109 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * Interns stocks by name and gives each distinct stock a dense integer id,
+ * starting from zero in the order the stocks are registered. The first stock
+ * registered under a name becomes the canonical instance for that name, so
+ * equal-named stock objects share one id, and state kept per stock can be
+ * held in arrays indexed by id rather than in hash maps.
+ * <p>
+ * A {@link DefaultStock} remembers the id each registry gave it, for the
+ * first few registries to register it, so finding the id of a default stock
+ * registered here does not involve hashing its name, whichever registry saw
+ * the stock first. Stocks may be looked up from any thread.
+ */
+public class StockRegistry {
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile Stock[] stocks = new Stock[16];
+	private volatile int size;
+
+	/**
+	 * Registers a stock under its name, unless a stock of the same name is
+	 * already registered.
+	 * @param stock to be registered.
+	 * @return the id of the stock's name.
+	 */
+	public int register(Stock stock) {
+		if (stock instanceof DefaultStock) {
+			DefaultStock defaultStock = (DefaultStock) stock;
+			int id = defaultStock.getId(this);
+			if (id >= 0) return id;
+			id = lookUp(stock);
+			if (id < 0) id = add(stock);
+			defaultStock.register(this, id);
+			return id;
+		}
+		int id = lookUp(stock);
+		if (id >= 0) return id;
+		return add(stock);
+	}
+
+	/**
+	 * @param stock to be interned.
+	 * @return the canonical instance of the stock, registering it if its name is new.
+	 */
+	public Stock intern(Stock stock) {
+		return stocks[register(stock)];
+	}
+
+	/**
+	 * @param stock to be found.
+	 * @return the id of the stock's name, or -1 if no stock of that name is registered.
+	 */
+	public int getId(Stock stock) {
+		if (stock instanceof DefaultStock) {
+			int id = ((DefaultStock) stock).getId(this);
+			if (id >= 0) return id;
+		}
+		return lookUp(stock);
+	}
+
+	private int lookUp(Stock stock) {
+		Integer id = ids.get(stock.getName());
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @param id of a registered stock.
+	 * @return the canonical stock with the specified id.
+	 */
+	public Stock getStock(int id) {
+		if (id < 0 || id >= size) throw new IndexOutOfBoundsException("No stock with id " + id + ".");
+		return stocks[id];
+	}
+
+	/**
+	 * @return the number of stocks registered.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private synchronized int add(Stock stock) {
+		Integer existing = ids.get(stock.getName());
+		if (existing != null) return existing;
+		int id = size;
+		if (id == stocks.length) stocks = Arrays.copyOf(stocks, id * 2);
+		stocks[id] = stock;
+		size = id + 1;
+		ids.put(stock.getName(), id);
+		return id;
+	}
+
+	/**
+	 * Determines whether two stocks are the same stock, comparing references
+	 * before names.
+	 * @return true if the stocks are identical or have the same name.
+	 */
+	public static boolean isSameStock(Stock stock, Stock other) {
+		return stock == other || stock.getName().equals(other.getName());
+	}
+
+}
@@ -0,0 +1,72 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts recorded values in power of two buckets held in striped adders, so
+ * that threads recording at once, such as markets clearing in parallel, do
+ * not contend on a shared counter. Percentiles are only as precise as the
+ * buckets, which is enough to see a clearing slow from microseconds to
+ * milliseconds; they are reported as the top of the bucket they fall in, so
+ * they never understate a value. Reading the histogram while values are
+ * being recorded may see some of the latest values and not others.
+ */
+final class StripedHistogram {
+
+	private final LongAdder[] buckets = new LongAdder[64];
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+	StripedHistogram() {
+		for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * @param value to be counted; negative values are counted as zero.
+	 */
+	void record(long value) {
+		if (value < 0) value = 0;
+		buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets) count += bucket.sum();
+		return count;
+	}
+
+	long getMax() {
+		return max.get();
+	}
+
+	double getMean() {
+		long count = getCount();
+		return count == 0 ? 0.0 : (double) sum.sum() / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100.
+	 * @return the top of the bucket holding the specified percentile, or zero
+	 *         if nothing has been recorded.
+	 */
+	long getValueAtPercentile(double percentile) {
+		long[] counts = new long[buckets.length];
+		long count = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			counts[i] = buckets[i].sum();
+			count += counts[i];
+		}
+		if (count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) return Math.min(i == 0 ? 0 : (1L << i) - 1, getMax());
+		}
+		return getMax();
+	}
+
+}
@@ -0,0 +1,120 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.List;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.DepthLevel;
+import uk.ac.glasgow.jagora.DepthListener;
+import uk.ac.glasgow.jagora.Market;
+import uk.ac.glasgow.jagora.Quote;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+
+/**
+ * Makes a market safe to use from several threads by performing every
+ * operation on the market while holding this market's lock. Orders for
+ * different stocks are placed on different markets, so threads only wait for
+ * each other when they trade the same stock. Quotes are read without the
+ * lock. Trade listeners are notified
+ * while the lock is held.
+ */
+public class SynchronizedMarket implements Market {
+
+	private final Market market;
+
+	/**
+	 * Wraps the specified market.
+	 * @param market to be synchronized, which must not be used directly.
+	 */
+	public SynchronizedMarket(Market market) {
+		this.market = market;
+	}
+
+	@Override
+	public Stock getStock() {
+		return market.getStock();
+	}
+
+	@Override
+	public synchronized List<TickEvent<Trade>> doClearing() {
+		return market.doClearing();
+	}
+
+	@Override
+	public synchronized void addTradeListener(TradeListener tradeListener) {
+		market.addTradeListener(tradeListener);
+	}
+
+	@Override
+	public synchronized void placeBuyOrder(BuyOrder buyOrder) {
+		market.placeBuyOrder(buyOrder);
+	}
+
+	@Override
+	public synchronized void placeSellOrder(SellOrder sellOrder) {
+		market.placeSellOrder(sellOrder);
+	}
+
+	@Override
+	public synchronized void cancelBuyOrder(BuyOrder buyOrder) {
+		market.cancelBuyOrder(buyOrder);
+	}
+
+	@Override
+	public synchronized void cancelSellOrder(SellOrder sellOrder) {
+		market.cancelSellOrder(sellOrder);
+	}
+
+	@Override
+	public synchronized Double getBestBid() {
+		return market.getBestBid();
+	}
+
+	@Override
+	public synchronized Double getBestOffer() {
+		return market.getBestOffer();
+	}
+
+	/**
+	 * @return the latest quote published by the market, read without taking
+	 *         this market's lock.
+	 */
+	@Override
+	public Quote getQuote() {
+		return market.getQuote();
+	}
+
+	@Override
+	public synchronized List<TickEvent<BuyOrder>> getBuyOrders() {
+		return market.getBuyOrders();
+	}
+
+	@Override
+	public synchronized List<TickEvent<SellOrder>> getSellOrders() {
+		return market.getSellOrders();
+	}
+
+	@Override
+	public synchronized List<DepthLevel> getBuyDepth(int levels) {
+		return market.getBuyDepth(levels);
+	}
+
+	@Override
+	public synchronized List<DepthLevel> getSellDepth(int levels) {
+		return market.getSellDepth(levels);
+	}
+
+	@Override
+	public synchronized void addDepthListeners(DepthListener buyDepthListener, DepthListener sellDepthListener) {
+		market.addDepthListeners(buyDepthListener, sellDepthListener);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return market.toString();
+	}
+
+}
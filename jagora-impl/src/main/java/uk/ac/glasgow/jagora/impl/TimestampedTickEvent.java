@@ -0,0 +1,23 @@
+package uk.ac.glasgow.jagora.impl;
+
+/**
+ * Provides a tick event that also records the wall clock time at which it was
+ * created.
+ */
+public class TimestampedTickEvent<T> extends DefaultTickEvent<T> {
+
+	private final long timestamp;
+
+	public TimestampedTickEvent(T event, Long tick, long timestamp) {
+		super(event, tick);
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * @return the time the event was created, in nanoseconds since the epoch.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+}
@@ -0,0 +1,65 @@
+package uk.ac.glasgow.jagora.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * A flight recorder event marking a trade settled by a continuous order
+ * driven market. A busy market makes many trades, so the event is disabled
+ * unless a recording enables it, and no event object is created for a trade
+ * while it is disabled.
+ */
+@Name("uk.ac.glasgow.jagora.TradeExecuted")
+@Label("Trade Executed")
+@Category({"Jagora", "Market"})
+@Description("A trade settled by a market")
+@Enabled(false)
+@StackTrace(false)
+final class TradeExecutedEvent extends Event {
+
+	@Label("Stock")
+	String stock;
+
+	@Label("Tick")
+	long tick;
+
+	@Label("Price")
+	double price;
+
+	@Label("Quantity")
+	int quantity;
+
+	@Label("Buyer")
+	String buyer;
+
+	@Label("Seller")
+	String seller;
+
+	private static final EventType TYPE = EventType.getEventType(TradeExecutedEvent.class);
+
+	/**
+	 * Commits an event for a trade if it is to be recorded.
+	 */
+	static void trade(Stock stock, long tick, double price, int quantity, Order buyOrder, Order sellOrder) {
+		if (!TYPE.isEnabled()) return;
+		TradeExecutedEvent event = new TradeExecutedEvent();
+		if (!event.shouldCommit()) return;
+		event.stock = stock.getName();
+		event.tick = tick;
+		event.price = price;
+		event.quantity = quantity;
+		event.buyer = buyOrder.getTrader().getName();
+		event.seller = sellOrder.getTrader().getName();
+		event.commit();
+	}
+
+}
@@ -0,0 +1,167 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
+
+/**
+ * Records the trades made for a single stock, oldest first. The tick, price
+ * and quantity of each trade are stored in primitive arrays alongside the
+ * trade's tick event, so they can be read by index without unboxing.
+ * <p>
+ * The history is append only: a recorded trade never moves or changes. Lists
+ * returned by the history are therefore read-only views of a range of trades,
+ * created without copying, which stay valid as further trades are recorded.
+ * Trades must be recorded in tick order, which lets a range of ticks be found
+ * by binary search.
+ * <p>
+ * Trades must be recorded by one thread at a time, but the history may be
+ * read by other threads while trades are recorded. The arrays and the number
+ * of trades are published through volatile fields after each trade is
+ * stored, so a reader sees every trade up to the size it read.
+ */
+public class TradeHistory implements TradeListener {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private volatile long[] ticks = new long[INITIAL_CAPACITY];
+	private volatile double[] prices = new double[INITIAL_CAPACITY];
+	private volatile int[] quantities = new int[INITIAL_CAPACITY];
+	private volatile TickEvent<?>[] tradeEvents = new TickEvent<?>[INITIAL_CAPACITY];
+	private volatile int size;
+
+	/**
+	 * Appends a trade to the history.
+	 * @param tradeEvent of the trade, with a tick no earlier than the last recorded trade.
+	 * @throws IllegalArgumentException if the trade is earlier than the last recorded trade.
+	 */
+	@Override
+	public void tradeExecuted(TickEvent<Trade> tradeEvent) {
+		long tick = tradeEvent.getTick();
+		int size = this.size;
+		long[] ticks = this.ticks;
+		if (size > 0 && tick < ticks[size - 1])
+			throw new IllegalArgumentException("Trade at tick " + tick + " recorded out of order.");
+		if (size == ticks.length) {
+			int capacity = size * 2;
+			ticks = Arrays.copyOf(ticks, capacity);
+			prices = Arrays.copyOf(prices, capacity);
+			quantities = Arrays.copyOf(quantities, capacity);
+			tradeEvents = Arrays.copyOf(tradeEvents, capacity);
+			this.ticks = ticks;
+		}
+		Trade trade = tradeEvent.getEvent();
+		ticks[size] = tick;
+		prices[size] = trade.getPriceAsDouble();
+		quantities[size] = trade.getQuantityAsInt();
+		tradeEvents[size] = tradeEvent;
+		this.size = size + 1;
+	}
+
+	/**
+	 * @return the number of trades recorded.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index of a recorded trade.
+	 * @return the tick of the trade.
+	 */
+	public long getTick(int index) {
+		checkIndex(index);
+		return ticks[index];
+	}
+
+	/**
+	 * @param index of a recorded trade.
+	 * @return the unit price of the trade.
+	 */
+	public double getPrice(int index) {
+		checkIndex(index);
+		return prices[index];
+	}
+
+	/**
+	 * @param index of a recorded trade.
+	 * @return the quantity of stock traded.
+	 */
+	public int getQuantity(int index) {
+		checkIndex(index);
+		return quantities[index];
+	}
+
+	/**
+	 * @return a read-only view of the trades recorded so far, oldest first.
+	 */
+	public List<TickEvent<Trade>> asList() {
+		return new View(0, size);
+	}
+
+	/**
+	 * @param fromTick the earliest tick to include.
+	 * @param toTick the tick before which to stop.
+	 * @return a read-only view of the recorded trades with ticks from fromTick
+	 *         (inclusive) to toTick (exclusive), oldest first.
+	 */
+	public List<TickEvent<Trade>> between(long fromTick, long toTick) {
+		int from = indexOf(fromTick);
+		int to = Math.max(from, indexOf(toTick));
+		return new View(from, to);
+	}
+
+	/**
+	 * @param tick to search for.
+	 * @return the index of the first recorded trade at or after the tick, or
+	 *         the number of trades if there is none.
+	 */
+	public int indexOf(long tick) {
+		int low = 0;
+		int high = size;
+		long[] ticks = this.ticks;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (ticks[middle] < tick) low = middle + 1;
+			else high = middle;
+		}
+		return low;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	/**
+	 * Presents a fixed range of the recorded trades as a list.
+	 */
+	private class View extends AbstractList<TickEvent<Trade>> implements RandomAccess {
+		private final int from;
+		private final int to;
+
+		private View(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public TickEvent<Trade> get(int index) {
+			if (index < 0 || index >= to - from)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+			return (TickEvent<Trade>) tradeEvents[from + index];
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+	}
+
+}
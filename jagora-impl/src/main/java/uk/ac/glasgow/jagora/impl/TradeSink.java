@@ -0,0 +1,25 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+
+/**
+ * Receives the details of each trade executed by a market clearing into a
+ * sink. The details are passed as primitives so that a market can report
+ * trades without creating a trade or tick event object for each one.
+ */
+public interface TradeSink {
+
+	/**
+	 * @param tick at which the trade was executed.
+	 * @param stock that was traded.
+	 * @param buyOrder that was (partially) filled by the trade.
+	 * @param sellOrder that was (partially) filled by the trade.
+	 * @param quantity of stock units traded.
+	 * @param price the unit price of the trade.
+	 */
+	public void tradeExecuted(
+		long tick, Stock stock, BuyOrder buyOrder, SellOrder sellOrder, int quantity, double price);
+
+}
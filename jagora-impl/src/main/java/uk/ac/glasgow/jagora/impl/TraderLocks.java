@@ -0,0 +1,65 @@
+package uk.ac.glasgow.jagora.impl;
+
+import uk.ac.glasgow.jagora.Trader;
+
+/**
+ * Guards the accounts of traders that may be settled by several markets at
+ * once, for example during parallel clearing. Traders are spread by identity
+ * over a fixed number of lock stripes, so settlement never needs a lock per
+ * trader or a single lock for every trader. A thread that needs the locks of
+ * two traders must take the lower stripe first.
+ */
+final class TraderLocks {
+
+	private static final int STRIPES = 64;
+
+	private static final Object[] locks = new Object[STRIPES];
+
+	static {
+		for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+	}
+
+	private TraderLocks() {
+	}
+
+	/**
+	 * @return the stripe guarding the specified trader's account.
+	 */
+	static int stripe(Trader trader) {
+		int hash = System.identityHashCode(trader);
+		return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+	}
+
+	/**
+	 * @return the lock for the specified stripe.
+	 */
+	static Object lock(int stripe) {
+		return locks[stripe];
+	}
+
+	/**
+	 * @return the lock guarding the specified trader's account.
+	 */
+	static Object lockFor(Trader trader) {
+		return locks[stripe(trader)];
+	}
+
+	/**
+	 * Runs the specified action while holding every stripe, taken in order,
+	 * for changes that affect the accounts of all traders at once.
+	 */
+	static void withAllLocks(Runnable action) {
+		withLocksFrom(0, action);
+	}
+
+	private static void withLocksFrom(int stripe, Runnable action) {
+		if (stripe == STRIPES) {
+			action.run();
+			return;
+		}
+		synchronized (locks[stripe]) {
+			withLocksFrom(stripe + 1, action);
+		}
+	}
+
+}
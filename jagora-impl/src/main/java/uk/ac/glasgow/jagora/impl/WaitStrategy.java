@@ -0,0 +1,54 @@
+package uk.ac.glasgow.jagora.impl;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how a thread waiting on a {@link MarketEventLoop} passes the time
+ * until the command or slot it is waiting for is ready. Spinning gives the
+ * lowest latency at the cost of a busy core; parking frees the core but
+ * takes longer to notice that the wait is over.
+ */
+public interface WaitStrategy {
+
+	/**
+	 * Waits once.
+	 * @param spins the number of times the caller has already waited.
+	 * @return the number of times the caller has now waited.
+	 */
+	public int idle(int spins);
+
+	/**
+	 * @return a strategy that spins without giving up the processor.
+	 */
+	public static WaitStrategy busySpin() {
+		return spins -> {
+			Thread.onSpinWait();
+			return spins + 1;
+		};
+	}
+
+	/**
+	 * @return a strategy that yields the processor each time it waits.
+	 */
+	public static WaitStrategy yielding() {
+		return spins -> {
+			Thread.yield();
+			return spins + 1;
+		};
+	}
+
+	/**
+	 * @param yields before the strategy starts parking.
+	 * @param parkNanos the time to park for each time after that.
+	 * @return a strategy that yields the processor at first and then parks
+	 *         for the specified time.
+	 */
+	public static WaitStrategy parking(int yields, long parkNanos) {
+		return spins -> {
+			if (spins < yields) Thread.yield();
+			else LockSupport.parkNanos(parkNanos);
+			return spins + 1;
+		};
+	}
+
+}
@@ -2,6 +2,8 @@ package uk.ac.glasgow.jagora.test;
 
 import static java.lang.String.format;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
 import static uk.ac.glasgow.jagora.test.stub.StubTrade.expectedPrices;
 
@@ -14,6 +16,9 @@ import org.junit.Test;
 
 import uk.ac.glasgow.jagora.Market;
 import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.DepthLevel;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.Quote;
 import uk.ac.glasgow.jagora.SellOrder;
 import uk.ac.glasgow.jagora.TickEvent;
 import uk.ac.glasgow.jagora.Trade;
@@ -92,6 +97,108 @@ public abstract class MarketTest {
 		}
 	}
 		
+	@Test
+	public void testGetQuote() {
+		assertFalse(market.getQuote().hasBid());
+		placeBuyOrders(buyOrders);
+		placeSellOrders(sellOrders.subList(1, sellOrders.size()));
+		// reading the best prices waits for markets that apply orders asynchronously
+		double bestBid = market.getBestBid();
+		double bestOffer = market.getBestOffer();
+
+		Quote quote = market.getQuote();
+		assertEquals(bestBid, quote.getBid(), 0.0);
+		assertEquals(bestOffer, quote.getOffer(), 0.0);
+		assertEquals(quantityAt(buyOrders, bestBid), quote.getBidQuantity());
+		assertEquals(quantityAt(sellOrders, bestOffer), quote.getOfferQuantity());
+
+		market.cancelBuyOrder(buyOrders.get(0));
+		assertEquals(market.getBestBid(), market.getQuote().getBid(), 0.0);
+		assertTrue(market.getQuote().getTick() >= quote.getTick());
+	}
+
+	private static int quantityAt(List<? extends Order> orders, double price) {
+		int quantity = 0;
+		for (Order order : orders) {
+			if (order.getPrice() == price) quantity += order.getRemainingQuantity();
+		}
+		return quantity;
+	}
+
+	@Test
+	public void testGetBuyOrders() {
+		List<BuyOrder> shuffled = new ArrayList<BuyOrder>(buyOrders);
+		Collections.shuffle(shuffled);
+		placeBuyOrders(shuffled);
+
+		List<TickEvent<BuyOrder>> orders = market.getBuyOrders();
+		assertEquals(buyOrders.size(), orders.size());
+		for (int i = 0; i < buyOrders.size(); i++) {
+			assertEquals(buyOrders.get(i).getPrice(), orders.get(i).getEvent().getPrice(), 0.0);
+		}
+	}
+
+	@Test
+	public void testGetSellOrders() {
+		List<SellOrder> shuffled = new ArrayList<SellOrder>(sellOrders);
+		Collections.shuffle(shuffled);
+		placeSellOrders(shuffled);
+
+		List<TickEvent<SellOrder>> orders = market.getSellOrders();
+		assertEquals(sellOrders.size(), orders.size());
+		for (int i = 0; i < sellOrders.size(); i++) {
+			assertEquals(sellOrders.get(i).getPrice(), orders.get(i).getEvent().getPrice(), 0.0);
+		}
+	}
+
+	@Test
+	public void testDepthAfterClearing() {
+		List<SellOrder> partlyFilled = new ArrayList<SellOrder>(sellOrders);
+		placeBuyOrders(buyOrders);
+		placeSellOrders(partlyFilled);
+		market.doClearing();
+
+		assertDepth(market.getBuyOrders(), market.getBuyDepth(10));
+		assertDepth(market.getSellOrders(), market.getSellDepth(10));
+	}
+
+	@Test
+	public void testAddDepthListeners() {
+		List<String> changes = new ArrayList<String>();
+		market.addDepthListeners(
+			(price, quantity, orderCount) -> changes.add("bid " + quantity + "@" + price),
+			(price, quantity, orderCount) -> changes.add("offer " + quantity + "@" + price));
+		BuyOrder buyOrder = buyOrders.get(0);
+		market.placeBuyOrder(buyOrder);
+		market.cancelBuyOrder(buyOrder);
+		market.getBestBid();
+
+		assertEquals(2, changes.size());
+		assertEquals("bid 0@" + buyOrder.getPrice(), changes.get(1));
+	}
+
+	/**
+	 * Checks that the depth of a book agrees with the orders on it.
+	 */
+	private static <O extends Order> void assertDepth(List<TickEvent<O>> orders, List<DepthLevel> depth) {
+		int level = -1;
+		double price = Double.NaN;
+		int quantity = 0;
+		for (TickEvent<O> tickEvent : orders) {
+			O order = tickEvent.getEvent();
+			if (order.getPrice() != price) {
+				if (level >= 0) assertEquals(quantity, depth.get(level).getQuantity());
+				level++;
+				price = order.getPrice();
+				quantity = 0;
+				assertEquals(price, depth.get(level).getPrice(), 0.0);
+			}
+			quantity += order.getRemainingQuantity();
+		}
+		if (level >= 0) assertEquals(quantity, depth.get(level).getQuantity());
+		assertEquals(level + 1, depth.size());
+	}
+
 	@Test
 	public void testDoClearing() {
 		placeBuyOrders(buyOrders);
@@ -114,6 +221,17 @@ public abstract class MarketTest {
 		
 	}
 
+	@Test
+	public void testAddTradeListener() {
+		List<TickEvent<Trade>> notified = new ArrayList<TickEvent<Trade>>();
+		market.addTradeListener(tradeEvent->notified.add(tradeEvent));
+		placeBuyOrders(buyOrders);
+		placeSellOrders(sellOrders);
+
+		List<TickEvent<Trade>> tickEvents = market.doClearing();
+		assertEquals(tickEvents, notified);
+	}
+
 	private void placeSellOrders(List<SellOrder> sellOrders) {
 		sellOrders
 			.stream()
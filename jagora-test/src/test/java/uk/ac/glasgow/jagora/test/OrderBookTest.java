@@ -1,5 +1,6 @@
 package uk.ac.glasgow.jagora.test;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static uk.ac.glasgow.jagora.test.stub.StubBuyOrder.stubBuyOrders;
 
@@ -11,6 +12,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.DepthLevel;
 import uk.ac.glasgow.jagora.OrderBook;
 import uk.ac.glasgow.jagora.TickEvent;
 
@@ -75,6 +77,48 @@ public abstract class OrderBookTest {
 		}
 	}
 
+	@Test
+	public void testGetDepth() {
+		List<BuyOrder> shuffled = new ArrayList<BuyOrder>(stubBuyOrders);
+		Collections.shuffle(shuffled);
+		recordOrders(shuffled);
+
+		List<DepthLevel> depth = orderBook.getDepth(10);
+		assertEquals(3, depth.size());
+		assertEquals(2.5, depth.get(0).getPrice(), 0.0);
+		assertEquals(1.0, depth.get(1).getPrice(), 0.0);
+		assertEquals(0.5, depth.get(2).getPrice(), 0.0);
+		assertEquals(2, depth.get(2).getQuantity());
+		assertEquals(2, depth.get(2).getOrderCount());
+
+		assertEquals(2, orderBook.getDepth(2).size());
+		orderBook.cancelOrder(stubBuyOrders.get(0));
+		assertEquals(1.0, orderBook.getDepth(1).get(0).getPrice(), 0.0);
+	}
+
+	@Test
+	public void testGetDepthLimits() {
+		assertEquals(0, orderBook.getDepth(1).size());
+		recordOrders(stubBuyOrders);
+
+		assertEquals(0, orderBook.getDepth(0).size());
+		assertEquals(0, orderBook.getDepth(-1).size());
+		assertEquals(1, orderBook.getDepth(1).size());
+		assertEquals(2.5, orderBook.getDepth(1).get(0).getPrice(), 0.0);
+		assertEquals(3, orderBook.getDepth(4).size());
+		assertEquals(3, orderBook.getDepth(Integer.MAX_VALUE).size());
+	}
+
+	@Test
+	public void testAddDepthListener() {
+		List<String> changes = new ArrayList<String>();
+		orderBook.addDepthListener((price, quantity, orderCount) -> changes.add(quantity + "@" + price));
+		orderBook.recordOrder(stubBuyOrders.get(1));
+		orderBook.recordOrder(stubBuyOrders.get(0));
+		orderBook.cancelOrder(stubBuyOrders.get(1));
+		assertEquals(asList("1@1.0", "1@2.5", "0@1.0"), changes);
+	}
+
 	private void recordOrders(List<BuyOrder> orders) {
 		orders
 			.stream()
@@ -12,6 +12,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Quote;
 import uk.ac.glasgow.jagora.SellOrder;
 import uk.ac.glasgow.jagora.StockExchange;
 import uk.ac.glasgow.jagora.TickEvent;
@@ -96,6 +97,17 @@ public abstract class StockExchangeTest {
         }
     }
 
+    @Test
+    public void testGetQuote() {
+        assertNull(stockExchange.getQuote(lemons));
+        placeBuyOrders(buyOrders);
+        Double bestBid = stockExchange.getBestBid(lemons);
+
+        Quote quote = stockExchange.getQuote(lemons);
+        assertEquals(bestBid, quote.getBid(), 0.0);
+        assertFalse(quote.hasOffer());
+    }
+
     @Test
     public void testGetTradeHistory() {
         placeStandardOrdersAndClear();
@@ -110,6 +122,15 @@ public abstract class StockExchangeTest {
         }
     }
 
+    @Test
+    public void testAddTradeListener() {
+        List<TickEvent<Trade>> notified = new ArrayList<TickEvent<Trade>>();
+        stockExchange.addTradeListener(tradeEvent -> notified.add(tradeEvent));
+        placeStandardOrdersAndClear();
+
+        assertEquals(stockExchange.getTradeHistory(lemons), notified);
+    }
+
     private void placeStandardOrdersAndClear() {
         placeSellOrders(sellOrders);
         placeBuyOrders(buyOrders);
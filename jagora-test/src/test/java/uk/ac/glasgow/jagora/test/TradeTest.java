@@ -1,6 +1,7 @@
 package uk.ac.glasgow.jagora.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
 
 import org.junit.Ignore;
@@ -37,6 +38,12 @@ public abstract class TradeTest {
 		assertEquals(price, trade.getPrice(), 0.0);
 	}
 
+	@Test
+	public void testGetOrders() {
+		assertSame(buyOrder, trade.getBuyOrder());
+		assertSame(sellOrder, trade.getSellOrder());
+	}
+
 	@Test
 	public void testExecuteCreatesTick() throws Exception {
 		TickEvent<Trade> tradeTick = trade.execute();
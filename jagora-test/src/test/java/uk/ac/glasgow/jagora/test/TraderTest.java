@@ -1,6 +1,7 @@
 package uk.ac.glasgow.jagora.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -8,6 +9,7 @@ import java.util.Set;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import uk.ac.glasgow.jagora.SettlementResult;
 import uk.ac.glasgow.jagora.Stock;
 import uk.ac.glasgow.jagora.TradeException;
 import uk.ac.glasgow.jagora.Trader;
@@ -84,4 +86,41 @@ public abstract class TraderTest {
         trader.sellStock(stock, quantity + 1, 1.0);
     }
 
+    @Test
+    public void testTryBuyStockWithoutCash() {
+        Integer initialQuantity = trader.getInventoryHolding(stock);
+        assertEquals(SettlementResult.INSUFFICIENT_CASH, trader.tryBuyStock(stock, 2, cash));
+        assertEquals(cash, trader.getCash(), 0.0);
+        assertEquals(initialQuantity, trader.getInventoryHolding(stock));
+    }
+
+    @Test
+    public void testTrySellStockWithoutStock() {
+        assertEquals(SettlementResult.INSUFFICIENT_STOCK, trader.trySellStock(stock, quantity + 1, 1.0));
+        assertEquals(cash, trader.getCash(), 0.0);
+        assertEquals(quantity, trader.getInventoryHolding(stock));
+    }
+
+    @Test
+    public void testNonPositiveQuantitiesAreRejected() {
+        assertEquals(SettlementResult.FAILED, trader.tryBuyStock(stock, 0, 1.0));
+        assertEquals(SettlementResult.FAILED, trader.trySellStock(stock, -1, 1.0));
+        try {
+            trader.buyStock(stock, 0, 1.0);
+            fail("expected a trade exception.");
+        }
+        catch (TradeException e) {
+            assertEquals("Quantity must be positive.", e.getMessage());
+        }
+        try {
+            trader.sellStock(stock, -1, 1.0);
+            fail("expected a trade exception.");
+        }
+        catch (TradeException e) {
+            assertEquals("Quantity must be positive.", e.getMessage());
+        }
+        assertEquals(cash, trader.getCash(), 0.0);
+        assertEquals(quantity, trader.getInventoryHolding(stock));
+    }
+
 }
@@ -0,0 +1,105 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.SettlementResult;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.AccountLedger;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+
+public class AccountLedgerTest {
+
+	private AccountLedger ledger;
+	private Stock apples;
+
+	@Before
+	public void setUp() {
+		ledger = new AccountLedger();
+		apples = new DefaultStock("apples");
+	}
+
+	@Test
+	public void testOpenAccounts() {
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, ledger.openAccount(i));
+		}
+		assertEquals(990_000L, ledger.getCash(99));
+	}
+
+	@Test
+	public void testStockIds() {
+		assertEquals(0, ledger.getStockId(lemons));
+		assertEquals(1, ledger.getStockId(apples));
+		assertEquals(0, ledger.getStockId(lemons));
+	}
+
+	@Test
+	public void testBuyAndSell() {
+		int account = ledger.openAccount(10.0);
+		int stockId = ledger.getStockId(apples);
+		assertEquals(SettlementResult.SETTLED, ledger.buy(account, stockId, 3, 60_000L));
+		assertEquals(3, ledger.getPosition(account, stockId));
+		assertEquals(40_000L, ledger.getCash(account));
+		assertEquals(SettlementResult.INSUFFICIENT_CASH, ledger.buy(account, stockId, 3, 60_000L));
+		assertEquals(SettlementResult.INSUFFICIENT_STOCK, ledger.sell(account, stockId, 4, 80_000L));
+		assertEquals(SettlementResult.SETTLED, ledger.sell(account, stockId, 3, 30_000L));
+		assertEquals(0, ledger.getPosition(account, stockId));
+		assertEquals(70_000L, ledger.getCash(account));
+		assertEquals(Collections.singleton(apples), ledger.getStocks(account));
+	}
+
+	@Test
+	public void testRejectedSalesLeaveAccountUnchanged() {
+		int account = ledger.openAccount(1.0);
+		int stockId = ledger.getStockId(apples);
+		assertEquals(SettlementResult.INSUFFICIENT_STOCK, ledger.sell(account, stockId, 1, 20_000L));
+		assertEquals(SettlementResult.FAILED, ledger.sell(account, stockId, 0, 20_000L));
+		assertEquals(SettlementResult.FAILED, ledger.sell(account, stockId, -1, -20_000L));
+		assertEquals(SettlementResult.FAILED, ledger.buy(account, stockId, -1, -20_000L));
+		assertEquals(10_000L, ledger.getCash(account));
+		assertEquals(0, ledger.getPosition(account, stockId));
+		assertEquals(Collections.emptySet(), ledger.getStocks(account));
+	}
+
+	@Test
+	public void testSharedByTraders() throws Exception {
+		Trader buyer = new DefaultTrader(ledger, "buyer", 10.0, lemons, 0);
+		Trader seller = new DefaultTrader(ledger, "seller", 0.0, apples, 5);
+		buyer.buyStock(apples, 2, 1.5);
+		seller.sellStock(apples, 2, 1.5);
+		assertEquals(7.0, buyer.getCash(), 0.0);
+		assertEquals(2, buyer.getInventoryHolding(apples).intValue());
+		assertEquals(3.0, seller.getCash(), 0.0);
+		assertEquals(3, seller.getInventoryHolding(apples).intValue());
+		assertEquals(0, seller.getInventoryHolding(lemons).intValue());
+	}
+
+	@Test
+	public void testTradersOpenAccountsConcurrently() throws Exception {
+		List<Trader> traders = Collections.synchronizedList(new ArrayList<>());
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 500; i++) traders.add(new DefaultTrader(ledger, "trader", 1.0, apples, 7));
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) thread.join();
+		assertEquals(2000, traders.size());
+		for (Trader trader : traders) {
+			assertEquals(7, trader.getInventoryHolding(apples).intValue());
+			assertEquals(1.0, trader.getCash(), 0.0);
+		}
+	}
+
+}
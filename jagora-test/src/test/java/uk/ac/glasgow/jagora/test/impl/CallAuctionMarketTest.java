@@ -0,0 +1,168 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.AccountLedger;
+import uk.ac.glasgow.jagora.impl.CallAuctionMarket;
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.test.MarketTest;
+
+@RunWith(Enclosed.class)
+public class CallAuctionMarketTest {
+
+	public static class TestAsMarket extends MarketTest {
+
+		@Before
+		public void setUp() {
+			buyOrders = 
+				unmodifiableList(asList(new BuyOrder[]{
+					new LimitBuyOrder(buyer, lemons, 1, 2.5),
+					new LimitBuyOrder(buyer, lemons, 1, 1.0),
+					new LimitBuyOrder(buyer, lemons, 1, 0.5),
+					new LimitBuyOrder(buyer, lemons, 1, 0.5)}));
+				
+			sellOrders = 
+				unmodifiableList(asList(new SellOrder[]{
+					new LimitSellOrder(seller, lemons, 2, 0.2),
+					new LimitSellOrder(seller, lemons, 1, 0.5),
+					new LimitSellOrder(seller, lemons, 1, 0.5),
+					new LimitSellOrder(seller, lemons, 1, 2.5)}));
+			
+			market = new CallAuctionMarket(lemons, new DefaultWorld());
+		}
+
+		/**
+		 * All four units of demand at or above 0.5 meet four units of supply
+		 * at or below 0.5, so every trade takes place at 0.5.
+		 */
+		@Override
+		@Test
+		public void testDoClearing() {
+			buyOrders.stream().forEach(buyOrder->market.placeBuyOrder(buyOrder));
+			sellOrders.stream().forEach(sellOrder->market.placeSellOrder(sellOrder));
+
+			List<TickEvent<Trade>> tickEvents = market.doClearing();
+			assertEquals(4, tickEvents.size());
+
+			for (Integer i = 0; i < tickEvents.size(); i++){
+				TickEvent<Trade> tickEvent = tickEvents.get(i);
+				Trade trade = tickEvent.getEvent();
+
+				assertEquals(format("%s", trade), 0.5, trade.getPrice(), 0.0);
+				assertEquals(format("%s",trade), 1, trade.getQuantity().intValue());
+				assertEquals(format("%s",tickEvent), i+8, tickEvent.getTick().intValue());
+			}
+			assertNull(market.getBestBid());
+			assertEquals(2.5, market.getBestOffer(), 0.0);
+		}
+	}
+
+	public static class TestClearingPrice {
+
+		private CallAuctionMarket market;
+
+		@Before
+		public void setUp() {
+			market = new CallAuctionMarket(lemons, new DefaultWorld());
+		}
+
+		@Test
+		public void testNoCrossNoTrades() {
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 1.0));
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 2.0));
+			assertEquals(0, market.doClearing().size());
+		}
+
+		@Test
+		public void testExcessDemandRaisesPrice() {
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 3, 2.0));
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 1.0));
+
+			List<TickEvent<Trade>> tickEvents = market.doClearing();
+			assertEquals(1, tickEvents.size());
+			assertEquals(2.0, tickEvents.get(0).getEvent().getPrice(), 0.0);
+		}
+
+		@Test
+		public void testExcessSupplyLowersPrice() {
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 2.0));
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 3, 1.0));
+
+			List<TickEvent<Trade>> tickEvents = market.doClearing();
+			assertEquals(1, tickEvents.size());
+			assertEquals(1.0, tickEvents.get(0).getEvent().getPrice(), 0.0);
+		}
+
+		/**
+		 * The unfunded bid would raise the price to 2.0 if it counted towards
+		 * demand; without it demand and supply balance from 1.0.
+		 */
+		@Test
+		public void testUnfundedOrdersAreCancelledBeforePricing() {
+			Trader poorBuyer = new DefaultTrader(new AccountLedger(), "poor", 1.0, lemons, 0);
+			BuyOrder unfunded = new LimitBuyOrder(poorBuyer, lemons, 3, 2.0);
+			List<Order> removed = new ArrayList<>();
+			market.addOrderRemovalListener(removed::add);
+
+			market.placeBuyOrder(unfunded);
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 1.5));
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 1.0));
+
+			List<TickEvent<Trade>> tickEvents = market.doClearing();
+			assertEquals(1, tickEvents.size());
+			assertEquals(1.0, tickEvents.get(0).getEvent().getPrice(), 0.0);
+			assertSame(unfunded, removed.get(0));
+			assertEquals(0, market.getBuyOrders().size());
+		}
+	}
+
+	public static class TestSelectedByStockExchange {
+
+		@Test
+		public void testStockExchangeUsesSelectedMarket() {
+			DefaultStockExchange stockExchange = new DefaultStockExchange(new DefaultWorld());
+			stockExchange.setMarketFactory(lemons, CallAuctionMarket::new);
+
+			stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 2, 2.5));
+			stockExchange.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 0.2));
+			stockExchange.doClearing();
+
+			assertEquals(1, stockExchange.getTradeHistory(lemons).size());
+			assertEquals(2.5, stockExchange.getTradeHistory(lemons).get(0).getEvent().getPrice(), 0.0);
+		}
+
+		@Test(expected = IllegalStateException.class)
+		public void testCannotReplaceExistingMarket() {
+			DefaultStockExchange stockExchange = new DefaultStockExchange(new DefaultWorld());
+			stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 2.5));
+			stockExchange.setMarketFactory(lemons, CallAuctionMarket::new);
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.junit.Assert.assertEquals;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.ConcurrentStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.test.StockExchangeTest;
+
+public class ConcurrentStockExchangeTest extends StockExchangeTest {
+
+	@Before
+	public void setUp() throws Exception {
+		stockExchange = new ConcurrentStockExchange(new DefaultWorld());
+		buyOrders =
+			unmodifiableList(asList(new BuyOrder[]{
+				new LimitBuyOrder(buyer, lemons, 1, 2.5),
+				new LimitBuyOrder(buyer, lemons, 1, 1.0),
+				new LimitBuyOrder(buyer, lemons, 1, 0.5),
+				new LimitBuyOrder(buyer, lemons, 1, 0.5)}));
+
+		sellOrders =
+			unmodifiableList(asList(new SellOrder[]{
+				new LimitSellOrder(seller, lemons, 2, 0.2),
+				new LimitSellOrder(seller, lemons, 1, 0.5),
+				new LimitSellOrder(seller, lemons, 1, 0.5),
+				new LimitSellOrder(seller, lemons, 1, 2.5)}));
+	}
+
+	@Test
+	public void testConcurrentOrderEntry() throws Exception {
+		Stock[] stocks = {new DefaultStock("apples"), new DefaultStock("pears")};
+		Trader buyer = new DefaultTrader("buyer", 10000.0, stocks[0], 0);
+		List<Trader> sellers = new ArrayList<>();
+		for (Stock stock : stocks) sellers.add(new DefaultTrader("seller", 0.0, stock, 1000));
+		AtomicInteger trades = new AtomicInteger();
+		stockExchange.addTradeListener(tradeEvent -> trades.incrementAndGet());
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 250; i++) {
+					for (int s = 0; s < stocks.length; s++) {
+						stockExchange.placeSellOrder(new LimitSellOrder(sellers.get(s), stocks[s], 1, 1.0));
+						stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, stocks[s], 1, 1.0));
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+		stockExchange.doClearing();
+
+		assertEquals(2000, trades.get());
+		for (int s = 0; s < stocks.length; s++) {
+			assertEquals(1000, stockExchange.getTradeHistory(stocks[s]).size());
+			assertEquals(1000, buyer.getInventoryHolding(stocks[s]).intValue());
+			assertEquals(1000.0, sellers.get(s).getCash(), 0.0);
+		}
+		assertEquals(8000.0, buyer.getCash(), 0.0);
+	}
+
+	@Test
+	public void testMarketsCreatedConcurrently() throws Exception {
+		ConcurrentStockExchange concurrentStockExchange = (ConcurrentStockExchange) stockExchange;
+		Stock[] stocks = new Stock[40];
+		for (int s = 0; s < stocks.length; s++) stocks[s] = new DefaultStock("stock" + s);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> {
+				for (Stock stock : stocks) stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, stock, 1, 1.0));
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		assertEquals(stocks.length, concurrentStockExchange.getMarkets().size());
+		for (Stock stock : stocks) {
+			assertEquals(4, concurrentStockExchange.getMarkets().stream()
+				.filter(market -> market.getStock().getName().equals(stock.getName()))
+				.findFirst().get().getBuyOrders().size());
+			assertEquals(1.0, stockExchange.getBestBid(new DefaultStock(stock.getName())), 0.0);
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.impl.ConcurrentWorld;
+import uk.ac.glasgow.jagora.impl.TimestampedTickEvent;
+import uk.ac.glasgow.jagora.test.WorldTest;
+
+public class ConcurrentWorldTest extends WorldTest {
+
+	@Before
+	public void setUp() {
+		world = new ConcurrentWorld();
+	}
+
+	@Test
+	public void testTicksAreUnique() throws Exception {
+		Set<Long> ticks = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10000; i++) ticks.add(world.nextTick());
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+		assertEquals(40000, ticks.size());
+	}
+
+	@Test
+	public void testTimestamp() {
+		long before = System.currentTimeMillis();
+		TimestampedTickEvent<String> tickEvent =
+			(TimestampedTickEvent<String>) new ConcurrentWorld(true).createTickEvent("event");
+		assertTrue(tickEvent.getTimestamp() / 1_000_000L >= before - 1);
+		assertTrue(tickEvent.getTimestamp() / 1_000_000L <= System.currentTimeMillis() + 1);
+	}
+
+}
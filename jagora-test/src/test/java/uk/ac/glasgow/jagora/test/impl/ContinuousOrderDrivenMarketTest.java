@@ -1,22 +1,38 @@
 package uk.ac.glasgow.jagora.test.impl;
 
 import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static java.util.Collections.unmodifiableList;
 import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
 import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
 import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 
 import uk.ac.glasgow.jagora.BuyOrder;
 import uk.ac.glasgow.jagora.Market;
 import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.Trader;
 import uk.ac.glasgow.jagora.impl.ContinuousOrderDrivenMarket;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
 import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.FixedPointLimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.FixedPointLimitSellOrder;
 import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
 import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.MarketMetrics;
+import uk.ac.glasgow.jagora.impl.TradeSink;
 import uk.ac.glasgow.jagora.test.MarketTest;
 
 @RunWith(Enclosed.class)
@@ -44,5 +60,159 @@ public class ContinuousOrderDrivenMarketTest  {
 		}
 	}
 
+	public static class TestAsFixedPointMarket extends MarketTest {
+	
+		@Before
+		public void setUp() {
+			buyOrders = 
+				unmodifiableList(asList(new BuyOrder[]{
+					new FixedPointLimitBuyOrder(buyer, lemons, 1, 250L),
+					new FixedPointLimitBuyOrder(buyer, lemons, 1, 100L),
+					new FixedPointLimitBuyOrder(buyer, lemons, 1, 50L),
+					new FixedPointLimitBuyOrder(buyer, lemons, 1, 50L)}));
+				
+			sellOrders = 
+				unmodifiableList(asList(new SellOrder[]{
+					new FixedPointLimitSellOrder(seller, lemons, 2, 20L),
+					new FixedPointLimitSellOrder(seller, lemons, 1, 50L),
+					new FixedPointLimitSellOrder(seller, lemons, 1, 50L),
+					new FixedPointLimitSellOrder(seller, lemons, 1, 250L)}));
+			
+			market = new ContinuousOrderDrivenMarket(lemons, new DefaultWorld());
+		}
+	}
+
+	public static class TestClearingIntoSink {
+
+		@Test
+		public void testDoClearingIntoSink() {
+			ContinuousOrderDrivenMarket market =
+				new ContinuousOrderDrivenMarket(lemons, new DefaultWorld());
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 2.5));
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 1.0));
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 2, 0.2));
+
+			List<Double> prices = new ArrayList<Double>();
+			List<Long> ticks = new ArrayList<Long>();
+			market.doClearing(
+				(tick, stock, buyOrder, sellOrder, quantity, price) -> {
+					ticks.add(tick);
+					prices.add(price);
+				});
+
+			assertEquals(asList(0.2, 0.2), prices);
+			assertEquals(asList(3l, 4l), ticks);
+			assertNull(market.getBestBid());
+			assertNull(market.getBestOffer());
+		}
+
+		@Test
+		public void testClearingIntoSinkAllocatesNothingPerTrade() {
+			int rounds = 200;
+			int batch = 256;
+			Trader buyer = new DefaultTrader("buyer", 1e12, lemons, 0);
+			Trader seller = new DefaultTrader("seller", 0.0, lemons, rounds * batch);
+			ContinuousOrderDrivenMarket market =
+				new ContinuousOrderDrivenMarket(lemons, new DefaultWorld());
+			com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			long thread = Thread.currentThread().getId();
+			TradeSink sink = (tick, stock, buyOrder, sellOrder, quantity, price) -> {};
+
+			long allocated = 0;
+			for (int round = 0; round < rounds; round++) {
+				for (int i = 0; i < batch; i++) {
+					market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 1.0 + i / 100.0));
+					market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 1.0));
+				}
+				long before = threads.getThreadAllocatedBytes(thread);
+				market.doClearing(sink);
+				// the first rounds warm up classes and the metrics
+				if (round >= rounds / 2) allocated += threads.getThreadAllocatedBytes(thread) - before;
+			}
+
+			assertEquals(rounds * batch, buyer.getInventoryHolding(lemons).intValue());
+			// one quote per round at most, far less than a byte per trade
+			assertTrue(allocated + " bytes", allocated < rounds / 2 * batch);
+		}
+	}
+
+	public static class TestMatchOnArrival {
+
+		private ContinuousOrderDrivenMarket market;
+
+		@Before
+		public void setUp() {
+			market = new ContinuousOrderDrivenMarket(lemons, new DefaultWorld(), true);
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 2.5));
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 1.0));
+		}
+
+		@Test
+		public void testArrivingOrderTradesAtRestingPrice() {
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 0.2));
+
+			List<TickEvent<Trade>> tickEvents = market.doClearing();
+			assertEquals(1, tickEvents.size());
+			assertEquals(2.5, tickEvents.get(0).getEvent().getPrice(), 0.0);
+			assertEquals(1.0, market.getBestBid(), 0.0);
+			assertNull(market.getBestOffer());
+		}
+
+		@Test
+		public void testOnlyRemainderIsRecorded() {
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 3, 0.5));
+
+			assertNull(market.getBestBid());
+			assertEquals(0.5, market.getBestOffer(), 0.0);
+			assertEquals(2, market.doClearing().size());
+		}
+
+		@Test
+		public void testNonCrossingOrderRests() {
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 3.0));
+
+			assertEquals(2.5, market.getBestBid(), 0.0);
+			assertEquals(3.0, market.getBestOffer(), 0.0);
+			assertEquals(0, market.doClearing().size());
+		}
+	}
+
+	public static class TestMetrics {
+
+		@Test
+		public void testMetrics() {
+			ContinuousOrderDrivenMarket market = new ContinuousOrderDrivenMarket(lemons, new DefaultWorld());
+			Trader richBuyer = new DefaultTrader("richBuyer", 10.0, lemons, 0);
+			Trader poorBuyer = new DefaultTrader("poorBuyer", 1.0, lemons, 0);
+			Trader richSeller = new DefaultTrader("richSeller", 0.0, lemons, 5);
+			Trader poorSeller = new DefaultTrader("poorSeller", 0.0, lemons, 0);
+
+			SellOrder sellOrder = new LimitSellOrder(richSeller, lemons, 2, 1.0);
+			market.placeSellOrder(new LimitSellOrder(poorSeller, lemons, 1, 0.5));
+			market.placeSellOrder(sellOrder);
+			market.placeBuyOrder(new LimitBuyOrder(richBuyer, lemons, 1, 2.5));
+			market.placeBuyOrder(new LimitBuyOrder(poorBuyer, lemons, 5, 2.0));
+			market.doClearing();
+
+			MarketMetrics metrics = market.getMetrics();
+			assertEquals(1, metrics.getClearings());
+			assertEquals(1, metrics.getTrades());
+			assertEquals(1, metrics.getTradesPerClearingMax());
+			assertEquals(1, metrics.getFilledCancels());
+			assertEquals(1, metrics.getUnfundedSellerCancels());
+			assertEquals(1, metrics.getUnfundedBuyerCancels());
+			assertEquals(0, metrics.getSettlementFailures());
+			assertEquals(0, metrics.getBuyOrders());
+			assertEquals(1, metrics.getSellOrders());
+			assertEquals(1, metrics.getSellPriceLevels());
+
+			market.cancelSellOrder(sellOrder);
+			market.cancelSellOrder(sellOrder);
+			assertEquals(1, metrics.getTraderCancels());
+			assertEquals(0, metrics.getSellOrders());
+			assertTrue(metrics.getClearingNanosMax() > 0);
+		}
+	}
 
 }
@@ -2,15 +2,32 @@ package uk.ac.glasgow.jagora.test.impl;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
 import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
 import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
 import org.junit.Before;
+import org.junit.Test;
 
 import uk.ac.glasgow.jagora.BuyOrder;
 import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
 import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
 import uk.ac.glasgow.jagora.impl.DefaultWorld;
 import uk.ac.glasgow.jagora.test.StockExchangeTest;
 import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
@@ -37,4 +54,59 @@ public class DefaultStockExchangeTest extends StockExchangeTest {
 
 	}
 
+	@Test
+	public void testParallelClearing() {
+		DefaultStockExchange exchange = new DefaultStockExchange(new DefaultWorld());
+		ForkJoinPool pool = new ForkJoinPool(4);
+		exchange.setClearingPool(pool);
+		List<TickEvent<Trade>> notified = new ArrayList<>();
+		exchange.addTradeListener(notified::add);
+
+		Trader buyer = new DefaultTrader("buyer", 1000.0, lemons, 0);
+		List<Stock> stocks = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Stock stock = new DefaultStock("stock" + i);
+			Trader seller = new DefaultTrader("seller" + i, 0.0, stock, 3);
+			stocks.add(stock);
+			for (int j = 0; j < 3; j++) {
+				exchange.placeSellOrder(new LimitSellOrder(seller, stock, 1, 1.0 + j));
+			}
+			exchange.placeBuyOrder(new LimitBuyOrder(buyer, stock, 3, 3.0));
+		}
+		exchange.doClearing();
+		pool.shutdown();
+
+		assertEquals(1000.0 - 50 * 6.0, buyer.getCash(), 0.0);
+		assertEquals(150, notified.size());
+		for (int i = 0; i < 50; i++) {
+			Stock stock = stocks.get(i);
+			assertEquals(3, buyer.getInventoryHolding(stock).intValue());
+			List<TickEvent<Trade>> tradeHistory = exchange.getTradeHistory(stock);
+			assertEquals(3, tradeHistory.size());
+			for (int j = 0; j < 3; j++) {
+				assertEquals(1.0 + j, tradeHistory.get(j).getEvent().getPrice(), 0.0);
+				assertSame(tradeHistory.get(j), notified.get(i * 3 + j));
+			}
+		}
+	}
+
+	@Test
+	public void testRegisterMBeans() throws Exception {
+		DefaultStockExchange exchange = (DefaultStockExchange) stockExchange;
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		exchange.registerMBeans(server, "test");
+		for (BuyOrder buyOrder : buyOrders) exchange.placeBuyOrder(buyOrder);
+		for (SellOrder sellOrder : sellOrders) exchange.placeSellOrder(sellOrder);
+		exchange.doClearing();
+
+		ObjectName exchangeName = new ObjectName("uk.ac.glasgow.jagora:type=StockExchange,name=\"test\"");
+		ObjectName marketName = new ObjectName("uk.ac.glasgow.jagora:type=Market,exchange=\"test\",stock=\"lemons\"");
+		assertEquals(4l, server.getAttribute(exchangeName, "BuyOrdersPlaced"));
+		assertEquals(1l, server.getAttribute(exchangeName, "Clearings"));
+		assertEquals((long) exchange.getTradeHistory(lemons).size(), server.getAttribute(exchangeName, "Trades"));
+		assertEquals(exchange.getTradeHistory(lemons).size(), ((Long) server.getAttribute(marketName, "Trades")).intValue());
+		assertEquals(1, server.getAttribute(marketName, "SellOrders"));
+		assertEquals("lemons", server.getAttribute(marketName, "Stock"));
+	}
+
 }
@@ -1,6 +1,10 @@
 package uk.ac.glasgow.jagora.test.impl;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 import org.junit.Before;
+import org.junit.Test;
 
 import uk.ac.glasgow.jagora.impl.DefaultStock;
 import uk.ac.glasgow.jagora.test.StockTest;
@@ -12,4 +16,11 @@ public class DefaultStockTest extends StockTest {
 		this.stock = new DefaultStock("lemons");
 	}
 
+	@Test
+	public void testEqualsByName() {
+		assertEquals(new DefaultStock("lemons"), stock);
+		assertEquals(new DefaultStock("lemons").hashCode(), stock.hashCode());
+		assertFalse(stock.equals(new DefaultStock("limes")));
+	}
+
 }
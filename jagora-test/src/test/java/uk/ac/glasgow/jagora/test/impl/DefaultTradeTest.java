@@ -1,15 +1,27 @@
 package uk.ac.glasgow.jagora.test.impl;
 
+import static org.junit.Assert.assertEquals;
 import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
 import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
 
 import org.junit.Before;
+import org.junit.Test;
 
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.SettlementResult;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeException;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.World;
 import uk.ac.glasgow.jagora.impl.DefaultTrade;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
 import uk.ac.glasgow.jagora.impl.DefaultWorld;
 import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
 import uk.ac.glasgow.jagora.impl.LimitSellOrder;
 import uk.ac.glasgow.jagora.test.TradeTest;
+import uk.ac.glasgow.jagora.test.stub.StubTrade;
 import uk.ac.glasgow.jagora.test.stub.StubTrader;
 
 public class DefaultTradeTest extends TradeTest {
@@ -23,4 +35,60 @@ public class DefaultTradeTest extends TradeTest {
 			new DefaultWorld(), buyOrder, sellOrder, lemons, quantity, price);
 	}
 
+	@Test
+	public void testSettleRollsBackBuyOrder() {
+		World world = new DefaultWorld();
+		Trader buyer = new DefaultTrader("buyer", 10.0, lemons, 0);
+		Trader seller = new DefaultTrader("seller", 0.0, lemons, 0);
+		BuyOrder buyOrder = new LimitBuyOrder(buyer, lemons, 1, 1.0);
+		SellOrder sellOrder = new LimitSellOrder(seller, lemons, 1, 1.0);
+		DefaultTrade trade = new DefaultTrade(world, buyOrder, sellOrder, lemons, 1, 1.0);
+
+		assertEquals(SettlementResult.INSUFFICIENT_STOCK, trade.settle(world.createTickEvent(trade)));
+		assertEquals(10.0, buyer.getCash(), 0.0);
+		assertEquals(0, buyer.getInventoryHolding(lemons).intValue());
+		assertEquals(1, buyOrder.getRemainingQuantity().intValue());
+		assertEquals(1, sellOrder.getRemainingQuantity().intValue());
+	}
+
+	@Test
+	public void testExecuteBlamesSeller() {
+		World world = new DefaultWorld();
+		Trader buyer = new DefaultTrader("buyer", 10.0, lemons, 0);
+		Trader seller = new DefaultTrader("seller", 0.0, lemons, 0);
+		DefaultTrade trade = new DefaultTrade(world,
+			new LimitBuyOrder(buyer, lemons, 1, 1.0), new LimitSellOrder(seller, lemons, 1, 1.0), lemons, 1, 1.0);
+		try {
+			trade.execute();
+		}
+		catch (TradeException e) {
+			assertEquals(seller, e.culprit);
+			return;
+		}
+		throw new AssertionError("expected a trade exception.");
+	}
+
+	@Test
+	public void testSettlePassesOnSellOrderResult() {
+		World world = new DefaultWorld();
+		Trader buyer = new DefaultTrader("buyer", 10.0, lemons, 0);
+		BuyOrder buyOrder = new LimitBuyOrder(buyer, lemons, 1, 1.0);
+		SellOrder sellOrder = new LimitSellOrder(seller, lemons, 1, 1.0) {
+			@Override
+			public SettlementResult trySatisfyTrade(TickEvent<Trade> tradeEvent) {
+				return SettlementResult.FAILED;
+			}
+		};
+		DefaultTrade trade = new DefaultTrade(world, buyOrder, sellOrder, lemons, 1, 1.0);
+
+		assertEquals(SettlementResult.FAILED, trade.settle(world.createTickEvent(trade)));
+		assertEquals(10.0, buyer.getCash(), 0.0);
+		assertEquals(1, buyOrder.getRemainingQuantity().intValue());
+	}
+
+	@Test
+	public void testSettleFailsWithoutOrders() {
+		assertEquals(SettlementResult.FAILED, StubTrade.trade.settle(StubTrade.tradeEvent));
+	}
+
 }
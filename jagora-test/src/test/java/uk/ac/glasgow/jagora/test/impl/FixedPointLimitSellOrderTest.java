@@ -0,0 +1,46 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.FixedPointLimitSellOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.test.SellOrderTest;
+
+public class FixedPointLimitSellOrderTest extends SellOrderTest {
+
+	@Before
+	public void setUp () throws Exception {
+		Trader seller = new DefaultTrader("default", 500.0, lemons, 10);
+		sellOrder0 = new FixedPointLimitSellOrder (seller, lemons, 1, 5L);
+		sellOrder1 =	new FixedPointLimitSellOrder (seller, lemons, 1, 0.1);
+		order0 = sellOrder0;
+		order1 = sellOrder1;
+		sameAsOrder1 = new FixedPointLimitSellOrder (seller, lemons, 1, 10L);
+		
+		nullPriceOrder1 = new LimitSellOrder (seller, lemons, 1, null);
+		nullPriceOrder2 = new LimitSellOrder (seller, lemons, 1, null);
+	}
+	
+	@Test
+	public void testGetPrice() {
+		assertEquals("", 0.05, sellOrder0.getPrice(), 0.0);
+	}
+
+	@Test
+	public void testGetPriceInTicks() {
+		assertEquals(10L, ((FixedPointLimitSellOrder) sellOrder1).getPriceInTicks());
+	}
+
+	@Test
+	public void testCompareToSameTicks() {
+		SellOrder sameTicks = new FixedPointLimitSellOrder(sellOrder1.getTrader(), lemons, 2, 10L);
+		assertEquals(0, sellOrder1.compareTo(sameTicks));
+	}
+}
@@ -0,0 +1,143 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.AccountLedger;
+import uk.ac.glasgow.jagora.impl.ContinuousOrderDrivenMarket;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.ReservationRiskEngine;
+
+public class FlightRecorderEventsTest {
+
+	private static final String[] EVENTS = {
+		"uk.ac.glasgow.jagora.OrderPlaced",
+		"uk.ac.glasgow.jagora.OrderCancelled",
+		"uk.ac.glasgow.jagora.TradeExecuted",
+		"uk.ac.glasgow.jagora.Clearing"};
+
+	private static List<RecordedEvent> record(Runnable trading) throws IOException {
+		Path file = Files.createTempFile("jagora", ".jfr");
+		try (Recording recording = new Recording()) {
+			for (String event : EVENTS) recording.enable(event).withThreshold(Duration.ZERO);
+			recording.start();
+			trading.run();
+			recording.stop();
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+		List<RecordedEvent> matching = new ArrayList<>();
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals(name)) matching.add(event);
+		}
+		return matching;
+	}
+
+	@Test
+	public void testEvents() throws IOException {
+		ContinuousOrderDrivenMarket market = new ContinuousOrderDrivenMarket(lemons, new DefaultWorld());
+		BuyOrder cancelled = new LimitBuyOrder(buyer, lemons, 1, 0.5);
+		List<RecordedEvent> events = record(() -> {
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 2, 2.5));
+			market.placeBuyOrder(cancelled);
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 2.0));
+			market.cancelBuyOrder(cancelled);
+			market.doClearing();
+		});
+
+		List<RecordedEvent> placed = ofType(events, "uk.ac.glasgow.jagora.OrderPlaced");
+		assertEquals(3, placed.size());
+		assertEquals("lemons", placed.get(0).getString("stock"));
+		assertTrue(placed.get(0).getBoolean("buy"));
+		assertEquals(2, placed.get(0).getInt("quantity"));
+		assertEquals(2, placed.get(1).getInt("bookDepth"));
+
+		List<RecordedEvent> cancels = ofType(events, "uk.ac.glasgow.jagora.OrderCancelled");
+		assertEquals(1, cancels.size());
+		assertTrue(cancels.get(0).getBoolean("found"));
+		assertEquals(1, cancels.get(0).getInt("bookDepth"));
+
+		List<RecordedEvent> trades = ofType(events, "uk.ac.glasgow.jagora.TradeExecuted");
+		assertEquals(1, trades.size());
+		assertEquals(2.0, trades.get(0).getDouble("price"), 0.0);
+		assertEquals(1, trades.get(0).getInt("quantity"));
+
+		List<RecordedEvent> clearings = ofType(events, "uk.ac.glasgow.jagora.Clearing");
+		assertEquals(1, clearings.size());
+		assertEquals(1, clearings.get(0).getInt("trades"));
+		assertEquals(1, clearings.get(0).getInt("buyBookDepth"));
+		assertEquals(0, clearings.get(0).getInt("sellBookDepth"));
+	}
+
+	@Test
+	public void testArrivalTradesAndRejections() throws IOException {
+		Trader poorBuyer = new DefaultTrader(new AccountLedger(), "poor", 0.0, lemons, 0);
+		ContinuousOrderDrivenMarket market =
+			new ContinuousOrderDrivenMarket(lemons, new DefaultWorld(), true, new ReservationRiskEngine());
+		List<RecordedEvent> events = record(() -> {
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 2.0));
+			market.placeBuyOrder(new LimitBuyOrder(poorBuyer, lemons, 1, 2.0));
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 2.0));
+			market.doClearing();
+		});
+
+		List<RecordedEvent> placed = ofType(events, "uk.ac.glasgow.jagora.OrderPlaced");
+		assertEquals(3, placed.size());
+		assertTrue(placed.get(0).getBoolean("accepted"));
+		assertFalse(placed.get(1).getBoolean("accepted"));
+		assertTrue(placed.get(2).getBoolean("accepted"));
+
+		List<RecordedEvent> clearings = ofType(events, "uk.ac.glasgow.jagora.Clearing");
+		assertEquals(1, clearings.size());
+		assertEquals(1, clearings.get(0).getInt("trades"));
+	}
+
+	@Test
+	public void testTradesDisabledByDefault() throws IOException {
+		ContinuousOrderDrivenMarket market = new ContinuousOrderDrivenMarket(lemons, new DefaultWorld());
+		Path file = Files.createTempFile("jagora", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.start();
+			market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 2.5));
+			market.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 2.0));
+			market.doClearing();
+			recording.stop();
+			recording.dump(file);
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			assertEquals(0, ofType(events, "uk.ac.glasgow.jagora.TradeExecuted").size());
+			assertEquals(1, ofType(events, "uk.ac.glasgow.jagora.Clearing").size());
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+}
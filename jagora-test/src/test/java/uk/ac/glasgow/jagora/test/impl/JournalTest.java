@@ -0,0 +1,359 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.AccountLedger;
+import uk.ac.glasgow.jagora.impl.ConcurrentStockExchange;
+import uk.ac.glasgow.jagora.impl.ConcurrentWorld;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.Journal;
+import uk.ac.glasgow.jagora.impl.JournalHandler;
+import uk.ac.glasgow.jagora.impl.JournalReader;
+import uk.ac.glasgow.jagora.impl.JournalReplayer;
+import uk.ac.glasgow.jagora.impl.JournalingStockExchange;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+
+public class JournalTest {
+
+	private static final int SEGMENT_SIZE = 2048;
+
+	private Path directory;
+	private Stock lemons;
+	private Stock limes;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("journal");
+		lemons = new DefaultStock("lemons");
+		limes = new DefaultStock("limes");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	private Map<String, Trader> createTraders() {
+		Map<String, Trader> traders = new HashMap<>();
+		traders.put("buyer", new DefaultTrader("buyer", 10000.0, lemons, 0));
+		traders.put("seller", new DefaultTrader("seller", 0.0, lemons, 500));
+		return traders;
+	}
+
+	private Stock findStock(String name) {
+		return name.equals("lemons") ? lemons : limes;
+	}
+
+	/**
+	 * Trades enough orders to fill several segments, leaving some orders resting.
+	 */
+	private void trade(StockExchange stockExchange, Map<String, Trader> traders) {
+		Trader buyer = traders.get("buyer");
+		Trader seller = traders.get("seller");
+		for (int i = 0; i < 100; i++) {
+			SellOrder sellOrder = new LimitSellOrder(seller, lemons, 2, 1.0 + i % 7);
+			stockExchange.placeSellOrder(sellOrder);
+			stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 1.0 + i % 5));
+			if (i % 10 == 9) stockExchange.doClearing();
+			if (i % 3 == 0) stockExchange.cancelSellOrder(sellOrder);
+		}
+		stockExchange.doClearing();
+	}
+
+	private static List<Double> prices(List<TickEvent<Trade>> tradeHistory) {
+		List<Double> prices = new ArrayList<>();
+		for (TickEvent<Trade> tradeEvent : tradeHistory) prices.add(tradeEvent.getEvent().getPrice());
+		return prices;
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		Map<String, Trader> traders = createTraders();
+		StockExchange original;
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 16)) {
+			original = new JournalingStockExchange(new DefaultStockExchange(new DefaultWorld()), journal);
+			trade(original, traders);
+		}
+		assertTrue(Files.list(directory).count() > 1);
+
+		Map<String, Trader> replayedTraders = createTraders();
+		StockExchange replayed = new DefaultStockExchange(new DefaultWorld());
+		JournalReplayer replayer = new JournalReplayer(replayedTraders::get, this::findStock);
+		replayer.replay(directory, replayed);
+
+		assertEquals(prices(original.getTradeHistory(lemons)), prices(replayed.getTradeHistory(lemons)));
+		assertEquals(original.getBestBid(lemons), replayed.getBestBid(lemons));
+		assertEquals(original.getBestOffer(lemons), replayed.getBestOffer(lemons));
+		assertEquals(traders.get("buyer").getCash(), replayedTraders.get("buyer").getCash(), 0.0);
+		assertEquals(
+			traders.get("seller").getInventoryHolding(lemons),
+			replayedTraders.get("seller").getInventoryHolding(lemons));
+	}
+
+	@Test
+	public void testRecordsTrades() throws IOException {
+		Map<String, Trader> traders = createTraders();
+		StockExchange stockExchange;
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 0)) {
+			stockExchange = new JournalingStockExchange(new DefaultStockExchange(new DefaultWorld()), journal);
+			trade(stockExchange, traders);
+		}
+		List<Double> prices = new ArrayList<>();
+		new JournalReader(directory).read(new JournalHandler() {
+			@Override
+			public void tradeExecuted(
+					long sequence, long tick, int stockId, long buyOrderId, long sellOrderId,
+					int quantity, double price) {
+				prices.add(price);
+			}
+		});
+		assertEquals(prices(stockExchange.getTradeHistory(lemons)), prices);
+	}
+
+	@Test
+	public void testReopenAndAppend() throws IOException {
+		Map<String, Trader> traders = createTraders();
+		long sequence;
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 1)) {
+			StockExchange stockExchange = new JournalingStockExchange(new DefaultStockExchange(new DefaultWorld()), journal);
+			trade(stockExchange, traders);
+			sequence = journal.getSequence();
+		}
+		Trader seller = traders.get("seller");
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 1)) {
+			assertEquals(sequence, journal.getSequence());
+			journal.placeSellOrder(new LimitSellOrder(seller, limes, 3, 4.0));
+		}
+
+		List<Long> sequences = new ArrayList<>();
+		List<Long> orderIds = new ArrayList<>();
+		long lastSequence = new JournalReader(directory).read(new JournalHandler() {
+			@Override
+			public void orderPlaced(
+					long sequence, boolean buy, long orderId, int stockId, int traderId,
+					int quantity, double price, boolean fixedPoint) {
+				sequences.add(sequence);
+				orderIds.add(orderId);
+			}
+		}, sequence);
+		// the new stock and the seller, who is defined again, are recorded first
+		assertEquals(sequence + 3, lastSequence);
+		assertEquals(1, sequences.size());
+		assertEquals(sequence + 3, sequences.get(0).longValue());
+		assertEquals(200l, orderIds.get(0).longValue());
+	}
+
+	@Test
+	public void testTornRecordIsIgnored() throws IOException {
+		long sequence;
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 0)) {
+			journal.placeBuyOrder(new LimitBuyOrder(createTraders().get("buyer"), lemons, 1, 1.0));
+			sequence = journal.getSequence();
+		}
+		// just after the stock, trader and order records
+		long end = 8 + 29 + 32 + 46;
+		Path segment = Files.list(directory).findFirst().get();
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+			// a record whose length was written, but only some of whose
+			// contents reached the disk, holding what would be a complete
+			// clearing record if a shorter record were written before it
+			ByteBuffer torn = ByteBuffer.allocate(46 + 4);
+			torn.putInt(46).putInt(0).putLong(sequence + 1).put((byte) 3);
+			torn.position(17);
+			torn.put(clearingRecord(sequence + 2));
+			torn.flip();
+			channel.write(torn, end);
+		}
+		assertEquals(sequence, new JournalReader(directory).read(new JournalHandler() {}));
+
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 0)) {
+			assertEquals(sequence, journal.getSequence());
+			journal.clearing();
+		}
+		List<Long> clearings = new ArrayList<>();
+		long lastSequence = new JournalReader(directory).read(new JournalHandler() {
+			@Override
+			public void clearing(long sequence) {
+				clearings.add(sequence);
+			}
+		});
+		assertEquals(sequence + 1, lastSequence);
+		assertEquals(1, clearings.size());
+	}
+
+	/**
+	 * @return a complete clearing record with the specified sequence number.
+	 */
+	private static ByteBuffer clearingRecord(long sequence) {
+		ByteBuffer record = ByteBuffer.allocate(17);
+		record.putInt(13).putInt(0).putLong(sequence).put((byte) 7);
+		CRC32 checksum = new CRC32();
+		checksum.update(record.array(), 8, 9);
+		record.putInt(4, (int) checksum.getValue());
+		record.flip();
+		return record;
+	}
+
+	@Test
+	public void testUnfundedOrdersAreForgotten() throws IOException {
+		Trader buyer = new DefaultTrader("buyer", 1.0, lemons, 0);
+		Trader seller = new DefaultTrader("seller", 0.0, lemons, 5);
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 0)) {
+			StockExchange stockExchange = new JournalingStockExchange(new DefaultStockExchange(new DefaultWorld()), journal);
+			stockExchange.placeSellOrder(new LimitSellOrder(seller, lemons, 5, 2.0));
+			stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 5, 2.0));
+			assertEquals(2, journal.getOrderCount());
+			stockExchange.doClearing();
+			assertEquals(null, stockExchange.getBestBid(lemons));
+			assertEquals(1, journal.getOrderCount());
+		}
+	}
+
+	@Test
+	public void testRestoredOrdersCanBeCancelled() throws IOException {
+		Map<String, Trader> traders = createTraders();
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 0)) {
+			journal.placeBuyOrder(new LimitBuyOrder(traders.get("buyer"), lemons, 5, 1.5));
+		}
+
+		StockExchange replayed = new DefaultStockExchange(new DefaultWorld());
+		JournalReplayer replayer = new JournalReplayer(traders::get, this::findStock);
+		replayer.replay(directory, replayed);
+		assertEquals(1.5, replayed.getBestBid(lemons), 0.0);
+
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 0)) {
+			journal.restoreOrders(replayer.getOrders());
+			StockExchange stockExchange = new JournalingStockExchange(replayed, journal);
+			stockExchange.cancelBuyOrder((BuyOrder) replayer.getOrders().get(0l));
+		}
+		List<Long> cancelledIds = new ArrayList<>();
+		new JournalReader(directory).read(new JournalHandler() {
+			@Override
+			public void orderCancelled(
+					long sequence, boolean buy, long orderId, int stockId, int traderId,
+					int quantity, double price, boolean fixedPoint) {
+				cancelledIds.add(orderId);
+			}
+		});
+		assertEquals(1, cancelledIds.size());
+		assertEquals(0l, cancelledIds.get(0).longValue());
+		assertEquals(null, replayed.getBestBid(lemons));
+	}
+
+	@Test
+	public void testTradersSharingANameAreReplayedApart() throws IOException {
+		List<DefaultTrader> traders = createTwins(new AccountLedger());
+		try (Journal journal = new Journal(directory, SEGMENT_SIZE, 0)) {
+			StockExchange stockExchange = new JournalingStockExchange(new DefaultStockExchange(new DefaultWorld()), journal);
+			stockExchange.placeSellOrder(new LimitSellOrder(traders.get(2), lemons, 5, 2.0));
+			stockExchange.placeBuyOrder(new LimitBuyOrder(traders.get(0), lemons, 3, 2.0));
+			stockExchange.placeBuyOrder(new LimitBuyOrder(traders.get(1), lemons, 1, 2.0));
+			stockExchange.doClearing();
+		}
+		assertEquals(94.0, traders.get(0).getCash(), 0.0);
+		assertEquals(98.0, traders.get(1).getCash(), 0.0);
+
+		List<DefaultTrader> replayedTraders = createTwins(new AccountLedger());
+		StockExchange replayed = new DefaultStockExchange(new DefaultWorld());
+		new JournalReplayer((name, account) -> replayedTraders.get(account), this::findStock).replay(directory, replayed);
+		for (int i = 0; i < traders.size(); i++) {
+			assertEquals(traders.get(i).getCash(), replayedTraders.get(i).getCash(), 0.0);
+			assertEquals(traders.get(i).getInventoryHolding(lemons), replayedTraders.get(i).getInventoryHolding(lemons));
+		}
+	}
+
+	/**
+	 * @return two buyers named alike and a seller, in the order of their accounts.
+	 */
+	private List<DefaultTrader> createTwins(AccountLedger ledger) {
+		List<DefaultTrader> traders = new ArrayList<>();
+		traders.add(new DefaultTrader(ledger, "twin", 100.0, lemons, 0));
+		traders.add(new DefaultTrader(ledger, "twin", 100.0, lemons, 0));
+		traders.add(new DefaultTrader(ledger, "seller", 0.0, lemons, 5));
+		return traders;
+	}
+
+	@Test
+	public void testReplayOfStocksTradedConcurrently() throws Exception {
+		Stock[] stocks = new Stock[8];
+		for (int i = 0; i < stocks.length; i++) stocks[i] = new DefaultStock("stock" + i);
+		Map<String, Stock> stocksByName = new HashMap<>();
+		for (Stock stock : stocks) stocksByName.put(stock.getName(), stock);
+
+		Map<String, Trader> traders = createTraders(stocks);
+		StockExchange original = new ConcurrentStockExchange(new ConcurrentWorld());
+		try (Journal journal = new Journal(directory, 1 << 16, 0)) {
+			StockExchange journaled = new JournalingStockExchange(original, journal);
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++) {
+				int first = t;
+				threads[t] = new Thread(() -> {
+					for (int i = 0; i < 200; i++) {
+						Stock stock = stocks[first + threads.length * (i % 2)];
+						Trader buyer = traders.get("buyer" + stock.getName());
+						Trader seller = traders.get("seller" + stock.getName());
+						journaled.placeSellOrder(new LimitSellOrder(seller, stock, 2, 1.0 + i % 7));
+						journaled.placeBuyOrder(new LimitBuyOrder(buyer, stock, 1, 1.0 + i % 5));
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads) thread.join();
+			journaled.doClearing();
+		}
+
+		Map<String, Trader> replayedTraders = createTraders(stocks);
+		StockExchange replayed = new ConcurrentStockExchange(new ConcurrentWorld());
+		new JournalReplayer(replayedTraders::get, stocksByName::get).replay(directory, replayed);
+		for (Stock stock : stocks) {
+			assertEquals(prices(original.getTradeHistory(stock)), prices(replayed.getTradeHistory(stock)));
+			assertEquals(original.getBestBid(stock), replayed.getBestBid(stock));
+			assertEquals(original.getBestOffer(stock), replayed.getBestOffer(stock));
+		}
+	}
+
+	/**
+	 * @return a buyer and a seller of each stock, named after it.
+	 */
+	private static Map<String, Trader> createTraders(Stock[] stocks) {
+		Map<String, Trader> traders = new HashMap<>();
+		for (Stock stock : stocks) {
+			traders.put("buyer" + stock.getName(), new DefaultTrader("buyer" + stock.getName(), 10000.0, stock, 0));
+			traders.put("seller" + stock.getName(), new DefaultTrader("seller" + stock.getName(), 0.0, stock, 1000));
+		}
+		return traders;
+	}
+
+}
@@ -0,0 +1,160 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static org.junit.Assert.assertEquals;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.ConcurrentStockExchange;
+import uk.ac.glasgow.jagora.impl.ContinuousOrderDrivenMarket;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.MarketEventLoop;
+import uk.ac.glasgow.jagora.impl.WaitStrategy;
+import uk.ac.glasgow.jagora.test.MarketTest;
+
+@RunWith(Enclosed.class)
+public class MarketEventLoopTest {
+
+	public static class TestAsMarket extends MarketTest {
+
+		@Before
+		public void setUp() {
+			buyOrders =
+				unmodifiableList(asList(new BuyOrder[]{
+					new LimitBuyOrder(buyer, lemons, 1, 2.5),
+					new LimitBuyOrder(buyer, lemons, 1, 1.0),
+					new LimitBuyOrder(buyer, lemons, 1, 0.5),
+					new LimitBuyOrder(buyer, lemons, 1, 0.5)}));
+
+			sellOrders =
+				unmodifiableList(asList(new SellOrder[]{
+					new LimitSellOrder(seller, lemons, 2, 0.2),
+					new LimitSellOrder(seller, lemons, 1, 0.5),
+					new LimitSellOrder(seller, lemons, 1, 0.5),
+					new LimitSellOrder(seller, lemons, 1, 2.5)}));
+
+			// The market tests read the best bid and offer straight after
+			// placing orders, so reads wait for the orders to be applied.
+			market = new MarketEventLoop(new ContinuousOrderDrivenMarket(lemons, new DefaultWorld()), 4) {
+				@Override
+				public Double getBestBid() {
+					awaitApplied(getPublishedSequence());
+					return super.getBestBid();
+				}
+
+				@Override
+				public Double getBestOffer() {
+					awaitApplied(getPublishedSequence());
+					return super.getBestOffer();
+				}
+			}.start();
+		}
+
+		@After
+		public void tearDown() throws Exception {
+			((MarketEventLoop) market).stop();
+		}
+	}
+
+	public static class TestSequencing {
+
+		private MarketEventLoop eventLoop;
+
+		@Before
+		public void setUp() {
+			eventLoop = new MarketEventLoop(new ContinuousOrderDrivenMarket(lemons, new DefaultWorld()), 8).start();
+		}
+
+		@After
+		public void tearDown() throws Exception {
+			eventLoop.stop();
+		}
+
+		@Test
+		public void testCommandsAreSequenced() {
+			for (int i = 0; i < 20; i++) {
+				eventLoop.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 0.1 * i));
+			}
+			assertEquals(19, eventLoop.getPublishedSequence());
+			eventLoop.awaitApplied(19);
+			assertEquals(19, eventLoop.getAppliedSequence());
+			assertEquals(1.9, eventLoop.getBestBid(), 1e-9);
+		}
+
+		@Test
+		public void testManyProducers() throws Exception {
+			Stock stock = new DefaultStock("apples");
+			Trader buyer = new DefaultTrader("buyer", 10000.0, stock, 0);
+			Trader seller = new DefaultTrader("seller", 0.0, stock, 4000);
+			MarketEventLoop eventLoop = new MarketEventLoop(new ContinuousOrderDrivenMarket(stock, new DefaultWorld()), 64).start();
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				threads.add(new Thread(() -> {
+					for (int i = 0; i < 1000; i++) {
+						eventLoop.placeSellOrder(new LimitSellOrder(seller, stock, 1, 1.0));
+						eventLoop.placeBuyOrder(new LimitBuyOrder(buyer, stock, 1, 1.0));
+					}
+				}));
+			}
+			for (Thread thread : threads) thread.start();
+			for (Thread thread : threads) thread.join();
+
+			assertEquals(4000, eventLoop.doClearing().size());
+			assertEquals(0, eventLoop.getFailedCommands());
+			eventLoop.stop();
+		}
+
+		@Test
+		public void testBusySpinning() throws Exception {
+			MarketEventLoop eventLoop = new MarketEventLoop(
+				new ContinuousOrderDrivenMarket(lemons, new DefaultWorld()), 8, WaitStrategy.busySpin()).start();
+			eventLoop.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 0.5));
+			eventLoop.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 0.5));
+			assertEquals(1, eventLoop.doClearing().size());
+			eventLoop.stop();
+		}
+
+		@Test(expected = IllegalStateException.class)
+		public void testRejectsCommandsAfterStop() throws Exception {
+			MarketEventLoop eventLoop = new MarketEventLoop(new ContinuousOrderDrivenMarket(lemons, new DefaultWorld()), 8).start();
+			eventLoop.stop();
+			eventLoop.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 0.5));
+		}
+	}
+
+	public static class TestInStockExchange {
+
+		@Test
+		public void testTradesReachHistory() throws Exception {
+			MarketEventLoop[] eventLoops = new MarketEventLoop[1];
+			StockExchange stockExchange = new ConcurrentStockExchange(new DefaultWorld(),
+				(stock, world) -> eventLoops[0] = new MarketEventLoop(new ContinuousOrderDrivenMarket(stock, world)).start());
+			stockExchange.placeSellOrder(new LimitSellOrder(seller, lemons, 1, 0.5));
+			stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 1, 0.5));
+			stockExchange.doClearing();
+			assertEquals(1, stockExchange.getTradeHistory(lemons).size());
+			eventLoops[0].stop();
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.PriceLevelOrderBook;
+import uk.ac.glasgow.jagora.test.OrderBookTest;
+
+public class PriceLevelOrderBookTest extends OrderBookTest {
+
+	@Before
+	public void setUp() {
+		orderBook = new PriceLevelOrderBook<BuyOrder>(new DefaultWorld());
+	}
+
+	@Test
+	public void testCancelOrderWithinLevel() {
+		BuyOrder first = new LimitBuyOrder(buyer, lemons, 1, 0.5);
+		BuyOrder second = new LimitBuyOrder(buyer, lemons, 2, 0.5);
+		BuyOrder third = new LimitBuyOrder(buyer, lemons, 3, 0.5);
+		orderBook.recordOrder(first);
+		orderBook.recordOrder(second);
+		orderBook.recordOrder(third);
+
+		orderBook.cancelOrder(second);
+		assertEquals(2, orderBook.getOrdersAsList().size());
+		assertSame(first, orderBook.getBestOrder());
+
+		orderBook.cancelOrder(first);
+		assertSame(third, orderBook.getBestOrder());
+	}
+
+	@Test
+	public void testCancelEqualOrder() {
+		orderBook.recordOrder(new LimitBuyOrder(buyer, lemons, 1, 0.5));
+		orderBook.cancelOrder(new LimitBuyOrder(buyer, lemons, 1, 0.5));
+		assertEquals(0, orderBook.getOrdersAsList().size());
+	}
+
+}
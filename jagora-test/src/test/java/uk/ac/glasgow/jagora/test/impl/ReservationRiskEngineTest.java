@@ -0,0 +1,142 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.ContinuousOrderDrivenMarket;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.ReservationRiskEngine;
+import uk.ac.glasgow.jagora.impl.ReservationRiskEngine.Reservation;
+
+public class ReservationRiskEngineTest {
+
+	private ReservationRiskEngine riskEngine;
+	private Trader buyer;
+	private Trader seller;
+
+	@Before
+	public void setUp() {
+		riskEngine = new ReservationRiskEngine();
+		buyer = new DefaultTrader("buyer", 100.0, lemons, 0);
+		seller = new DefaultTrader("seller", 0.0, lemons, 10);
+	}
+
+	@Test
+	public void testReserveBuyOrder() {
+		assertNotNull(riskEngine.reserve(new LimitBuyOrder(buyer, lemons, 6, 10.0)));
+		assertEquals(60.0, riskEngine.getReservedCash(buyer), 0.0);
+		assertNull(riskEngine.reserve(new LimitBuyOrder(buyer, lemons, 5, 10.0)));
+		assertEquals(60.0, riskEngine.getReservedCash(buyer), 0.0);
+	}
+
+	@Test
+	public void testReserveSellOrder() {
+		assertNotNull(riskEngine.reserve(new LimitSellOrder(seller, lemons, 7, 1.0)));
+		assertEquals(7, riskEngine.getReservedStock(seller, lemons).intValue());
+		assertNull(riskEngine.reserve(new LimitSellOrder(seller, lemons, 4, 1.0)));
+	}
+
+	@Test
+	public void testFilledReleasesReservation() {
+		Reservation reservation = riskEngine.reserve(new LimitBuyOrder(buyer, lemons, 6, 10.0));
+		riskEngine.filled(reservation, 2);
+		assertEquals(40.0, riskEngine.getReservedCash(buyer), 0.0);
+	}
+
+	@Test
+	public void testCancelledReleasesReservation() {
+		Reservation reservation = riskEngine.reserve(new LimitSellOrder(seller, lemons, 7, 1.0));
+		riskEngine.filled(reservation, 3);
+		assertEquals(4, riskEngine.getReservedStock(seller, lemons).intValue());
+		riskEngine.cancelled(reservation);
+		assertEquals(0, riskEngine.getReservedStock(seller, lemons).intValue());
+		riskEngine.cancelled(reservation);
+		assertEquals(0, riskEngine.getReservedStock(seller, lemons).intValue());
+	}
+
+	@Test
+	public void testMarketReleasesOnCancel() {
+		ContinuousOrderDrivenMarket market =
+			new ContinuousOrderDrivenMarket(lemons, new DefaultWorld(), false, riskEngine);
+		BuyOrder buyOrder = new LimitBuyOrder(buyer, lemons, 5, 10.0);
+		SellOrder sellOrder = new LimitSellOrder(seller, lemons, 3, 20.0);
+
+		market.placeBuyOrder(buyOrder);
+		market.placeSellOrder(sellOrder);
+		market.cancelBuyOrder(buyOrder);
+		market.cancelSellOrder(sellOrder);
+
+		assertEquals(0.0, riskEngine.getReservedCash(buyer), 0.0);
+		assertEquals(0, riskEngine.getReservedStock(seller, lemons).intValue());
+	}
+
+	@Test
+	public void testMarketIgnoresRestingOrderPlacedAgain() {
+		ContinuousOrderDrivenMarket market =
+			new ContinuousOrderDrivenMarket(lemons, new DefaultWorld(), false, riskEngine);
+		BuyOrder buyOrder = new LimitBuyOrder(buyer, lemons, 5, 10.0);
+
+		market.placeBuyOrder(buyOrder);
+		market.placeBuyOrder(buyOrder);
+
+		assertEquals(1, market.getBuyOrders().size());
+		assertEquals(50.0, riskEngine.getReservedCash(buyer), 0.0);
+		market.cancelBuyOrder(buyOrder);
+		assertEquals(0.0, riskEngine.getReservedCash(buyer), 0.0);
+	}
+
+	@Test
+	public void testMarketRejectsUnfundedOrders() {
+		ContinuousOrderDrivenMarket market =
+			new ContinuousOrderDrivenMarket(lemons, new DefaultWorld(), false, riskEngine);
+
+		market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 11, 10.0));
+		market.placeSellOrder(new LimitSellOrder(seller, lemons, 11, 1.0));
+		assertNull(market.getBestBid());
+		assertNull(market.getBestOffer());
+	}
+
+	@Test
+	public void testMarketReleasesOnClearing() {
+		ContinuousOrderDrivenMarket market =
+			new ContinuousOrderDrivenMarket(lemons, new DefaultWorld(), false, riskEngine);
+
+		market.placeBuyOrder(new LimitBuyOrder(buyer, lemons, 5, 10.0));
+		market.placeSellOrder(new LimitSellOrder(seller, lemons, 3, 8.0));
+		assertEquals(1, market.doClearing().size());
+
+		assertEquals(20.0, riskEngine.getReservedCash(buyer), 0.0);
+		assertEquals(0, riskEngine.getReservedStock(seller, lemons).intValue());
+		assertEquals(76.0, buyer.getCash(), 0.0);
+	}
+
+	/**
+	 * A unit price of less than one minor unit rounds up, so the buyer pays
+	 * exactly the three minor units reserved for three units of stock.
+	 */
+	@Test
+	public void testSettlementChargesWhatWasReserved() {
+		Trader smallBuyer = new DefaultTrader("small buyer", 0.0003, lemons, 0);
+		ContinuousOrderDrivenMarket market =
+			new ContinuousOrderDrivenMarket(lemons, new DefaultWorld(), false, riskEngine);
+
+		market.placeBuyOrder(new LimitBuyOrder(smallBuyer, lemons, 3, 0.00006));
+		market.placeSellOrder(new LimitSellOrder(seller, lemons, 3, 0.00006));
+		assertEquals(1, market.doClearing().size());
+
+		assertEquals(0.0, riskEngine.getReservedCash(smallBuyer), 0.0);
+		assertEquals(0.0, smallBuyer.getCash(), 0.0);
+	}
+
+}
@@ -0,0 +1,205 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.StockExchange;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.ConcurrentStockExchange;
+import uk.ac.glasgow.jagora.impl.ConcurrentWorld;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.RandomTrader;
+import uk.ac.glasgow.jagora.impl.Simulation;
+import uk.ac.glasgow.jagora.test.stub.StubTrader;
+
+public class SimulationTest {
+
+	private ConcurrentStockExchange stockExchange;
+
+	@Before
+	public void setUp() {
+		stockExchange = new ConcurrentStockExchange(new ConcurrentWorld());
+	}
+
+	/**
+	 * A trader that counts its speaks and places a buy order on each.
+	 */
+	private static class CountingTrader extends StubTrader {
+		private final AtomicInteger speaks = new AtomicInteger();
+
+		private CountingTrader(String name) {
+			super(name, 0.0, new HashMap<Stock, Integer>());
+		}
+
+		@Override
+		public void speak(StockExchange stockExchange) {
+			speaks.incrementAndGet();
+			stockExchange.placeBuyOrder(new LimitBuyOrder(this, lemons, 1, 1.0));
+		}
+	}
+
+	@Test
+	public void testRounds() {
+		List<CountingTrader> traders = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) traders.add(new CountingTrader("trader" + i));
+		Simulation simulation = new Simulation(stockExchange, traders);
+		simulation.setRounds(5);
+
+		assertEquals(5, simulation.run());
+		for (CountingTrader trader : traders) assertEquals(5, trader.speaks.get());
+		assertEquals(1.0, stockExchange.getBestBid(lemons), 0.0);
+		assertEquals(5000, stockExchange.getMarkets().get(0).getBuyOrders().size());
+	}
+
+	@Test
+	public void testStopCondition() {
+		CountingTrader trader = new CountingTrader("trader");
+		Simulation simulation = new Simulation(stockExchange, asList(trader));
+		simulation.setRounds(100);
+		simulation.setStopCondition(() -> trader.speaks.get() == 3);
+
+		assertEquals(3, simulation.run());
+	}
+
+	@Test
+	public void testClearingInterval() {
+		Stock stock = new DefaultStock("limes");
+		Trader seller = new DefaultTrader("seller", 0.0, stock, 10);
+		Trader buyer = new StubTrader("buyer", 0.0, new HashMap<Stock, Integer>()) {
+			@Override
+			public void speak(StockExchange stockExchange) {
+				stockExchange.placeSellOrder(new LimitSellOrder(seller, stock, 1, 1.0));
+				stockExchange.placeBuyOrder(new LimitBuyOrder(new DefaultTrader("buyer", 10.0, stock, 0), stock, 1, 1.0));
+				stockExchange.doClearing();
+			}
+		};
+		Simulation simulation = new Simulation(stockExchange, asList(buyer));
+		simulation.setRounds(5);
+		simulation.setClearingInterval(2);
+		simulation.run();
+
+		assertEquals(4, stockExchange.getTradeHistory(stock).size());
+		assertEquals(1.0, stockExchange.getBestBid(stock), 0.0);
+	}
+
+	@Test
+	public void testSpeakDeadline() {
+		Trader slowTrader = new StubTrader("slow", 0.0, new HashMap<Stock, Integer>()) {
+			@Override
+			public void speak(StockExchange stockExchange) {
+				try {
+					Thread.sleep(50);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				stockExchange.placeBuyOrder(new LimitBuyOrder(this, lemons, 1, 2.0));
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		Simulation simulation = new Simulation(stockExchange, asList(slowTrader, new CountingTrader("quick")));
+		simulation.setExecutor(executor);
+		simulation.setSpeakDeadline(10, TimeUnit.MILLISECONDS);
+		simulation.run();
+		executor.shutdown();
+
+		assertEquals(1, simulation.getLateOrders());
+		assertEquals(1.0, stockExchange.getBestBid(lemons), 0.0);
+	}
+
+	/**
+	 * The quick trader waits for the slow one on the single thread, by which
+	 * time the round's deadline has passed for both of them.
+	 */
+	@Test
+	public void testSpeakDeadlineIsSharedByRound() {
+		Trader slowTrader = new StubTrader("slow", 0.0, new HashMap<Stock, Integer>()) {
+			@Override
+			public void speak(StockExchange stockExchange) {
+				try {
+					Thread.sleep(50);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Simulation simulation = new Simulation(stockExchange, asList(slowTrader, new CountingTrader("quick")));
+		simulation.setExecutor(executor);
+		simulation.setSpeakDeadline(10, TimeUnit.MILLISECONDS);
+		simulation.run();
+		executor.shutdown();
+
+		assertEquals(1, simulation.getLateOrders());
+		assertEquals(null, stockExchange.getBestBid(lemons));
+	}
+
+	@Test
+	public void testWindowClosesWhenSpeakReturns() {
+		List<StockExchange> kept = new ArrayList<>();
+		Trader keeper = new StubTrader("keeper", 0.0, new HashMap<Stock, Integer>()) {
+			@Override
+			public void speak(StockExchange stockExchange) {
+				kept.add(stockExchange);
+			}
+		};
+		Simulation simulation = new Simulation(stockExchange, asList(keeper));
+		simulation.run();
+		kept.get(0).placeBuyOrder(new LimitBuyOrder(keeper, lemons, 1, 1.0));
+
+		assertEquals(1, simulation.getLateOrders());
+		assertEquals(null, stockExchange.getBestBid(lemons));
+	}
+
+	@Test
+	public void testRandomTraders() {
+		Stock stock = new DefaultStock("limes");
+		Trader marketMaker = new DefaultTrader("marketMaker", 1000.0, stock, 1000);
+		stockExchange.placeBuyOrder(new LimitBuyOrder(marketMaker, stock, 1, 9.0));
+		stockExchange.placeSellOrder(new LimitSellOrder(marketMaker, stock, 1, 11.0));
+		List<Trader> traders = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			traders.add(new RandomTrader("random" + i, 1000.0, stock, 100, 5, 2.0, new Random(i)));
+		}
+		Simulation simulation = new Simulation(stockExchange, traders);
+		simulation.setRounds(20);
+		simulation.setClearingInterval(5);
+
+		assertEquals(20, simulation.run());
+		assertEquals(0, simulation.getLateOrders());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testTraderFailure() {
+		Trader failing = new StubTrader("failing", 0.0, new HashMap<Stock, Integer>()) {
+			@Override
+			public void speak(StockExchange stockExchange) {
+				throw new IllegalArgumentException();
+			}
+		};
+		new Simulation(stockExchange, asList(failing)).run();
+	}
+
+	private static List<Trader> asList(Trader... traders) {
+		return Arrays.asList(traders);
+	}
+
+}
@@ -0,0 +1,181 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.Market;
+import uk.ac.glasgow.jagora.Order;
+import uk.ac.glasgow.jagora.SellOrder;
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trader;
+import uk.ac.glasgow.jagora.impl.AccountLedger;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultTrader;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.Journal;
+import uk.ac.glasgow.jagora.impl.JournalReplayer;
+import uk.ac.glasgow.jagora.impl.JournalingStockExchange;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.Snapshot;
+import uk.ac.glasgow.jagora.impl.SnapshotReplica;
+
+public class SnapshotTest {
+
+	private Path directory;
+	private Stock lemons;
+	private Map<String, Trader> traders;
+	private DefaultStockExchange stockExchange;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("snapshot");
+		lemons = new DefaultStock("lemons");
+		traders = createTraders();
+		stockExchange = new DefaultStockExchange(new DefaultWorld());
+	}
+
+	private Map<String, Trader> createTraders() {
+		Map<String, Trader> traders = new LinkedHashMap<>();
+		traders.put("buyer", new DefaultTrader("buyer", 10000.0, lemons, 0));
+		traders.put("seller", new DefaultTrader("seller", 0.0, lemons, 500));
+		return traders;
+	}
+
+	/**
+	 * @return a replica of the journaled stock exchange, with traders of its own.
+	 */
+	private SnapshotReplica createReplica(Path journalDirectory) {
+		Map<String, Trader> replicaTraders = createTraders();
+		return new SnapshotReplica(
+			journalDirectory, new DefaultStockExchange(new DefaultWorld()), replicaTraders.values(),
+			(name, account) -> replicaTraders.get(name), name -> lemons);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	private List<SellOrder> trade(JournalingStockExchange journaled, int from, int to) {
+		List<SellOrder> sellOrders = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			SellOrder sellOrder = new LimitSellOrder(traders.get("seller"), lemons, 2, 2.0 + i % 7);
+			sellOrders.add(sellOrder);
+			journaled.placeSellOrder(sellOrder);
+			journaled.placeBuyOrder(new LimitBuyOrder(traders.get("buyer"), lemons, 1, 1.0 + i % 5));
+			if (i % 10 == 9) journaled.doClearing();
+		}
+		return sellOrders;
+	}
+
+	private static List<String> describe(List<? extends TickEvent<? extends Order>> orders) {
+		List<String> descriptions = new ArrayList<>();
+		for (TickEvent<? extends Order> tickEvent : orders) {
+			Order order = tickEvent.getEvent();
+			descriptions.add(order.getTrader().getName() + " " + order.getRemainingQuantity() + "@" + order.getPrice());
+		}
+		return descriptions;
+	}
+
+	@Test
+	public void testRestoreAndReplayTail() throws IOException {
+		Path file = directory.resolve("snapshot");
+		Path journalDirectory = directory.resolve("journal");
+		try (Journal journal = new Journal(journalDirectory, 4096, 0)) {
+			JournalingStockExchange journaled = new JournalingStockExchange(stockExchange, journal);
+			List<SellOrder> sellOrders = trade(journaled, 0, 50);
+			Snapshot snapshot = createReplica(journalDirectory).takeSnapshot();
+			assertEquals(journal.getSequence(), snapshot.getSequence());
+			trade(journaled, 50, 80);
+			snapshot.write(file);
+			for (SellOrder sellOrder : sellOrders) journaled.cancelSellOrder(sellOrder);
+			trade(journaled, 80, 100);
+		}
+
+		Snapshot snapshot = Snapshot.read(file);
+		Map<String, Trader> restoredTraders = snapshot.restoreTraders(new AccountLedger(), name -> lemons);
+		DefaultStockExchange restored = new DefaultStockExchange(new DefaultWorld());
+		Map<Long, Order> orders = snapshot.restoreOrders(restored, restoredTraders::get, name -> lemons);
+		assertEquals(snapshot.getOrderCount(), orders.size());
+
+		JournalReplayer replayer = new JournalReplayer(restoredTraders::get, name -> lemons);
+		for (Map.Entry<Long, Order> entry : orders.entrySet()) replayer.addOrder(entry.getKey(), entry.getValue());
+		replayer.replay(journalDirectory, restored, snapshot.getSequence());
+
+		Market market = stockExchange.getMarkets().get(0);
+		Market restoredMarket = restored.getMarkets().get(0);
+		assertEquals(describe(market.getBuyOrders()), describe(restoredMarket.getBuyOrders()));
+		assertEquals(describe(market.getSellOrders()), describe(restoredMarket.getSellOrders()));
+		for (String name : traders.keySet()) {
+			assertEquals(traders.get(name).getCash(), restoredTraders.get(name).getCash(), 0.0);
+			assertEquals(
+				traders.get(name).getInventoryHolding(lemons),
+				restoredTraders.get(name).getInventoryHolding(lemons));
+		}
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		Path file = directory.resolve("snapshot");
+		Snapshot snapshot;
+		Path journalDirectory = directory.resolve("journal");
+		try (Journal journal = new Journal(journalDirectory, 4096, 0)) {
+			JournalingStockExchange journaled = new JournalingStockExchange(stockExchange, journal);
+			trade(journaled, 0, 8);
+			snapshot = createReplica(journalDirectory).takeSnapshot();
+			snapshot.write(file);
+		}
+		Snapshot read = Snapshot.read(file);
+		assertEquals(snapshot.getSequence(), read.getSequence());
+		assertEquals(16, read.getOrderCount());
+
+		DefaultStockExchange restored = new DefaultStockExchange(new DefaultWorld());
+		read.restoreOrders(restored, traders::get, name -> lemons);
+		assertEquals(
+			describe(stockExchange.getMarkets().get(0).getBuyOrders()),
+			describe(restored.getMarkets().get(0).getBuyOrders()));
+		assertEquals(stockExchange.getBestBid(lemons), restored.getBestBid(lemons));
+	}
+
+	@Test
+	public void testSnapshotsTakenWhileTrading() throws Exception {
+		Path journalDirectory = directory.resolve("journal");
+		SnapshotReplica replica = createReplica(journalDirectory);
+		try (Journal journal = new Journal(journalDirectory, 1 << 16, 0)) {
+			JournalingStockExchange journaled = new JournalingStockExchange(stockExchange, journal);
+			Thread trading = new Thread(() -> trade(journaled, 0, 500));
+			trading.start();
+			long sequence = 0;
+			while (trading.isAlive()) {
+				Snapshot snapshot = replica.takeSnapshot();
+				assertTrue(snapshot.getSequence() >= sequence);
+				sequence = snapshot.getSequence();
+			}
+			trading.join();
+			Snapshot snapshot = replica.takeSnapshot();
+			assertEquals(journal.getSequence(), snapshot.getSequence());
+			Market market = stockExchange.getMarkets().get(0);
+			assertEquals(market.getBuyOrders().size() + market.getSellOrders().size(), snapshot.getOrderCount());
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.buyer;
+import static uk.ac.glasgow.jagora.test.stub.StubTrader.seller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.impl.DefaultStock;
+import uk.ac.glasgow.jagora.impl.DefaultStockExchange;
+import uk.ac.glasgow.jagora.impl.DefaultWorld;
+import uk.ac.glasgow.jagora.impl.LimitBuyOrder;
+import uk.ac.glasgow.jagora.impl.LimitSellOrder;
+import uk.ac.glasgow.jagora.impl.StockRegistry;
+
+public class StockRegistryTest {
+
+	private StockRegistry stockRegistry;
+
+	@Before
+	public void setUp() {
+		stockRegistry = new StockRegistry();
+	}
+
+	@Test
+	public void testDenseIds() {
+		for (int i = 0; i < 40; i++) {
+			assertEquals(i, stockRegistry.register(new DefaultStock("stock" + i)));
+		}
+		assertEquals(40, stockRegistry.size());
+		assertEquals("stock39", stockRegistry.getStock(39).getName());
+	}
+
+	@Test
+	public void testIntern() {
+		Stock apples = new DefaultStock("apples");
+		assertSame(apples, stockRegistry.intern(apples));
+		assertSame(apples, stockRegistry.intern(new DefaultStock("apples")));
+		assertEquals(0, stockRegistry.getId(new DefaultStock("apples")));
+		assertEquals(-1, stockRegistry.getId(new DefaultStock("pears")));
+		assertEquals(1, stockRegistry.register(lemons));
+		assertEquals(1, stockRegistry.getId(lemons));
+	}
+
+	@Test
+	public void testIdsAreKeptPerRegistry() {
+		StockRegistry other = new StockRegistry();
+		DefaultStock apples = new DefaultStock("apples");
+		other.register(lemons);
+		assertEquals(1, other.register(apples));
+		assertEquals(0, stockRegistry.register(apples));
+		assertEquals(1, other.getId(apples));
+		assertEquals(0, stockRegistry.getId(apples));
+		assertEquals(1, other.register(new DefaultStock("apples")));
+	}
+
+	@Test
+	public void testEqualNamedStocksShareMarket() {
+		DefaultStockExchange stockExchange = new DefaultStockExchange(new DefaultWorld());
+		stockExchange.placeSellOrder(new LimitSellOrder(seller, new DefaultStock("lemons"), 1, 0.5));
+		stockExchange.placeBuyOrder(new LimitBuyOrder(buyer, new DefaultStock("lemons"), 1, 0.4));
+		assertEquals(0.5, stockExchange.getBestOffer(new DefaultStock("lemons")), 0.0);
+		assertEquals(0.4, stockExchange.getBestBid(new DefaultStock("lemons")), 0.0);
+	}
+
+}
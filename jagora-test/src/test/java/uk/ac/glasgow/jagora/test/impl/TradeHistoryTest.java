@@ -0,0 +1,79 @@
+package uk.ac.glasgow.jagora.test.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static uk.ac.glasgow.jagora.test.stub.StubStock.lemons;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.glasgow.jagora.TickEvent;
+import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.impl.DefaultTickEvent;
+import uk.ac.glasgow.jagora.impl.DefaultTrade;
+import uk.ac.glasgow.jagora.impl.TradeHistory;
+
+public class TradeHistoryTest {
+
+	private TradeHistory tradeHistory;
+
+	@Before
+	public void setUp() {
+		tradeHistory = new TradeHistory();
+		for (int i = 0; i < 40; i++) {
+			tradeHistory.tradeExecuted(createTradeEvent(i * 2l, i + 1, 0.5 + i));
+		}
+	}
+
+	private static TickEvent<Trade> createTradeEvent(Long tick, Integer quantity, Double price) {
+		return new DefaultTickEvent<Trade>(new DefaultTrade(null, null, null, lemons, quantity, price), tick);
+	}
+
+	@Test
+	public void testColumns() {
+		assertEquals(40, tradeHistory.size());
+		assertEquals(78l, tradeHistory.getTick(39));
+		assertEquals(39.5, tradeHistory.getPrice(39), 0.0);
+		assertEquals(40, tradeHistory.getQuantity(39));
+	}
+
+	@Test
+	public void testAsList() {
+		List<TickEvent<Trade>> trades = tradeHistory.asList();
+		assertEquals(40, trades.size());
+		assertEquals(0l, trades.get(0).getTick().longValue());
+		assertEquals(2.5, trades.get(2).getEvent().getPrice(), 0.0);
+	}
+
+	@Test
+	public void testViewIsUnaffectedByLaterTrades() {
+		List<TickEvent<Trade>> trades = tradeHistory.asList();
+		TickEvent<Trade> tradeEvent = createTradeEvent(100l, 1, 1.0);
+		tradeHistory.tradeExecuted(tradeEvent);
+		assertEquals(40, trades.size());
+		assertSame(tradeEvent, tradeHistory.asList().get(40));
+	}
+
+	@Test
+	public void testBetween() {
+		List<TickEvent<Trade>> trades = tradeHistory.between(5, 11);
+		assertEquals(3, trades.size());
+		assertEquals(6l, trades.get(0).getTick().longValue());
+		assertEquals(10l, trades.get(2).getTick().longValue());
+		assertEquals(0, tradeHistory.between(11, 5).size());
+		assertEquals(40, tradeHistory.between(Long.MIN_VALUE, Long.MAX_VALUE).size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testViewIsReadOnly() {
+		tradeHistory.asList().add(createTradeEvent(100l, 1, 1.0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOutOfOrderTrade() {
+		tradeHistory.tradeExecuted(createTradeEvent(1l, 1, 1.0));
+	}
+
+}
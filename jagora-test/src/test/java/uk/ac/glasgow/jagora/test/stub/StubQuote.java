@@ -0,0 +1,44 @@
+package uk.ac.glasgow.jagora.test.stub;
+
+import uk.ac.glasgow.jagora.Quote;
+
+public class StubQuote implements Quote {
+
+	public static final Quote fives = new StubQuote();
+
+	@Override
+	public boolean hasBid() {
+		return true;
+	}
+
+	@Override
+	public double getBid() {
+		return 5.0;
+	}
+
+	@Override
+	public int getBidQuantity() {
+		return 1;
+	}
+
+	@Override
+	public boolean hasOffer() {
+		return true;
+	}
+
+	@Override
+	public double getOffer() {
+		return 5.0;
+	}
+
+	@Override
+	public int getOfferQuantity() {
+		return 1;
+	}
+
+	@Override
+	public long getTick() {
+		return 0;
+	}
+
+}
@@ -1,14 +1,19 @@
 package uk.ac.glasgow.jagora.test.stub;
 
-import uk.ac.glasgow.jagora.Stock;
+import uk.ac.glasgow.jagora.FixedPointStock;
 
-public class StubStock implements Stock {
+public class StubStock implements FixedPointStock {
 	
-	public static final Stock lemons = new StubStock ();
+	public static final FixedPointStock lemons = new StubStock ();
 	
 	@Override
 	public String getName() {
 		return "lemons";
 	}
 
+	@Override
+	public double getTickSize() {
+		return 0.01;
+	}
+
 }
@@ -4,11 +4,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 import uk.ac.glasgow.jagora.BuyOrder;
+import uk.ac.glasgow.jagora.Quote;
 import uk.ac.glasgow.jagora.SellOrder;
 import uk.ac.glasgow.jagora.Stock;
 import uk.ac.glasgow.jagora.StockExchange;
 import uk.ac.glasgow.jagora.TickEvent;
 import uk.ac.glasgow.jagora.Trade;
+import uk.ac.glasgow.jagora.TradeListener;
 
 public class StubStockExchange implements StockExchange {
 
@@ -21,6 +23,12 @@ public class StubStockExchange implements StockExchange {
 
 	}
 
+	@Override
+	public void addTradeListener(TradeListener tradeListener) {
+		// does nothing - no trades executed.
+
+	}
+
 	@Override
 	public void placeBuyOrder(BuyOrder buyOrder) {
 		buyOrders.add(buyOrder);
@@ -60,4 +68,9 @@ public class StubStockExchange implements StockExchange {
 		return 5.0;
 	}
 
+	@Override
+	public Quote getQuote(Stock stock) {
+		return StubQuote.fives;
+	}
+
 }